@@ -1,7 +1,9 @@
 plugins {
+    java
     id("org.springframework.boot") version "3.3.0"
     id("io.spring.dependency-management") version "1.1.4"
-    java
+    // After java: the plugin configures enhancement on the java source sets
+    id("org.hibernate.orm") version "6.5.2.Final"
 }
 
 group = "com.app"
@@ -22,11 +24,15 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-mail")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("org.springframework.boot:spring-boot-starter-cache")
+    implementation("com.github.ben-manes.caffeine:caffeine")
     implementation("org.springframework.retry:spring-retry")
     implementation("org.apache.poi:poi-ooxml:5.2.5")
     implementation("com.fasterxml.jackson.core:jackson-databind")
     implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.6.0")
+    implementation("org.flywaydb:flyway-core")
+    implementation("org.flywaydb:flyway-database-postgresql")
     runtimeOnly("org.postgresql:postgresql")
     runtimeOnly("io.micrometer:micrometer-registry-prometheus")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
@@ -34,6 +40,14 @@ dependencies {
     testImplementation("org.mockito:mockito-core")
 }
 
+// Bytecode enhancement so @Basic(fetch = LAZY) text columns on IssueRecord are not loaded eagerly
+hibernate {
+    enhancement {
+        enableLazyInitialization.set(true)
+        enableDirtyTracking.set(true)
+    }
+}
+
 tasks.named<Test>("test") {
     useJUnitPlatform()
 }
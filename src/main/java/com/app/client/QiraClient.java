@@ -16,6 +16,10 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -45,11 +49,21 @@ public class QiraClient {
     @Value("${ingestion.page-size:100}")
     private int defaultPageSize;
     
+    // Time zone JIRA uses to read dates in JQL (the API user's profile time zone)
+    private ZoneId qiraZone = ZoneOffset.UTC;
+    
+    private static final DateTimeFormatter JQL_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm");
+    
     public QiraClient(RestTemplate restTemplate, ObjectMapper objectMapper) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
     }
     
+    @Value("${qira.timezone:UTC}")
+    void setQiraTimezone(String timezone) {
+        this.qiraZone = ZoneId.of(timezone);
+    }
+    
     /**
      * Fetch a single page of tickets from JIRA/QIRA API using JQL search
      * JIRA REST API v2 uses startAt instead of page number
@@ -63,16 +77,68 @@ public class QiraClient {
         backoff = @Backoff(delay = 1000, multiplier = 2, maxDelay = 30000)
     )
     public QiraPageResponse fetchTickets(int startAt, int maxResults) {
+        return search(jqlQuery, startAt, maxResults, "*all");
+    }
+    
+    /**
+     * Fetch a single page of tickets matching the configured JQL narrowed by an extra clause
+     * @param jqlFilter Extra JQL clause, ANDed with the configured query (may end with ORDER BY)
+     * @param fields Fields to return ("*all" for everything)
+     */
+    @Retryable(
+        retryFor = {HttpClientErrorException.TooManyRequests.class, Exception.class},
+        maxAttempts = 5,
+        backoff = @Backoff(delay = 1000, multiplier = 2, maxDelay = 30000)
+    )
+    public QiraPageResponse searchTickets(String jqlFilter, int startAt, int maxResults, String fields) {
+        return search(narrow(jqlFilter), startAt, maxResults, fields);
+    }
+    
+    /**
+     * JQL clause selecting tickets created in [from, to)
+     * JQL dates have minute precision and are read in the QIRA account's time zone (qira.timezone).
+     */
+    public String createdWindowJql(OffsetDateTime from, OffsetDateTime to) {
+        return "created >= \"" + JQL_DATE_FORMATTER.format(from.atZoneSameInstant(qiraZone)) + "\"" +
+               " AND created < \"" + JQL_DATE_FORMATTER.format(to.atZoneSameInstant(qiraZone)) + "\"";
+    }
+    
+    /**
+     * JQL clause selecting tickets updated at or after since, oldest change first
+     * A ticket updated while the search pages through moves to the end and shifts the tickets
+     * after it back by one, so paging this query by offset skips one; page it by keyset instead
+     * (IngestionPipeline.runUpdatedSince).
+     */
+    public String updatedSinceJql(OffsetDateTime since) {
+        return "updated >= \"" + JQL_DATE_FORMATTER.format(since.atZoneSameInstant(qiraZone)) + "\" ORDER BY updated ASC";
+    }
+    
+    private String narrow(String jqlFilter) {
+        if (jqlFilter == null || jqlFilter.isBlank()) {
+            return jqlQuery;
+        }
+        // ORDER BY must stay at the end of the combined query
+        String filter = jqlFilter;
+        String orderBy = "";
+        int order = jqlFilter.toUpperCase().indexOf("ORDER BY");
+        if (order >= 0) {
+            filter = jqlFilter.substring(0, order).trim();
+            orderBy = " " + jqlFilter.substring(order).trim();
+        }
+        return filter.isEmpty() ? jqlQuery + orderBy : "(" + jqlQuery + ") AND " + filter + orderBy;
+    }
+    
+    private QiraPageResponse search(String jql, int startAt, int maxResults, String fields) {
         logger.info("Fetching tickets: startAt={}, maxResults={}", startAt, maxResults);
         
         // Build JIRA search URL with JQL query
         // Example: https://jira.springernature.com/rest/api/2/search?jql=project=QIRA&startAt=0&maxResults=100
         String url = UriComponentsBuilder.fromHttpUrl(baseUrl)
             .path("/rest/api/2/search")
-            .queryParam("jql", jqlQuery)
+            .queryParam("jql", jql)
             .queryParam("startAt", startAt)
             .queryParam("maxResults", maxResults)
-            .queryParam("fields", "*all") // Include all fields including custom fields
+            .queryParam("fields", fields) // "*all" includes custom fields
             .build()
             .toUriString();
         
@@ -111,8 +177,12 @@ public class QiraClient {
             }
             
             // Parse JIRA response
-            JsonNode rootNode = objectMapper.readTree(response.getBody());
+            String body = response.getBody();
+            JsonNode rootNode = objectMapper.readTree(body);
             QiraPageResponse pageResponse = new QiraPageResponse();
+            long contentLength = response.getHeaders().getContentLength();
+            // Without Content-Length (chunked), the character count is close enough for JSON
+            pageResponse.setResponseBytes(contentLength >= 0 ? contentLength : (body != null ? body.length() : 0));
             
             // JIRA API v2 response structure:
             // {
@@ -182,7 +252,19 @@ public class QiraClient {
      * @return List of all ticket JSON nodes
      */
     public List<JsonNode> fetchAllTickets() {
-        logger.info("Starting to fetch all tickets using JQL: {}", jqlQuery);
+        return fetchAll(jqlQuery);
+    }
+    
+    /**
+     * Fetch all tickets matching the configured JQL narrowed by an extra clause
+     * @param jqlFilter Extra JQL clause, e.g. from createdWindowJql
+     */
+    public List<JsonNode> fetchAllTickets(String jqlFilter) {
+        return fetchAll(narrow(jqlFilter));
+    }
+    
+    private List<JsonNode> fetchAll(String jql) {
+        logger.info("Starting to fetch all tickets using JQL: {}", jql);
         List<JsonNode> allTickets = new ArrayList<>();
         
         int startAt = 0;
@@ -190,7 +272,7 @@ public class QiraClient {
         
         while (hasMore) {
             try {
-                QiraPageResponse response = fetchTickets(startAt, defaultPageSize);
+                QiraPageResponse response = search(jql, startAt, defaultPageSize, "*all");
                 
                 if (response.getItems() != null && !response.getItems().isEmpty()) {
                     response.getItems().forEach(ticket -> 
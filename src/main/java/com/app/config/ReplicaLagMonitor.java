@@ -0,0 +1,66 @@
+package com.app.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Periodically measures replication lag on the replica pool.
+ * The replica is only used while the last check succeeded and the lag is within bounds.
+ */
+public class ReplicaLagMonitor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    
+    // Zero when the replica is caught up (or is a stand-in primary), else seconds since last replay
+    private static final String LAG_QUERY =
+        "SELECT CASE " +
+        "WHEN NOT pg_is_in_recovery() THEN 0 " +
+        "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+    
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final double maxLagSeconds;
+    
+    private volatile boolean usable = false;
+    private volatile double lastLagSeconds = -1;
+    
+    public ReplicaLagMonitor(DataSource replicaDataSource, double maxLagSeconds) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.replicaJdbcTemplate.setQueryTimeout(5);
+        this.maxLagSeconds = maxLagSeconds;
+    }
+    
+    /**
+     * Lag check on a fixed delay, so a lagging or unreachable replica stops receiving reads
+     */
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:10000}")
+    public void check() {
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            lastLagSeconds = lag != null ? lag : 0;
+            boolean nowUsable = lastLagSeconds <= maxLagSeconds;
+            if (nowUsable != usable) {
+                logger.info("Read replica {} (lag {}s, max {}s)",
+                    nowUsable ? "enabled" : "disabled, routing reads to primary", lastLagSeconds, maxLagSeconds);
+            }
+            usable = nowUsable;
+        } catch (Exception e) {
+            if (usable) {
+                logger.warn("Read replica check failed, routing reads to primary: {}", e.getMessage());
+            }
+            usable = false;
+        }
+    }
+    
+    public boolean isUsable() {
+        return usable;
+    }
+    
+    public double getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+}
@@ -0,0 +1,75 @@
+package com.app.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Routes connections for read-only transactions to the replica pool and everything
+ * else to the primary. Falls back to the primary while the replica is unavailable
+ * or lagging, and for code running inside {@link #primaryScope(PrimaryReads)}.
+ * Must be wrapped in a LazyConnectionDataSourceProxy so the connection is obtained
+ * after the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+    
+    private static final ThreadLocal<Integer> PRIMARY_SCOPE_DEPTH = ThreadLocal.withInitial(() -> 0);
+    
+    private final BooleanSupplier replicaUsable;
+    
+    public ReplicaRoutingDataSource(BooleanSupplier replicaUsable) {
+        this.replicaUsable = replicaUsable;
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && PRIMARY_SCOPE_DEPTH.get() == 0
+                && replicaUsable.getAsBoolean()) {
+            return REPLICA;
+        }
+        return PRIMARY;
+    }
+    
+    /**
+     * Run reads on the primary, e.g. when they must see rows written moments ago
+     * @return What the reads return
+     */
+    public static <T, E extends Exception> T primaryScope(PrimaryReads<T, E> reads) throws E {
+        PRIMARY_SCOPE_DEPTH.set(PRIMARY_SCOPE_DEPTH.get() + 1);
+        try {
+            return reads.read();
+        } finally {
+            int depth = PRIMARY_SCOPE_DEPTH.get() - 1;
+            if (depth <= 0) {
+                PRIMARY_SCOPE_DEPTH.remove();
+            } else {
+                PRIMARY_SCOPE_DEPTH.set(depth);
+            }
+        }
+    }
+    
+    /**
+     * Run work that returns nothing with its reads on the primary
+     */
+    public static <E extends Exception> void primaryScope(PrimaryWork<E> work) throws E {
+        primaryScope(() -> {
+            work.run();
+            return null;
+        });
+    }
+    
+    @FunctionalInterface
+    public interface PrimaryReads<T, E extends Exception> {
+        T read() throws E;
+    }
+    
+    @FunctionalInterface
+    public interface PrimaryWork<E extends Exception> {
+        void run() throws E;
+    }
+}
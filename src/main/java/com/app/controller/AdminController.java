@@ -1,9 +1,20 @@
 package com.app.controller;
 
 import com.app.dto.JobStatus;
+import com.app.dto.ReconciliationReport;
+import com.app.model.IngestionDeadLetter;
 import com.app.model.IssueRecord;
+import com.app.model.JobRun;
+import com.app.service.DeadLetterService;
+import com.app.service.IngestionJobManager;
+import com.app.service.IngestionJobManager.JobType;
 import com.app.service.IngestionOrchestrator;
 import com.app.service.IssueService;
+import com.app.service.IssueStatsRollupService;
+import com.app.service.IssueStatsService;
+import com.app.service.JobEventService;
+import com.app.service.JobRunService;
+import com.app.service.ReconciliationService;
 import com.app.service.ReportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,12 +24,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
@@ -31,6 +44,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/admin")
@@ -40,16 +54,37 @@ public class AdminController {
     private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
     
     private final IngestionOrchestrator ingestionOrchestrator;
+    private final IngestionJobManager jobManager;
     private final IssueService issueService;
     private final ReportService reportService;
+    private final IssueStatsRollupService statsRollup;
+    private final IssueStatsService issueStatsService;
+    private final ReconciliationService reconciliationService;
+    private final JobRunService jobRunService;
+    private final DeadLetterService deadLetterService;
+    private final JobEventService jobEventService;
     
     public AdminController(
             IngestionOrchestrator ingestionOrchestrator,
+            IngestionJobManager jobManager,
             IssueService issueService,
-            ReportService reportService) {
+            ReportService reportService,
+            IssueStatsRollupService statsRollup,
+            IssueStatsService issueStatsService,
+            ReconciliationService reconciliationService,
+            JobRunService jobRunService,
+            DeadLetterService deadLetterService,
+            JobEventService jobEventService) {
         this.ingestionOrchestrator = ingestionOrchestrator;
+        this.jobManager = jobManager;
         this.issueService = issueService;
         this.reportService = reportService;
+        this.statsRollup = statsRollup;
+        this.issueStatsService = issueStatsService;
+        this.reconciliationService = reconciliationService;
+        this.jobRunService = jobRunService;
+        this.deadLetterService = deadLetterService;
+        this.jobEventService = jobEventService;
     }
     
     /**
@@ -59,43 +94,199 @@ public class AdminController {
     @PostMapping("/fetch-now")
     @Operation(
         summary = "Trigger manual ingestion",
-        description = "Manually triggers the QIRA ticket ingestion process immediately, bypassing the scheduled cron job. " +
+        description = "Queues a QIRA ticket ingestion job, bypassing the scheduled cron job. " +
                      "Optionally specify maxRecords to limit the number of tickets fetched for testing. " +
-                     "Returns 409 CONFLICT if ingestion is already running."
+                     "Jobs run one at a time; scheduled syncs run ahead of manual ones and limited fetches go last. " +
+                     "Returns the job id to poll via GET /admin/jobs/{id}; an identical job already waiting is reused."
     )
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "202", description = "Ingestion job started successfully"),
-        @ApiResponse(responseCode = "409", description = "Ingestion job already running")
+        @ApiResponse(responseCode = "202", description = "Ingestion job queued"),
+        @ApiResponse(responseCode = "409", description = "Job queue is full")
     })
     public ResponseEntity<Map<String, Object>> fetchNow(
             @RequestParam(required = false) @Parameter(description = "Maximum number of records to fetch (null for all)") Integer maxRecords) {
         logger.info("Manual ingestion triggered via admin endpoint (maxRecords: {})", maxRecords);
         
-        if (ingestionOrchestrator.isRunning()) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "ALREADY_RUNNING");
-            response.put("message", "Ingestion job is already in progress");
-            response.put("currentJob", ingestionOrchestrator.getLastJobStatus());
+        boolean limited = maxRecords != null && maxRecords > 0;
+        return submitJob(limited ? JobType.LIMITED_FETCH : JobType.MANUAL_SYNC, limited ? maxRecords : null,
+            "Ingestion job has been queued");
+    }
+    
+    /**
+     * Get a queued, running or recent job
+     * GET /admin/jobs/{id}
+     */
+    @GetMapping("/jobs/{id}")
+    @Operation(
+        summary = "Get job status",
+        description = "Returns the status of an ingestion or reconciliation job by id: QUEUED, RUNNING, COMPLETED, " +
+                     "COMPLETED_WITH_ERRORS, FAILED or CANCELLED, with its counters and errors."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Job status retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "Unknown job id (or evicted from the job history)")
+    })
+    public ResponseEntity<JobStatus> getJob(@PathVariable String id) {
+        JobStatus job = jobManager.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+    
+    /**
+     * List recent jobs
+     * GET /admin/jobs
+     */
+    @GetMapping("/jobs")
+    @Operation(
+        summary = "List recent jobs",
+        description = "Returns queued, running and recently finished jobs, newest first " +
+                     "(the last ingestion.jobs.history-size jobs)."
+    )
+    @ApiResponse(responseCode = "200", description = "Jobs retrieved successfully")
+    public ResponseEntity<List<JobStatus>> getJobs() {
+        return ResponseEntity.ok(jobManager.getJobs());
+    }
+    
+    /**
+     * Cancel a queued or running job
+     * POST /admin/jobs/{id}/cancel
+     */
+    @PostMapping("/jobs/{id}/cancel")
+    @Operation(
+        summary = "Cancel job",
+        description = "Drops a queued job, or asks a running job to stop at its next page boundary. " +
+                     "Pages already written stay written; a cancelled full sync skips the deleted-ticket sweep " +
+                     "and the report."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Cancellation requested"),
+        @ApiResponse(responseCode = "404", description = "Unknown job id"),
+        @ApiResponse(responseCode = "409", description = "Job has already finished")
+    })
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String id) {
+        logger.info("Cancellation of job {} requested via admin endpoint", id);
+        
+        JobStatus job = jobManager.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        if (job.isFinished()) {
+            response.put("status", "ALREADY_FINISHED");
+            response.put("job", job);
             return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         }
         
-        // Trigger async (in a real implementation, you'd use @Async or a thread pool)
-        Integer finalMaxRecords = maxRecords;
-        new Thread(() -> {
-            try {
-                ingestionOrchestrator.fetchAndReport(finalMaxRecords);
-            } catch (Exception e) {
-                logger.error("Error in async ingestion", e);
+        jobManager.cancel(id);
+        response.put("status", "CANCEL_REQUESTED");
+        response.put("job", job);
+        return ResponseEntity.accepted().body(response);
+    }
+    
+    /**
+     * Stream a job's progress as Server-Sent Events
+     * GET /admin/jobs/{id}/events
+     */
+    @GetMapping(value = "/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Stream job progress",
+        description = "Server-Sent Events instead of polling /admin/status. The first \"progress\" event is a " +
+                     "snapshot of the job's counters (pages, tickets fetched, mapped and written, throughput, ETA); " +
+                     "later ones carry only the fields that changed, at most one per ingestion.events.interval-ms. " +
+                     "A \"done\" event with the final counts ends the stream."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event stream opened"),
+        @ApiResponse(responseCode = "404", description = "Unknown job id (or evicted from the job history)"),
+        @ApiResponse(responseCode = "503", description = "Too many open event streams")
+    })
+    public ResponseEntity<SseEmitter> streamJobEvents(@PathVariable String id) {
+        try {
+            SseEmitter emitter = jobEventService.subscribe(id);
+            if (emitter == null) {
+                return ResponseEntity.notFound().build();
             }
-        }).start();
+            return ResponseEntity.ok(emitter);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Event stream for job {} refused: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+    
+    /**
+     * Page through the persistent job run history
+     * GET /admin/runs
+     */
+    @GetMapping("/runs")
+    @Operation(
+        summary = "List job run history",
+        description = "Returns finished jobs from the job_runs table, newest first, with duration, counts, bytes, " +
+                     "throughput, an error summary and per-stage timings (fetch, map, upsert, sweep, report). " +
+                     "Runs that took more than ingestion.runs.regression.factor times the trailing median of " +
+                     "comparable runs have regression set, with that median as baselineDurationMs."
+    )
+    @ApiResponse(responseCode = "200", description = "Runs retrieved successfully")
+    public ResponseEntity<Map<String, Object>> getRuns(
+            @RequestParam(required = false) @Parameter(description = "Job type, e.g. SCHEDULED_SYNC (all types if omitted)") String type,
+            @RequestParam(defaultValue = "false") @Parameter(description = "Only runs flagged as regressions") boolean regressionsOnly,
+            @RequestParam(defaultValue = "0") @Parameter(description = "Page number, from 0") int page,
+            @RequestParam(defaultValue = "20") @Parameter(description = "Page size (max 100)") int size) {
+        Page<JobRun> runs = jobRunService.getRuns(type, regressionsOnly, page, size);
         
         Map<String, Object> response = new HashMap<>();
-        response.put("status", "STARTED");
-        response.put("message", "Ingestion job has been triggered");
-        response.put("maxRecords", maxRecords != null ? maxRecords : "ALL");
-        response.put("startedAt", OffsetDateTime.now());
+        response.put("runs", runs.getContent());
+        response.put("page", runs.getNumber());
+        response.put("size", runs.getSize());
+        response.put("totalElements", runs.getTotalElements());
+        response.put("totalPages", runs.getTotalPages());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Get one run from the job run history
+     * GET /admin/runs/{id}
+     */
+    @GetMapping("/runs/{id}")
+    @Operation(
+        summary = "Get job run",
+        description = "Returns one finished job from the job_runs table by job id, with its stage timings."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Run retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "Unknown job id, or the job has not finished")
+    })
+    public ResponseEntity<JobRun> getRun(@PathVariable String id) {
+        return jobRunService.getRun(id)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Page through tickets that failed to ingest
+     * GET /admin/dead-letters
+     */
+    @GetMapping("/dead-letters")
+    @Operation(
+        summary = "List dead letters",
+        description = "Returns tickets that failed to ingest, newest first, with error category, message and the " +
+                     "raw QIRA payload. Job status only keeps error counts per category and the latest samples."
+    )
+    @ApiResponse(responseCode = "200", description = "Dead letters retrieved successfully")
+    public ResponseEntity<Map<String, Object>> getDeadLetters(
+            @RequestParam(required = false) @Parameter(description = "Job id (all jobs if omitted)") String jobId,
+            @RequestParam(defaultValue = "0") @Parameter(description = "Page number, from 0") int page,
+            @RequestParam(defaultValue = "20") @Parameter(description = "Page size (max 100)") int size) {
+        Page<IngestionDeadLetter> deadLetters = deadLetterService.getDeadLetters(jobId, page, size);
         
-        return ResponseEntity.accepted().body(response);
+        Map<String, Object> response = new HashMap<>();
+        response.put("deadLetters", deadLetters.getContent());
+        response.put("page", deadLetters.getNumber());
+        response.put("size", deadLetters.getSize());
+        response.put("totalElements", deadLetters.getTotalElements());
+        response.put("totalPages", deadLetters.getTotalPages());
+        return ResponseEntity.ok(response);
     }
     
     /**
@@ -134,8 +325,95 @@ public class AdminController {
     @ApiResponse(responseCode = "200", description = "Status retrieved successfully")
     public ResponseEntity<Map<String, Object>> getStatus() {
         Map<String, Object> status = new HashMap<>();
-        status.put("isRunning", ingestionOrchestrator.isRunning());
+        status.put("isRunning", jobManager.isRunning());
+        status.put("currentJob", jobManager.getCurrentJob());
+        status.put("queuedJobs", jobManager.getQueuedCount());
         status.put("lastJob", ingestionOrchestrator.getLastJobStatus());
         return ResponseEntity.ok(status);
     }
+    
+    /**
+     * Recompute the stats rollup from issue_records
+     * POST /admin/stats/rebuild
+     */
+    @PostMapping("/stats/rebuild")
+    @Operation(
+        summary = "Rebuild stats rollup",
+        description = "Recomputes the pre-aggregated ticket counts (month x team x status x issue type x priority) " +
+                     "from issue_records. Upserts wait while the rebuild runs."
+    )
+    @ApiResponse(responseCode = "200", description = "Rollup rebuilt")
+    public ResponseEntity<Map<String, Object>> rebuildStatsRollup() {
+        logger.info("Stats rollup rebuild triggered via admin endpoint");
+        long groups = statsRollup.rebuild();
+        issueStatsService.invalidate();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "REBUILT");
+        response.put("groups", groups);
+        response.put("rebuiltAt", OffsetDateTime.now());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Start a per-month checksum reconciliation against QIRA
+     * POST /admin/reconcile
+     */
+    @PostMapping("/reconcile")
+    @Operation(
+        summary = "Trigger reconciliation",
+        description = "Compares ticket count and latest update per created month between QIRA and the database, " +
+                     "and refetches only the months (or parts of months) that differ. " +
+                     "Runs as a job after any ingestion job ahead of it; returns the job id."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Reconciliation job queued"),
+        @ApiResponse(responseCode = "409", description = "Job queue is full")
+    })
+    public ResponseEntity<Map<String, Object>> reconcile() {
+        logger.info("Reconciliation triggered via admin endpoint");
+        return submitJob(JobType.RECONCILE, null, "Reconciliation has been queued");
+    }
+    
+    /**
+     * Get the latest reconciliation report
+     * GET /admin/reconcile/last
+     */
+    @GetMapping("/reconcile/last")
+    @Operation(
+        summary = "Get last reconciliation report",
+        description = "Returns windows checked, drifted and refetched, and the tickets inserted, updated and " +
+                     "tombstoned by the most recent (or running) reconciliation."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Report retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "No reconciliation has run yet")
+    })
+    public ResponseEntity<ReconciliationReport> getLastReconciliation() {
+        ReconciliationReport report = reconciliationService.getLastReport();
+        if (report == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(report);
+    }
+    
+    private ResponseEntity<Map<String, Object>> submitJob(JobType type, Integer maxRecords, String message) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            JobStatus job = jobManager.submit(type, maxRecords);
+            response.put("status", job.getStatus());
+            response.put("message", message);
+            response.put("jobId", job.getId());
+            response.put("type", job.getType());
+            response.put("maxRecords", maxRecords != null ? maxRecords : "ALL");
+            response.put("queuedAt", job.getQueuedAt());
+            response.put("queuedJobs", jobManager.getQueuedCount());
+            return ResponseEntity.accepted().body(response);
+        } catch (RejectedExecutionException e) {
+            response.put("status", "QUEUE_FULL");
+            response.put("message", e.getMessage());
+            response.put("currentJob", jobManager.getCurrentJob());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+    }
 }
@@ -1,8 +1,16 @@
 package com.app.controller;
 
-import com.app.model.IssueRecord;
+import com.app.dto.IssueFilter;
+import com.app.dto.IssuePage;
+import com.app.dto.IssueSearchHit;
+import com.app.dto.StatsCount;
+import com.app.service.IssueQueryService;
 import com.app.service.IssueService;
+import com.app.service.IssueStatsService;
 import com.app.service.ReportService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,22 +20,29 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/issues")
@@ -36,12 +51,100 @@ public class IssueController {
     
     private static final Logger logger = LoggerFactory.getLogger(IssueController.class);
     
+    private static final String STATS_DESCRIPTION =
+        "Aggregated from the pre-computed stats rollup (month granularity, UTC) and cached until new " +
+        "ticket data is committed. Responses carry an ETag; send it as If-None-Match to get 304 Not Modified.";
+    
     private final IssueService issueService;
     private final ReportService reportService;
+    private final IssueStatsService issueStatsService;
+    private final IssueQueryService issueQueryService;
+    private final ObjectMapper objectMapper;
     
-    public IssueController(IssueService issueService, ReportService reportService) {
+    public IssueController(
+            IssueService issueService,
+            ReportService reportService,
+            IssueStatsService issueStatsService,
+            IssueQueryService issueQueryService,
+            ObjectMapper objectMapper) {
         this.issueService = issueService;
         this.reportService = reportService;
+        this.issueStatsService = issueStatsService;
+        this.issueQueryService = issueQueryService;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Query issues as JSON with filters, sparse fields and cursor pagination
+     * GET /issues?status=Open&team=Engineering&fields=qiraId,summary,status&limit=50&cursor=...
+     */
+    @GetMapping
+    @Operation(
+        summary = "Query issues",
+        description = "Returns issues newest first, filtered by status, team, project, priority and created/updated " +
+                     "date ranges. Use fields to select a subset of columns. Pages are keyed on (created, id): pass " +
+                     "nextCursor from a response as cursor to read the next page. Issues without a created date " +
+                     "follow all dated ones (newest id first) unless a created date range is given."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Page of issues: {\"items\": [...], \"nextCursor\": ...}"),
+        @ApiResponse(responseCode = "400", description = "Unknown field or malformed cursor")
+    })
+    public ResponseEntity<StreamingResponseBody> queryIssues(
+            @Parameter(description = "Status filter", example = "Open") @RequestParam(required = false) String status,
+            @Parameter(description = "Assigned team filter", example = "Engineering") @RequestParam(required = false) String team,
+            @Parameter(description = "Project filter") @RequestParam(required = false) String project,
+            @Parameter(description = "Priority filter") @RequestParam(required = false) String priority,
+            @Parameter(description = "Created on or after (YYYY-MM-DD)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @Parameter(description = "Created on or before (YYYY-MM-DD)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @Parameter(description = "Updated on or after (YYYY-MM-DD)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate updatedFrom,
+            @Parameter(description = "Updated on or before (YYYY-MM-DD)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate updatedTo,
+            @Parameter(description = "Comma-separated fields to return", example = "qiraId,summary,status") @RequestParam(required = false) List<String> fields,
+            @Parameter(description = "Cursor from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max " + IssueQueryService.MAX_LIMIT + ")", example = "50") @RequestParam(required = false) Integer limit) {
+        
+        IssueFilter filter = new IssueFilter();
+        filter.setStatus(status);
+        filter.setTeam(team);
+        filter.setProject(project);
+        filter.setPriority(priority);
+        filter.setCreatedFrom(startOfDay(createdFrom));
+        filter.setCreatedTo(createdTo != null ? startOfDay(createdTo.plusDays(1)) : null);
+        filter.setUpdatedFrom(startOfDay(updatedFrom));
+        filter.setUpdatedTo(updatedTo != null ? startOfDay(updatedTo.plusDays(1)) : null);
+        
+        IssuePage page;
+        try {
+            page = issueQueryService.findPage(filter, fields, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            String error = e.getMessage();
+            return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, Map.of("error", error)));
+        }
+        
+        // Written field by field: no per-row maps or DTOs are built for serialization
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                json.writeStartObject();
+                json.writeArrayFieldStart("items");
+                List<String> names = page.getFields();
+                for (Object[] row : page.getRows()) {
+                    json.writeStartObject();
+                    for (int i = 0; i < names.size(); i++) {
+                        writeValue(json, names.get(i), row[i]);
+                    }
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeStringField("nextCursor", page.getNextCursor());
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
     }
     
     /**
@@ -75,17 +178,8 @@ public class IssueController {
         try {
             // Convert LocalDate to OffsetDateTime
             OffsetDateTime fromDateTime = from.atStartOfDay().atOffset(ZoneOffset.UTC);
-            OffsetDateTime toDateTime = to.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC).minusNanos(1);
-            
-            // Query data
-            List<IssueRecord> records;
-            if (team != null && !team.isBlank()) {
-                records = issueService.findByDateRangeAndTeam(fromDateTime, toDateTime, team);
-            } else {
-                records = issueService.findByDateRange(fromDateTime, toDateTime);
-            }
-            
-            logger.info("Found {} records for export", records.size());
+            // Exclusive upper bound: start of the day after "to"
+            OffsetDateTime toDateTime = to.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC);
             
             // Generate temporary Excel file
             String fileName = String.format("QIRA_Export_%s_to_%s.xlsx",
@@ -93,7 +187,8 @@ public class IssueController {
                 to.format(DateTimeFormatter.ISO_DATE));
             
             Path tempFile = Files.createTempFile("qira_export_", ".xlsx");
-            reportService.generateExcel(records, tempFile);
+            // Rows are streamed from the database straight into the workbook
+            reportService.generateExcel(fromDateTime, toDateTime, team, tempFile);
             
             // Stream file to response
             FileInputStream fileInputStream = new FileInputStream(tempFile.toFile());
@@ -120,20 +215,174 @@ public class IssueController {
                 .headers(headers)
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
                 .body(resource);
-                
+        
         } catch (Exception e) {
             logger.error("Error generating export", e);
             return ResponseEntity.internalServerError().build();
         }
     }
     
+    /**
+     * Full-text search across summary, description, comment and support remark
+     * GET /issues/search?q=missing%20doi&page=0&size=20
+     */
+    @GetMapping("/search")
+    @Operation(
+        summary = "Search issues",
+        description = "Ranked full-text search over summary, description, comment and support remark. " +
+                     "Supports web search syntax (\"exact phrase\", -exclude, or). Each hit carries a relevance rank " +
+                     "and a snippet with matches wrapped in <mark> tags."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Search results retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Missing search text")
+    })
+    public ResponseEntity<Map<String, Object>> searchIssues(
+            @Parameter(description = "Search text", example = "missing doi", required = true) @RequestParam String q,
+            @Parameter(description = "Zero-based page number", example = "0") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size (max " + IssueQueryService.MAX_SEARCH_SIZE + ")", example = "20") @RequestParam(defaultValue = "20") int size) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Search text must not be empty"));
+        }
+        
+        int pageSize = Math.max(1, Math.min(size, IssueQueryService.MAX_SEARCH_SIZE));
+        List<IssueSearchHit> hits = issueQueryService.search(q.trim(), page, pageSize);
+        boolean hasMore = hits.size() > pageSize;
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("items", hasMore ? hits.subList(0, pageSize) : hits);
+        response.put("page", Math.max(0, page));
+        response.put("size", pageSize);
+        response.put("hasMore", hasMore);
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Get issue count by status
+     * GET /issues/stats/by-status?from=2024-01-01&to=2024-12-31&team=Engineering
      */
     @GetMapping("/stats/by-status")
-    public ResponseEntity<List<Object[]>> getStatsByStatus() {
-        // This would query the repository for counts
-        // Returning simple response for now
-        return ResponseEntity.ok(List.of());
+    @Operation(summary = "Issue counts by status", description = STATS_DESCRIPTION)
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Counts retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Counts unchanged since the ETag in If-None-Match")
+    })
+    public ResponseEntity<List<StatsCount>> getStatsByStatus(
+            @Parameter(description = "Start date; resolved to its month") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "End date; resolved to its month (inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Optional team name filter") @RequestParam(required = false) String team,
+            WebRequest request) {
+        return stats(IssueStatsService.Dimension.STATUS, from, to, team, request);
+    }
+    
+    /**
+     * Get issue count by issue type
+     * GET /issues/stats/by-type
+     */
+    @GetMapping("/stats/by-type")
+    @Operation(summary = "Issue counts by issue type", description = STATS_DESCRIPTION)
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Counts retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Counts unchanged since the ETag in If-None-Match")
+    })
+    public ResponseEntity<List<StatsCount>> getStatsByIssueType(
+            @Parameter(description = "Start date; resolved to its month") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "End date; resolved to its month (inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Optional team name filter") @RequestParam(required = false) String team,
+            WebRequest request) {
+        return stats(IssueStatsService.Dimension.ISSUE_TYPE, from, to, team, request);
+    }
+    
+    /**
+     * Get issue count by assigned team
+     * GET /issues/stats/by-team
+     */
+    @GetMapping("/stats/by-team")
+    @Operation(summary = "Issue counts by assigned team", description = STATS_DESCRIPTION)
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Counts retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Counts unchanged since the ETag in If-None-Match")
+    })
+    public ResponseEntity<List<StatsCount>> getStatsByTeam(
+            @Parameter(description = "Start date; resolved to its month") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "End date; resolved to its month (inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Optional team name filter") @RequestParam(required = false) String team,
+            WebRequest request) {
+        return stats(IssueStatsService.Dimension.TEAM, from, to, team, request);
+    }
+    
+    /**
+     * Get issue count by priority
+     * GET /issues/stats/by-priority
+     */
+    @GetMapping("/stats/by-priority")
+    @Operation(summary = "Issue counts by priority", description = STATS_DESCRIPTION)
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Counts retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Counts unchanged since the ETag in If-None-Match")
+    })
+    public ResponseEntity<List<StatsCount>> getStatsByPriority(
+            @Parameter(description = "Start date; resolved to its month") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "End date; resolved to its month (inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Optional team name filter") @RequestParam(required = false) String team,
+            WebRequest request) {
+        return stats(IssueStatsService.Dimension.PRIORITY, from, to, team, request);
+    }
+    
+    /**
+     * Get issue count by created month (yyyy-MM, UTC)
+     * GET /issues/stats/by-month
+     */
+    @GetMapping("/stats/by-month")
+    @Operation(summary = "Issue counts by created month", description = STATS_DESCRIPTION)
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Counts retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Counts unchanged since the ETag in If-None-Match")
+    })
+    public ResponseEntity<List<StatsCount>> getStatsByMonth(
+            @Parameter(description = "Start date; resolved to its month") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "End date; resolved to its month (inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Optional team name filter") @RequestParam(required = false) String team,
+            WebRequest request) {
+        return stats(IssueStatsService.Dimension.MONTH, from, to, team, request);
+    }
+    
+    /**
+     * Serve cached counts, answering 304 when the caller already has the current data version
+     */
+    private ResponseEntity<List<StatsCount>> stats(
+            IssueStatsService.Dimension dimension, LocalDate from, LocalDate to, String team, WebRequest request) {
+        long version = issueStatsService.getDataVersion();
+        String etag = "\"stats-" + version + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        
+        // Rollup granularity is one month (UTC)
+        LocalDate fromMonth = from != null ? from.withDayOfMonth(1) : null;
+        LocalDate toMonth = to != null ? to.withDayOfMonth(1).plusMonths(1) : null;
+        List<StatsCount> counts = issueStatsService.countBy(version, dimension, fromMonth, toMonth, team);
+        
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .body(counts);
+    }
+    
+    private static OffsetDateTime startOfDay(LocalDate date) {
+        return date != null ? date.atStartOfDay().atOffset(ZoneOffset.UTC) : null;
+    }
+    
+    /**
+     * Write one selected value; dates are written as ISO-8601 strings
+     */
+    private static void writeValue(JsonGenerator json, String name, Object value) throws IOException {
+        if (value == null) {
+            json.writeNullField(name);
+        } else if (value instanceof Long number) {
+            json.writeNumberField(name, number);
+        } else {
+            json.writeStringField(name, value.toString());
+        }
     }
 }
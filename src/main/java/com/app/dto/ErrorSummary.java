@@ -0,0 +1,142 @@
+package com.app.dto;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Errors of a job or pipeline run in constant space: a count per category and a ring buffer
+ * of the most recent samples. Full details of failed tickets go to the dead-letter table.
+ * Thread-safe; the pipeline stages and the job thread add to it concurrently.
+ */
+public class ErrorSummary {
+    
+    public static final int DEFAULT_SAMPLE_SIZE = 20;
+    // Categories are fixed strings in code; the cap only guards against one built from input
+    private static final int MAX_CATEGORIES = 50;
+    private static final String OTHER = "OTHER";
+    private static final int MAX_MESSAGE_LENGTH = 500;
+    
+    private final int sampleSize;
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final Deque<Sample> samples;
+    private long total;
+    
+    public ErrorSummary() {
+        this(DEFAULT_SAMPLE_SIZE);
+    }
+    
+    public ErrorSummary(int sampleSize) {
+        this.sampleSize = Math.max(1, sampleSize);
+        this.samples = new ArrayDeque<>(this.sampleSize);
+    }
+    
+    /**
+     * @param qiraId Ticket the error belongs to, null for job-level errors
+     */
+    public synchronized void add(String category, String qiraId, String message) {
+        String key = counts.containsKey(category) || counts.size() < MAX_CATEGORIES ? category : OTHER;
+        counts.merge(key, 1L, Long::sum);
+        total++;
+        addSample(new Sample(category, qiraId, truncate(message), OffsetDateTime.now()));
+    }
+    
+    /**
+     * Add the counts and samples of another summary, e.g. a finished pipeline run's
+     */
+    public void merge(ErrorSummary other) {
+        Map<String, Long> otherCounts;
+        List<Sample> otherSamples;
+        synchronized (other) {
+            otherCounts = new LinkedHashMap<>(other.counts);
+            otherSamples = new ArrayList<>(other.samples);
+        }
+        synchronized (this) {
+            otherCounts.forEach((category, count) -> {
+                String key = counts.containsKey(category) || counts.size() < MAX_CATEGORIES ? category : OTHER;
+                counts.merge(key, count, Long::sum);
+                total += count;
+            });
+            otherSamples.forEach(this::addSample);
+        }
+    }
+    
+    private void addSample(Sample sample) {
+        if (samples.size() == sampleSize) {
+            samples.removeFirst();
+        }
+        samples.addLast(sample);
+    }
+    
+    public synchronized long getTotal() {
+        return total;
+    }
+    
+    public synchronized boolean isEmpty() {
+        return total == 0;
+    }
+    
+    /**
+     * Error count per category, in order of first occurrence
+     */
+    public synchronized Map<String, Long> getCounts() {
+        return new LinkedHashMap<>(counts);
+    }
+    
+    /**
+     * Most recent errors, oldest first
+     */
+    public synchronized List<Sample> getSamples() {
+        return new ArrayList<>(samples);
+    }
+    
+    /**
+     * Messages of the most recent errors, oldest first
+     */
+    public synchronized List<String> getMessages() {
+        List<String> messages = new ArrayList<>(samples.size());
+        samples.forEach(sample -> messages.add(sample.getMessage()));
+        return messages;
+    }
+    
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_MESSAGE_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_MESSAGE_LENGTH) + "...";
+    }
+    
+    public static class Sample {
+        private final String category;
+        private final String qiraId;
+        private final String message;
+        private final OffsetDateTime at;
+        
+        Sample(String category, String qiraId, String message, OffsetDateTime at) {
+            this.category = category;
+            this.qiraId = qiraId;
+            this.message = message;
+            this.at = at;
+        }
+        
+        public String getCategory() {
+            return category;
+        }
+        
+        public String getQiraId() {
+            return qiraId;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        public OffsetDateTime getAt() {
+            return at;
+        }
+    }
+}
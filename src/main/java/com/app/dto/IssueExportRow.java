@@ -0,0 +1,259 @@
+package com.app.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Read-only projection of the issue_records columns shown in Excel exports.
+ * Populated by a JPQL constructor expression, so rows are never managed entities
+ * and raw_json is never read.
+ */
+public class IssueExportRow {
+    private final String qiraId;
+    private final String project;
+    private final String priority;
+    private final String issueType;
+    private final String summary;
+    private final String description;
+    private final String reporter;
+    private final String assignedTeam;
+    private final String assignee;
+    private final String status;
+    private final OffsetDateTime dueDate;
+    private final OffsetDateTime createdAt;
+    private final OffsetDateTime resolvedAt;
+    private final OffsetDateTime firstResponseAt;
+    private final OffsetDateTime updatedAt;
+    private final String relatedJiraTicket;
+    private final String linkedIssues;
+    private final String supportCategory;
+    private final OffsetDateTime supportActionDate;
+    private final String supportActionedBy;
+    private final String supportPriority;
+    private final String supportRemark;
+    private final String comment;
+    private final String isbnOrderNumber;
+    private final String bookId;
+    private final String resolution;
+    private final String causedByBooks;
+    private final String doiMultiLine;
+    private final String erratumDoi;
+    private final String errorLocationBooks;
+    private final String errorTypeBooks;
+    private final String productionSystemBooks;
+    private final String requestActionBooks;
+    private final String publicationStatusBooks;
+    private final String qiraTicketsCategory;
+    
+    public IssueExportRow(
+            String qiraId,
+            String project,
+            String priority,
+            String issueType,
+            String summary,
+            String description,
+            String reporter,
+            String assignedTeam,
+            String assignee,
+            String status,
+            OffsetDateTime dueDate,
+            OffsetDateTime createdAt,
+            OffsetDateTime resolvedAt,
+            OffsetDateTime firstResponseAt,
+            OffsetDateTime updatedAt,
+            String relatedJiraTicket,
+            String linkedIssues,
+            String supportCategory,
+            OffsetDateTime supportActionDate,
+            String supportActionedBy,
+            String supportPriority,
+            String supportRemark,
+            String comment,
+            String isbnOrderNumber,
+            String bookId,
+            String resolution,
+            String causedByBooks,
+            String doiMultiLine,
+            String erratumDoi,
+            String errorLocationBooks,
+            String errorTypeBooks,
+            String productionSystemBooks,
+            String requestActionBooks,
+            String publicationStatusBooks,
+            String qiraTicketsCategory) {
+        this.qiraId = qiraId;
+        this.project = project;
+        this.priority = priority;
+        this.issueType = issueType;
+        this.summary = summary;
+        this.description = description;
+        this.reporter = reporter;
+        this.assignedTeam = assignedTeam;
+        this.assignee = assignee;
+        this.status = status;
+        this.dueDate = dueDate;
+        this.createdAt = createdAt;
+        this.resolvedAt = resolvedAt;
+        this.firstResponseAt = firstResponseAt;
+        this.updatedAt = updatedAt;
+        this.relatedJiraTicket = relatedJiraTicket;
+        this.linkedIssues = linkedIssues;
+        this.supportCategory = supportCategory;
+        this.supportActionDate = supportActionDate;
+        this.supportActionedBy = supportActionedBy;
+        this.supportPriority = supportPriority;
+        this.supportRemark = supportRemark;
+        this.comment = comment;
+        this.isbnOrderNumber = isbnOrderNumber;
+        this.bookId = bookId;
+        this.resolution = resolution;
+        this.causedByBooks = causedByBooks;
+        this.doiMultiLine = doiMultiLine;
+        this.erratumDoi = erratumDoi;
+        this.errorLocationBooks = errorLocationBooks;
+        this.errorTypeBooks = errorTypeBooks;
+        this.productionSystemBooks = productionSystemBooks;
+        this.requestActionBooks = requestActionBooks;
+        this.publicationStatusBooks = publicationStatusBooks;
+        this.qiraTicketsCategory = qiraTicketsCategory;
+    }
+    
+    public String getQiraId() {
+        return qiraId;
+    }
+    
+    public String getProject() {
+        return project;
+    }
+    
+    public String getPriority() {
+        return priority;
+    }
+    
+    public String getIssueType() {
+        return issueType;
+    }
+    
+    public String getSummary() {
+        return summary;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public String getReporter() {
+        return reporter;
+    }
+    
+    public String getAssignedTeam() {
+        return assignedTeam;
+    }
+    
+    public String getAssignee() {
+        return assignee;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public OffsetDateTime getDueDate() {
+        return dueDate;
+    }
+    
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public OffsetDateTime getResolvedAt() {
+        return resolvedAt;
+    }
+    
+    public OffsetDateTime getFirstResponseAt() {
+        return firstResponseAt;
+    }
+    
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public String getRelatedJiraTicket() {
+        return relatedJiraTicket;
+    }
+    
+    public String getLinkedIssues() {
+        return linkedIssues;
+    }
+    
+    public String getSupportCategory() {
+        return supportCategory;
+    }
+    
+    public OffsetDateTime getSupportActionDate() {
+        return supportActionDate;
+    }
+    
+    public String getSupportActionedBy() {
+        return supportActionedBy;
+    }
+    
+    public String getSupportPriority() {
+        return supportPriority;
+    }
+    
+    public String getSupportRemark() {
+        return supportRemark;
+    }
+    
+    public String getComment() {
+        return comment;
+    }
+    
+    public String getIsbnOrderNumber() {
+        return isbnOrderNumber;
+    }
+    
+    public String getBookId() {
+        return bookId;
+    }
+    
+    public String getResolution() {
+        return resolution;
+    }
+    
+    public String getCausedByBooks() {
+        return causedByBooks;
+    }
+    
+    public String getDoiMultiLine() {
+        return doiMultiLine;
+    }
+    
+    public String getErratumDoi() {
+        return erratumDoi;
+    }
+    
+    public String getErrorLocationBooks() {
+        return errorLocationBooks;
+    }
+    
+    public String getErrorTypeBooks() {
+        return errorTypeBooks;
+    }
+    
+    public String getProductionSystemBooks() {
+        return productionSystemBooks;
+    }
+    
+    public String getRequestActionBooks() {
+        return requestActionBooks;
+    }
+    
+    public String getPublicationStatusBooks() {
+        return publicationStatusBooks;
+    }
+    
+    public String getQiraTicketsCategory() {
+        return qiraTicketsCategory;
+    }
+}
@@ -0,0 +1,82 @@
+package com.app.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Optional filters for the issue query API; null fields do not filter.
+ * Date ranges are half-open: [from, to).
+ */
+public class IssueFilter {
+    private String status;
+    private String team;
+    private String project;
+    private String priority;
+    private OffsetDateTime createdFrom;
+    private OffsetDateTime createdTo;
+    private OffsetDateTime updatedFrom;
+    private OffsetDateTime updatedTo;
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public String getTeam() {
+        return team;
+    }
+    
+    public void setTeam(String team) {
+        this.team = team;
+    }
+    
+    public String getProject() {
+        return project;
+    }
+    
+    public void setProject(String project) {
+        this.project = project;
+    }
+    
+    public String getPriority() {
+        return priority;
+    }
+    
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
+    
+    public OffsetDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+    
+    public void setCreatedFrom(OffsetDateTime createdFrom) {
+        this.createdFrom = createdFrom;
+    }
+    
+    public OffsetDateTime getCreatedTo() {
+        return createdTo;
+    }
+    
+    public void setCreatedTo(OffsetDateTime createdTo) {
+        this.createdTo = createdTo;
+    }
+    
+    public OffsetDateTime getUpdatedFrom() {
+        return updatedFrom;
+    }
+    
+    public void setUpdatedFrom(OffsetDateTime updatedFrom) {
+        this.updatedFrom = updatedFrom;
+    }
+    
+    public OffsetDateTime getUpdatedTo() {
+        return updatedTo;
+    }
+    
+    public void setUpdatedTo(OffsetDateTime updatedTo) {
+        this.updatedTo = updatedTo;
+    }
+}
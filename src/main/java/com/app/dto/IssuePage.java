@@ -0,0 +1,34 @@
+package com.app.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of the issue query API.
+ * Each row holds the values of {@code fields} in the same order.
+ */
+public class IssuePage {
+    private final List<String> fields;
+    private final List<Object[]> rows;
+    private final String nextCursor;
+    
+    public IssuePage(List<String> fields, List<Object[]> rows, String nextCursor) {
+        this.fields = fields;
+        this.rows = rows;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<String> getFields() {
+        return fields;
+    }
+    
+    public List<Object[]> getRows() {
+        return rows;
+    }
+    
+    /**
+     * Opaque cursor for the next page, null on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
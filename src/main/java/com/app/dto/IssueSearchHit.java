@@ -0,0 +1,58 @@
+package com.app.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One full-text search result with its relevance rank and a highlighted snippet
+ */
+public class IssueSearchHit {
+    private final String qiraId;
+    private final String summary;
+    private final String status;
+    private final String assignedTeam;
+    private final OffsetDateTime createdAt;
+    private final double rank;
+    private final String snippet;
+    
+    public IssueSearchHit(String qiraId, String summary, String status, String assignedTeam,
+                          OffsetDateTime createdAt, double rank, String snippet) {
+        this.qiraId = qiraId;
+        this.summary = summary;
+        this.status = status;
+        this.assignedTeam = assignedTeam;
+        this.createdAt = createdAt;
+        this.rank = rank;
+        this.snippet = snippet;
+    }
+    
+    public String getQiraId() {
+        return qiraId;
+    }
+    
+    public String getSummary() {
+        return summary;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public String getAssignedTeam() {
+        return assignedTeam;
+    }
+    
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public double getRank() {
+        return rank;
+    }
+    
+    /**
+     * Matching fragments with matches wrapped in &lt;mark&gt; tags
+     */
+    public String getSnippet() {
+        return snippet;
+    }
+}
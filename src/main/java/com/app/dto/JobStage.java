@@ -0,0 +1,95 @@
+package com.app.dto;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+/**
+ * Timing and counts of one stage of a job (fetch, map, upsert, sweep, report, ...).
+ * A stage is written by a single thread and read once the stage has finished.
+ */
+public class JobStage {
+    private final String name;
+    private final OffsetDateTime startedAt;
+    private OffsetDateTime finishedAt;
+    private long records;
+    private long bytes;
+    private long waitNanos;
+    private int errors;
+    
+    private JobStage(String name, OffsetDateTime startedAt) {
+        this.name = name;
+        this.startedAt = startedAt;
+    }
+    
+    public static JobStage start(String name) {
+        return new JobStage(name, OffsetDateTime.now());
+    }
+    
+    public JobStage finish() {
+        this.finishedAt = OffsetDateTime.now();
+        return this;
+    }
+    
+    public JobStage addRecords(long records) {
+        this.records += records;
+        return this;
+    }
+    
+    public JobStage addBytes(long bytes) {
+        this.bytes += bytes;
+        return this;
+    }
+    
+    public JobStage addErrors(int errors) {
+        this.errors += errors;
+        return this;
+    }
+    
+    /**
+     * Time spent blocked on a queue instead of working
+     */
+    public void addWaitNanos(long nanos) {
+        this.waitNanos += nanos;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public OffsetDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public OffsetDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public long getDurationMillis() {
+        OffsetDateTime end = finishedAt != null ? finishedAt : OffsetDateTime.now();
+        return Duration.between(startedAt, end).toMillis();
+    }
+    
+    public long getRecords() {
+        return records;
+    }
+    
+    public long getBytes() {
+        return bytes;
+    }
+    
+    public long getWaitMillis() {
+        return waitNanos / 1_000_000;
+    }
+    
+    public int getErrors() {
+        return errors;
+    }
+    
+    /**
+     * Records per second of stage wall time
+     */
+    public double getThroughputPerSecond() {
+        long millis = getDurationMillis();
+        return millis > 0 ? records * 1000.0 / millis : 0;
+    }
+}
@@ -1,37 +1,203 @@
 package com.app.dto;
 
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class JobStatus {
-    private OffsetDateTime startedAt;
-    private OffsetDateTime finishedAt;
-    private int totalFetched;
+    public static final String JOB_ERROR = "JOB";
+    
+    private String id;
+    private String type;
+    private Integer maxRecords;
+    private OffsetDateTime queuedAt;
+    private volatile OffsetDateTime startedAt;
+    private volatile OffsetDateTime finishedAt;
+    private volatile int totalFetched;
     private int inserted;
     private int updated;
     private int failed;
-    private List<String> errors;
-    private String status; // "RUNNING", "COMPLETED", "FAILED"
+    // Bounded: counts per category plus recent samples, whatever the failure rate
+    private final ErrorSummary errors = new ErrorSummary();
+    private volatile String status; // "QUEUED", "RUNNING", "COMPLETED", "FAILED", "CANCELLED", "SKIPPED"
+    private volatile boolean cancelRequested;
+    
+    // Live progress, updated by the ingestion pipeline threads while the job runs
+    private final AtomicInteger pagesFetched = new AtomicInteger();
+    private final AtomicInteger ticketsFetched = new AtomicInteger();
+    private final AtomicInteger ticketsMapped = new AtomicInteger();
+    private final AtomicInteger ticketsWritten = new AtomicInteger();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private volatile Integer expectedTotal;
+    private final List<JobStage> stages = new CopyOnWriteArrayList<>();
     
     public JobStatus() {
-        this.errors = new ArrayList<>();
+        this.status = "RUNNING";
+    }
+    
+    /**
+     * A job waiting for the ingestion executor
+     */
+    public static JobStatus queued(String id, String type, Integer maxRecords) {
+        JobStatus jobStatus = new JobStatus();
+        jobStatus.id = id;
+        jobStatus.type = type;
+        jobStatus.maxRecords = maxRecords;
+        jobStatus.queuedAt = OffsetDateTime.now();
+        jobStatus.status = "QUEUED";
+        return jobStatus;
+    }
+    
+    public void markStarted() {
+        this.startedAt = OffsetDateTime.now();
         this.status = "RUNNING";
     }
     
     public void markCompleted() {
         this.finishedAt = OffsetDateTime.now();
-        this.status = errors.isEmpty() || errors.size() < totalFetched / 2 ? "COMPLETED" : "COMPLETED_WITH_ERRORS";
+        long errorCount = errors.getTotal();
+        this.status = errorCount == 0 || errorCount < totalFetched / 2 ? "COMPLETED" : "COMPLETED_WITH_ERRORS";
     }
     
     public void markFailed(String error) {
         this.finishedAt = OffsetDateTime.now();
         this.status = "FAILED";
-        this.errors.add(error);
+        addError(error);
+    }
+    
+    public void markCancelled() {
+        this.finishedAt = OffsetDateTime.now();
+        this.status = "CANCELLED";
+    }
+    
+    /**
+     * Not run because another node holds the ingestion lock
+     */
+    public void markSkipped(String reason) {
+        this.finishedAt = OffsetDateTime.now();
+        this.status = "SKIPPED";
+        addError(reason);
+    }
+    
+    /**
+     * Ask a queued or running job to stop; a running job stops at the next page boundary
+     */
+    public void requestCancel() {
+        this.cancelRequested = true;
+    }
+    
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+    
+    public boolean isFinished() {
+        return finishedAt != null;
     }
     
+    /**
+     * Job-level error (category JOB)
+     */
     public void addError(String error) {
-        this.errors.add(error);
+        errors.add(JOB_ERROR, null, error);
+    }
+    
+    /**
+     * Error of one ticket, counted under its category
+     */
+    public void addError(String category, String qiraId, String message) {
+        errors.add(category, qiraId, message);
+    }
+    
+    /**
+     * Counts and samples of a finished pipeline run
+     */
+    public void addErrors(ErrorSummary summary) {
+        errors.merge(summary);
+    }
+    
+    /**
+     * One page received from QIRA
+     * @param expectedTotal Tickets QIRA reports for the whole query (capped by maxRecords), if known
+     */
+    public void recordPageFetched(int tickets, long bytes, Integer expectedTotal) {
+        pagesFetched.incrementAndGet();
+        totalFetched = ticketsFetched.addAndGet(tickets);
+        bytesReceived.addAndGet(bytes);
+        if (expectedTotal != null) {
+            this.expectedTotal = expectedTotal;
+        }
+    }
+    
+    /**
+     * A finished stage of the job, kept in the job_runs history
+     */
+    public void addStage(JobStage stage) {
+        stages.add(stage);
+    }
+    
+    public List<JobStage> getStages() {
+        return stages;
+    }
+    
+    public void recordMapped(int tickets) {
+        ticketsMapped.addAndGet(tickets);
+    }
+    
+    public void recordWritten(int tickets) {
+        ticketsWritten.addAndGet(tickets);
+    }
+    
+    public int getPagesFetched() {
+        return pagesFetched.get();
+    }
+    
+    public int getTicketsMapped() {
+        return ticketsMapped.get();
+    }
+    
+    public int getTicketsWritten() {
+        return ticketsWritten.get();
+    }
+    
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+    
+    public Integer getExpectedTotal() {
+        return expectedTotal;
+    }
+    
+    /**
+     * Tickets written (inserted, updated or unchanged) per second since the job started
+     */
+    public double getThroughputPerSecond() {
+        if (startedAt == null) return 0;
+        OffsetDateTime end = finishedAt != null ? finishedAt : OffsetDateTime.now();
+        long millis = java.time.Duration.between(startedAt, end).toMillis();
+        return millis > 0 ? ticketsWritten.get() * 1000.0 / millis : 0;
+    }
+    
+    /**
+     * Share of the expected tickets written so far, null until QIRA has reported a total
+     */
+    public Double getPercentDone() {
+        Integer total = expectedTotal;
+        if (total == null) return null;
+        if (total == 0) return 100.0;
+        return Math.min(100.0, ticketsWritten.get() * 100.0 / total);
+    }
+    
+    /**
+     * Estimated seconds left at the current throughput, null if unknown or finished
+     */
+    public Long getEtaSeconds() {
+        Integer total = expectedTotal;
+        double throughput = getThroughputPerSecond();
+        if (finishedAt != null || total == null || throughput <= 0) return null;
+        return Math.round(Math.max(0, total - ticketsWritten.get()) / throughput);
     }
     
     public long getDurationSeconds() {
@@ -41,6 +207,22 @@ public class JobStatus {
     }
     
     // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public Integer getMaxRecords() {
+        return maxRecords;
+    }
+    
+    public OffsetDateTime getQueuedAt() {
+        return queuedAt;
+    }
+    
     public OffsetDateTime getStartedAt() {
         return startedAt;
     }
@@ -89,12 +271,23 @@ public class JobStatus {
         this.failed = failed;
     }
     
+    /**
+     * Messages of the most recent errors (at most ErrorSummary.DEFAULT_SAMPLE_SIZE)
+     */
     public List<String> getErrors() {
-        return errors;
+        return errors.getMessages();
+    }
+    
+    public long getErrorCount() {
+        return errors.getTotal();
+    }
+    
+    public Map<String, Long> getErrorCounts() {
+        return errors.getCounts();
     }
     
-    public void setErrors(List<String> errors) {
-        this.errors = errors;
+    public List<ErrorSummary.Sample> getErrorSamples() {
+        return errors.getSamples();
     }
     
     public String getStatus() {
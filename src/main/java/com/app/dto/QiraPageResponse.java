@@ -1,5 +1,6 @@
 package com.app.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -26,6 +27,10 @@ public class QiraPageResponse {
     @JsonProperty("next")
     private String next;
     
+    // Size of the HTTP response body (not part of the QIRA payload)
+    @JsonIgnore
+    private long responseBytes;
+    
     public QiraPageResponse() {}
     
     public List<QiraTicket> getItems() {
@@ -76,6 +81,14 @@ public class QiraPageResponse {
         this.next = next;
     }
     
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+    
+    public void setResponseBytes(long responseBytes) {
+        this.responseBytes = responseBytes;
+    }
+    
     public boolean hasMorePages() {
         return Boolean.TRUE.equals(hasNext) || next != null;
     }
@@ -0,0 +1,110 @@
+package com.app.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Outcome of one per-month checksum reconciliation run
+ */
+public class ReconciliationReport {
+    private OffsetDateTime startedAt;
+    private OffsetDateTime finishedAt;
+    private int windowsChecked;
+    private int windowsDrifted;
+    private int windowsRefetched;
+    private int ticketsRefetched;
+    private int inserted;
+    private int updated;
+    private int failed;
+    private int tombstoned;
+    private String status; // "RUNNING", "COMPLETED", "FAILED", "CANCELLED"
+    private String error;
+    
+    public ReconciliationReport() {
+        this.startedAt = OffsetDateTime.now();
+        this.status = "RUNNING";
+    }
+    
+    public void markCompleted() {
+        this.finishedAt = OffsetDateTime.now();
+        this.status = "COMPLETED";
+    }
+    
+    public void markFailed(String error) {
+        this.finishedAt = OffsetDateTime.now();
+        this.status = "FAILED";
+        this.error = error;
+    }
+    
+    public void markCancelled() {
+        this.finishedAt = OffsetDateTime.now();
+        this.status = "CANCELLED";
+    }
+    
+    public void windowChecked(boolean drifted) {
+        windowsChecked++;
+        if (drifted) {
+            windowsDrifted++;
+        }
+    }
+    
+    public void windowRefetched(int tickets, UpsertStats stats, int tombstoned) {
+        windowsRefetched++;
+        ticketsRefetched += tickets;
+        inserted += stats.getInserted();
+        updated += stats.getUpdated();
+        failed += stats.getFailed();
+        this.tombstoned += tombstoned;
+    }
+    
+    public boolean hasChanges() {
+        return inserted > 0 || updated > 0 || tombstoned > 0;
+    }
+    
+    public OffsetDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public OffsetDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public int getWindowsChecked() {
+        return windowsChecked;
+    }
+    
+    public int getWindowsDrifted() {
+        return windowsDrifted;
+    }
+    
+    public int getWindowsRefetched() {
+        return windowsRefetched;
+    }
+    
+    public int getTicketsRefetched() {
+        return ticketsRefetched;
+    }
+    
+    public int getInserted() {
+        return inserted;
+    }
+    
+    public int getUpdated() {
+        return updated;
+    }
+    
+    public int getFailed() {
+        return failed;
+    }
+    
+    public int getTombstoned() {
+        return tombstoned;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public String getError() {
+        return error;
+    }
+}
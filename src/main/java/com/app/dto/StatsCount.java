@@ -0,0 +1,22 @@
+package com.app.dto;
+
+/**
+ * Ticket count for one value of a stats dimension (status, issue type, team, priority or month)
+ */
+public class StatsCount {
+    private final String key;
+    private final long count;
+    
+    public StatsCount(String key, long count) {
+        this.key = key;
+        this.count = count;
+    }
+    
+    public String getKey() {
+        return key;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+}
@@ -1,72 +1,85 @@
 package com.app.dto;
 
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Upsert counters. Backed by LongAdder so a single instance can be shared
+ * by parallel upsert workers without locking.
+ */
 public class UpsertStats {
-    private int inserted;
-    private int updated;
-    private int skipped;
-    private int failed;
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder updated = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
     
     public UpsertStats() {
-        this.inserted = 0;
-        this.updated = 0;
-        this.skipped = 0;
-        this.failed = 0;
     }
     
     public void incrementInserted() {
-        this.inserted++;
+        this.inserted.increment();
     }
     
     public void incrementUpdated() {
-        this.updated++;
+        this.updated.increment();
     }
     
     public void incrementSkipped() {
-        this.skipped++;
+        this.skipped.increment();
     }
     
     public void incrementFailed() {
-        this.failed++;
+        this.failed.increment();
     }
     
     public void addInserted(int count) {
-        this.inserted += count;
+        this.inserted.add(count);
     }
     
     public void addUpdated(int count) {
-        this.updated += count;
+        this.updated.add(count);
+    }
+    
+    public void addSkipped(int count) {
+        this.skipped.add(count);
+    }
+    
+    public void addFailed(int count) {
+        this.failed.add(count);
     }
     
     public void merge(UpsertStats other) {
-        this.inserted += other.inserted;
-        this.updated += other.updated;
-        this.skipped += other.skipped;
-        this.failed += other.failed;
+        if (other == null) {
+            return;
+        }
+        this.inserted.add(other.inserted.sum());
+        this.updated.add(other.updated.sum());
+        this.skipped.add(other.skipped.sum());
+        this.failed.add(other.failed.sum());
     }
     
     public int getInserted() {
-        return inserted;
+        return inserted.intValue();
     }
     
     public int getUpdated() {
-        return updated;
+        return updated.intValue();
     }
     
     public int getSkipped() {
-        return skipped;
+        return skipped.intValue();
     }
     
     public int getFailed() {
-        return failed;
+        return failed.intValue();
     }
     
     public int getTotal() {
-        return inserted + updated + skipped + failed;
+        return getInserted() + getUpdated() + getSkipped() + getFailed();
     }
     
     @Override
     public String toString() {
         return String.format("UpsertStats{inserted=%d, updated=%d, skipped=%d, failed=%d}", 
-            inserted, updated, skipped, failed);
+            getInserted(), getUpdated(), getSkipped(), getFailed());
     }
 }
@@ -0,0 +1,57 @@
+package com.app.model;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Named lease held by at most one application node at a time.
+ * Rows are written with native queries (see ClusterLockRepository), never through the entity.
+ */
+@Entity
+@Table(name = "cluster_locks")
+public class ClusterLock {
+    
+    @Id
+    @Column(length = 100)
+    private String name;
+    
+    // Node id of the holder; null once released
+    private String owner;
+    
+    @Column(name = "acquired_at")
+    private OffsetDateTime acquiredAt;
+    
+    @Column(name = "heartbeat_at")
+    private OffsetDateTime heartbeatAt;
+    
+    @Column(name = "lease_until", nullable = false)
+    private OffsetDateTime leaseUntil;
+    
+    @Column(name = "released_at")
+    private OffsetDateTime releasedAt;
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public OffsetDateTime getAcquiredAt() {
+        return acquiredAt;
+    }
+    
+    public OffsetDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+    
+    public OffsetDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+    
+    public OffsetDateTime getReleasedAt() {
+        return releasedAt;
+    }
+}
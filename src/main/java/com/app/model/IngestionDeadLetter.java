@@ -0,0 +1,76 @@
+package com.app.model;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A ticket that failed to ingest, with its raw QIRA payload
+ */
+@Entity
+@Table(name = "ingestion_dead_letters")
+public class IngestionDeadLetter {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Job that met the ticket; null for runs outside a job (e.g. reconciliation refetches)
+    @Column(name = "job_id", length = 64)
+    private String jobId;
+    
+    @Column(name = "qira_id")
+    private String qiraId;
+    
+    @Column(nullable = false, length = 64)
+    private String category;
+    
+    @Column(columnDefinition = "TEXT")
+    private String message;
+    
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+    
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+    
+    public IngestionDeadLetter() {
+    }
+    
+    public IngestionDeadLetter(String jobId, String qiraId, String category, String message, String payload) {
+        this.jobId = jobId;
+        this.qiraId = qiraId;
+        this.category = category;
+        this.message = message;
+        this.payload = payload;
+        this.createdAt = OffsetDateTime.now();
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getJobId() {
+        return jobId;
+    }
+    
+    public String getQiraId() {
+        return qiraId;
+    }
+    
+    public String getCategory() {
+        return category;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
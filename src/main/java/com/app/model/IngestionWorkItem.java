@@ -0,0 +1,84 @@
+package com.app.model;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One created-date window of a distributed full sync.
+ * Rows are written with native queries (see IngestionWorkItemRepository), never through the entity.
+ */
+@Entity
+@Table(name = "ingestion_work_items")
+public class IngestionWorkItem {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "run_id", nullable = false, length = 64)
+    private String runId;
+    
+    @Column(name = "sync_generation", nullable = false)
+    private long syncGeneration;
+    
+    @Column(name = "window_from", nullable = false)
+    private OffsetDateTime windowFrom;
+    
+    @Column(name = "window_to", nullable = false)
+    private OffsetDateTime windowTo;
+    
+    @Column(nullable = false, length = 16)
+    private String status;
+    
+    private String owner;
+    
+    @Column(name = "lease_until")
+    private OffsetDateTime leaseUntil;
+    
+    @Column(nullable = false)
+    private int attempts;
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getRunId() {
+        return runId;
+    }
+    
+    public long getSyncGeneration() {
+        return syncGeneration;
+    }
+    
+    public OffsetDateTime getWindowFrom() {
+        return windowFrom;
+    }
+    
+    public OffsetDateTime getWindowTo() {
+        return windowTo;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public OffsetDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+    
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+}
@@ -1,18 +1,27 @@
 package com.app.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.LazyGroup;
+
 import java.time.OffsetDateTime;
 
+/**
+ * QIRA ticket row.
+ * Large TEXT columns are lazy (requires bytecode enhancement, see build.gradle.kts) so list,
+ * lookup and aggregate queries only read the narrow columns. The free-text "detail" group is
+ * loaded together on first access; raw_json is loaded on its own.
+ */
 @Entity
 @Table(name = "issue_records", 
-       uniqueConstraints = @UniqueConstraint(columnNames = "qira_id"))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"qira_id", "created_at"}))
 public class IssueRecord {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(name = "qira_id", nullable = false, unique = true)
+    // Unique together with created_at: the table is partitioned by created_at month
+    @Column(name = "qira_id", nullable = false)
     private String qiraId;
     
     private String project;
@@ -24,6 +33,8 @@ public class IssueRecord {
     @Column(length = 1000)
     private String summary;
     
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("detail")
     @Column(columnDefinition = "TEXT")
     private String description;
     
@@ -53,6 +64,8 @@ public class IssueRecord {
     @Column(name = "related_jira_ticket")
     private String relatedJiraTicket;
     
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("detail")
     @Column(name = "linked_issues", columnDefinition = "TEXT")
     private String linkedIssues;
     
@@ -68,9 +81,13 @@ public class IssueRecord {
     @Column(name = "support_priority")
     private String supportPriority;
     
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("detail")
     @Column(name = "support_remark", columnDefinition = "TEXT")
     private String supportRemark;
     
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("detail")
     @Column(columnDefinition = "TEXT")
     private String comment;
     
@@ -82,15 +99,21 @@ public class IssueRecord {
     
     private String resolution;
     
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("detail")
     @Column(name = "caused_by_books", columnDefinition = "TEXT")
     private String causedByBooks;
     
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("detail")
     @Column(name = "doi_multi_line", columnDefinition = "TEXT")
     private String doiMultiLine;
     
     @Column(name = "erratum_doi")
     private String erratumDoi;
     
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("detail")
     @Column(name = "error_location_books", columnDefinition = "TEXT")
     private String errorLocationBooks;
     
@@ -100,6 +123,8 @@ public class IssueRecord {
     @Column(name = "production_system_books")
     private String productionSystemBooks;
     
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("detail")
     @Column(name = "request_action_books", columnDefinition = "TEXT")
     private String requestActionBooks;
     
@@ -109,12 +134,25 @@ public class IssueRecord {
     @Column(name = "qira_tickets_category")
     private String qiraTicketsCategory;
     
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("raw")
     @Column(name = "raw_json", columnDefinition = "TEXT")
     private String rawJson;
     
+    @Column(name = "content_hash")
+    private Long contentHash;
+    
     @Column(name = "ingested_at")
     private OffsetDateTime ingestedAt;
     
+    // Generation of the last full sync that saw this ticket (see IssueSweepService)
+    @Column(name = "sync_generation", nullable = false)
+    private long syncGeneration;
+    
+    // Set when the ticket disappeared from QIRA; cleared if it comes back
+    @Column(name = "deleted_at")
+    private OffsetDateTime deletedAt;
+    
     // Constructors
     public IssueRecord() {
         this.ingestedAt = OffsetDateTime.now();
@@ -417,6 +455,14 @@ public class IssueRecord {
         this.rawJson = rawJson;
     }
     
+    public Long getContentHash() {
+        return contentHash;
+    }
+    
+    public void setContentHash(Long contentHash) {
+        this.contentHash = contentHash;
+    }
+    
     public OffsetDateTime getIngestedAt() {
         return ingestedAt;
     }
@@ -424,4 +470,20 @@ public class IssueRecord {
     public void setIngestedAt(OffsetDateTime ingestedAt) {
         this.ingestedAt = ingestedAt;
     }
+    
+    public long getSyncGeneration() {
+        return syncGeneration;
+    }
+    
+    public void setSyncGeneration(long syncGeneration) {
+        this.syncGeneration = syncGeneration;
+    }
+    
+    public OffsetDateTime getDeletedAt() {
+        return deletedAt;
+    }
+    
+    public void setDeletedAt(OffsetDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
 }
@@ -0,0 +1,59 @@
+package com.app.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated ticket count for one created month (UTC) x team x status x issue type x priority group.
+ * Rows are written with native delta upserts (see IssueStatsRollupRepository), never through the entity.
+ */
+@Entity
+@Table(name = "issue_stats_rollup",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"month", "team", "status", "issue_type", "priority"}))
+public class IssueStatsRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    private LocalDate month;
+    private String team;
+    private String status;
+    
+    @Column(name = "issue_type")
+    private String issueType;
+    
+    private String priority;
+    
+    @Column(name = "issue_count", nullable = false)
+    private long issueCount;
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public LocalDate getMonth() {
+        return month;
+    }
+    
+    public String getTeam() {
+        return team;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public String getIssueType() {
+        return issueType;
+    }
+    
+    public String getPriority() {
+        return priority;
+    }
+    
+    public long getIssueCount() {
+        return issueCount;
+    }
+}
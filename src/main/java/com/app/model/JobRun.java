@@ -0,0 +1,264 @@
+package com.app.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * History of one finished ingestion or reconciliation job, written once when the job ends
+ */
+@Entity
+@Table(name = "job_runs")
+public class JobRun {
+    
+    // Job id from IngestionJobManager
+    @Id
+    @Column(length = 64)
+    private String id;
+    
+    @Column(nullable = false, length = 32)
+    private String type;
+    
+    @Column(nullable = false, length = 32)
+    private String status;
+    
+    @Column(name = "node_id")
+    private String nodeId;
+    
+    @Column(name = "max_records")
+    private Integer maxRecords;
+    
+    @Column(name = "queued_at")
+    private OffsetDateTime queuedAt;
+    
+    @Column(name = "started_at")
+    private OffsetDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+    
+    @Column(name = "duration_ms", nullable = false)
+    private long durationMs;
+    
+    @Column(name = "tickets_fetched", nullable = false)
+    private int ticketsFetched;
+    
+    @Column(name = "tickets_mapped", nullable = false)
+    private int ticketsMapped;
+    
+    @Column(name = "tickets_written", nullable = false)
+    private int ticketsWritten;
+    
+    @Column(nullable = false)
+    private int inserted;
+    
+    @Column(nullable = false)
+    private int updated;
+    
+    @Column(nullable = false)
+    private int failed;
+    
+    @Column(name = "bytes_received", nullable = false)
+    private long bytesReceived;
+    
+    @Column(name = "throughput_per_second", nullable = false)
+    private double throughputPerSecond;
+    
+    @Column(name = "error_count", nullable = false)
+    private int errorCount;
+    
+    @Column(name = "error_summary", columnDefinition = "TEXT")
+    private String errorSummary;
+    
+    @Column(nullable = false)
+    private boolean regression;
+    
+    // Trailing median duration of comparable runs, null if there were too few
+    @Column(name = "baseline_duration_ms")
+    private Long baselineDurationMs;
+    
+    @OneToMany(mappedBy = "run", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OrderBy("id")
+    @BatchSize(size = 100)
+    private List<JobRunStage> stages = new ArrayList<>();
+    
+    public void addStage(JobRunStage stage) {
+        stage.setRun(this);
+        stages.add(stage);
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+    
+    public Integer getMaxRecords() {
+        return maxRecords;
+    }
+    
+    public void setMaxRecords(Integer maxRecords) {
+        this.maxRecords = maxRecords;
+    }
+    
+    public OffsetDateTime getQueuedAt() {
+        return queuedAt;
+    }
+    
+    public void setQueuedAt(OffsetDateTime queuedAt) {
+        this.queuedAt = queuedAt;
+    }
+    
+    public OffsetDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(OffsetDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public OffsetDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(OffsetDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getDurationMs() {
+        return durationMs;
+    }
+    
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+    
+    public int getTicketsFetched() {
+        return ticketsFetched;
+    }
+    
+    public void setTicketsFetched(int ticketsFetched) {
+        this.ticketsFetched = ticketsFetched;
+    }
+    
+    public int getTicketsMapped() {
+        return ticketsMapped;
+    }
+    
+    public void setTicketsMapped(int ticketsMapped) {
+        this.ticketsMapped = ticketsMapped;
+    }
+    
+    public int getTicketsWritten() {
+        return ticketsWritten;
+    }
+    
+    public void setTicketsWritten(int ticketsWritten) {
+        this.ticketsWritten = ticketsWritten;
+    }
+    
+    public int getInserted() {
+        return inserted;
+    }
+    
+    public void setInserted(int inserted) {
+        this.inserted = inserted;
+    }
+    
+    public int getUpdated() {
+        return updated;
+    }
+    
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+    
+    public int getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+    
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+    
+    public void setBytesReceived(long bytesReceived) {
+        this.bytesReceived = bytesReceived;
+    }
+    
+    public double getThroughputPerSecond() {
+        return throughputPerSecond;
+    }
+    
+    public void setThroughputPerSecond(double throughputPerSecond) {
+        this.throughputPerSecond = throughputPerSecond;
+    }
+    
+    public int getErrorCount() {
+        return errorCount;
+    }
+    
+    public void setErrorCount(int errorCount) {
+        this.errorCount = errorCount;
+    }
+    
+    public String getErrorSummary() {
+        return errorSummary;
+    }
+    
+    public void setErrorSummary(String errorSummary) {
+        this.errorSummary = errorSummary;
+    }
+    
+    public boolean isRegression() {
+        return regression;
+    }
+    
+    public void setRegression(boolean regression) {
+        this.regression = regression;
+    }
+    
+    public Long getBaselineDurationMs() {
+        return baselineDurationMs;
+    }
+    
+    public void setBaselineDurationMs(Long baselineDurationMs) {
+        this.baselineDurationMs = baselineDurationMs;
+    }
+    
+    public List<JobRunStage> getStages() {
+        return stages;
+    }
+}
@@ -0,0 +1,134 @@
+package com.app.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Timing and counts of one stage (fetch, map, upsert, sweep, report, ...) of a JobRun
+ */
+@Entity
+@Table(name = "job_run_stages")
+public class JobRunStage {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "run_id", nullable = false)
+    private JobRun run;
+    
+    @Column(nullable = false, length = 32)
+    private String stage;
+    
+    @Column(name = "started_at", nullable = false)
+    private OffsetDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+    
+    @Column(name = "duration_ms", nullable = false)
+    private long durationMs;
+    
+    @Column(name = "wait_ms", nullable = false)
+    private long waitMs;
+    
+    @Column(nullable = false)
+    private long records;
+    
+    @Column(nullable = false)
+    private long bytes;
+    
+    @Column(name = "throughput_per_second", nullable = false)
+    private double throughputPerSecond;
+    
+    @Column(nullable = false)
+    private int errors;
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public JobRun getRun() {
+        return run;
+    }
+    
+    void setRun(JobRun run) {
+        this.run = run;
+    }
+    
+    public String getStage() {
+        return stage;
+    }
+    
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+    
+    public OffsetDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(OffsetDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public OffsetDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(OffsetDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getDurationMs() {
+        return durationMs;
+    }
+    
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+    
+    public long getWaitMs() {
+        return waitMs;
+    }
+    
+    public void setWaitMs(long waitMs) {
+        this.waitMs = waitMs;
+    }
+    
+    public long getRecords() {
+        return records;
+    }
+    
+    public void setRecords(long records) {
+        this.records = records;
+    }
+    
+    public long getBytes() {
+        return bytes;
+    }
+    
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+    
+    public double getThroughputPerSecond() {
+        return throughputPerSecond;
+    }
+    
+    public void setThroughputPerSecond(double throughputPerSecond) {
+        this.throughputPerSecond = throughputPerSecond;
+    }
+    
+    public int getErrors() {
+        return errors;
+    }
+    
+    public void setErrors(int errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,36 @@
+package com.app.model;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Point in time up to which QIRA changes have been ingested.
+ * Rows are written with native queries (see SyncWatermarkRepository), never through the entity.
+ */
+@Entity
+@Table(name = "sync_watermarks")
+public class SyncWatermark {
+    
+    @Id
+    @Column(length = 100)
+    private String name;
+    
+    @Column(nullable = false)
+    private OffsetDateTime watermark;
+    
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+    
+    public String getName() {
+        return name;
+    }
+    
+    public OffsetDateTime getWatermark() {
+        return watermark;
+    }
+    
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,58 @@
+package com.app.repository;
+
+import com.app.model.ClusterLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+@Repository
+public interface ClusterLockRepository extends JpaRepository<ClusterLock, String> {
+    
+    /**
+     * Take the lock if it is free, its lease has run out, or this owner already holds it
+     * @return 1 if the lock is now held by owner, 0 if another node holds it
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO cluster_locks (name, owner, acquired_at, heartbeat_at, lease_until) " +
+                   "VALUES (:name, :owner, now(), now(), now() + :leaseSeconds * interval '1 second') " +
+                   "ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, acquired_at = EXCLUDED.acquired_at, " +
+                   "heartbeat_at = EXCLUDED.heartbeat_at, lease_until = EXCLUDED.lease_until, released_at = NULL " +
+                   "WHERE cluster_locks.owner IS NULL OR cluster_locks.lease_until < now() " +
+                   "OR cluster_locks.owner = EXCLUDED.owner",
+           nativeQuery = true)
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds);
+    
+    /**
+     * Extend the lease of a lock this owner still holds
+     * @return 0 if the lock was lost (taken over after the lease ran out)
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE cluster_locks SET heartbeat_at = now(), lease_until = now() + :leaseSeconds * interval '1 second' " +
+                   "WHERE name = :name AND owner = :owner",
+           nativeQuery = true)
+    int renew(@Param("name") String name, @Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds);
+    
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE cluster_locks SET owner = NULL, lease_until = now(), released_at = now() " +
+                   "WHERE name = :name AND owner = :owner",
+           nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner);
+    
+    /**
+     * Whether the lock was released normally (not lost by lease expiry) at or after since
+     * Read-write transaction so the check reads the primary, not a lagging replica.
+     */
+    @Transactional
+    @Query(value = "SELECT COUNT(*) > 0 FROM cluster_locks " +
+                   "WHERE name = :name AND owner IS NULL AND released_at >= :since",
+           nativeQuery = true)
+    boolean releasedSince(@Param("name") String name, @Param("since") OffsetDateTime since);
+}
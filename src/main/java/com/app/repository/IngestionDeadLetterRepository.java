@@ -0,0 +1,24 @@
+package com.app.repository;
+
+import com.app.model.IngestionDeadLetter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+@Repository
+public interface IngestionDeadLetterRepository extends JpaRepository<IngestionDeadLetter, Long> {
+    
+    Page<IngestionDeadLetter> findByJobId(String jobId, Pageable pageable);
+    
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM ingestion_dead_letters WHERE created_at < :cutoff", nativeQuery = true)
+    int deleteCreatedBefore(@Param("cutoff") OffsetDateTime cutoff);
+}
@@ -0,0 +1,149 @@
+package com.app.repository;
+
+import com.app.model.IngestionWorkItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface IngestionWorkItemRepository extends JpaRepository<IngestionWorkItem, Long> {
+    
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO ingestion_work_items (run_id, sync_generation, window_from, window_to) " +
+                   "VALUES (:runId, :generation, :from, :to)",
+           nativeQuery = true)
+    int insertItem(
+        @Param("runId") String runId,
+        @Param("generation") long generation,
+        @Param("from") OffsetDateTime from,
+        @Param("to") OffsetDateTime to
+    );
+    
+    /**
+     * Claim the oldest pending item, or one whose worker's lease ran out
+     * SKIP LOCKED lets concurrent claimers on other nodes pass over the row being claimed.
+     */
+    @Transactional
+    @Query(value = "UPDATE ingestion_work_items SET status = 'CLAIMED', owner = :owner, attempts = attempts + 1, " +
+                   "lease_until = now() + :leaseSeconds * interval '1 second' " +
+                   "WHERE id = (SELECT id FROM ingestion_work_items " +
+                   "            WHERE (status = 'PENDING' OR (status = 'CLAIMED' AND lease_until < now())) " +
+                   "              AND attempts < :maxAttempts " +
+                   "            ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+                   "RETURNING *",
+           nativeQuery = true)
+    Optional<IngestionWorkItem> claimNext(
+        @Param("owner") String owner,
+        @Param("leaseSeconds") long leaseSeconds,
+        @Param("maxAttempts") int maxAttempts
+    );
+    
+    /**
+     * Extend the leases of items this owner still holds
+     * @return Ids still held; the others were cancelled or claimed by another node
+     */
+    @Transactional
+    @Query(value = "UPDATE ingestion_work_items SET lease_until = now() + :leaseSeconds * interval '1 second' " +
+                   "WHERE id IN (:ids) AND owner = :owner AND status = 'CLAIMED' RETURNING id",
+           nativeQuery = true)
+    List<Long> renewLeases(
+        @Param("ids") Collection<Long> ids,
+        @Param("owner") String owner,
+        @Param("leaseSeconds") long leaseSeconds
+    );
+    
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ingestion_work_items SET status = 'DONE', finished_at = now(), lease_until = NULL, " +
+                   "fetched = :fetched, mapped = :mapped, inserted = :inserted, updated = :updated, " +
+                   "skipped = :skipped, failed = :failed, last_error = :error " +
+                   "WHERE id = :id AND owner = :owner AND status = 'CLAIMED'",
+           nativeQuery = true)
+    int complete(
+        @Param("id") long id,
+        @Param("owner") String owner,
+        @Param("fetched") int fetched,
+        @Param("mapped") int mapped,
+        @Param("inserted") int inserted,
+        @Param("updated") int updated,
+        @Param("skipped") int skipped,
+        @Param("failed") int failed,
+        @Param("error") String error
+    );
+    
+    /**
+     * Give a failed item back for another attempt, or fail it for good after max attempts
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ingestion_work_items SET lease_until = NULL, last_error = :error, " +
+                   "status = CASE WHEN attempts < :maxAttempts THEN 'PENDING' ELSE 'FAILED' END, " +
+                   "finished_at = CASE WHEN attempts < :maxAttempts THEN NULL ELSE now() END " +
+                   "WHERE id = :id AND owner = :owner AND status = 'CLAIMED'",
+           nativeQuery = true)
+    int fail(
+        @Param("id") long id,
+        @Param("owner") String owner,
+        @Param("error") String error,
+        @Param("maxAttempts") int maxAttempts
+    );
+    
+    /**
+     * Fail open items whose lease ran out on their last attempt; nobody can claim them anymore
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ingestion_work_items SET status = 'FAILED', finished_at = now(), " +
+                   "last_error = COALESCE(last_error, 'Worker lease expired') " +
+                   "WHERE run_id = :runId AND status = 'CLAIMED' AND lease_until < now() AND attempts >= :maxAttempts",
+           nativeQuery = true)
+    int failAbandoned(@Param("runId") String runId, @Param("maxAttempts") int maxAttempts);
+    
+    /**
+     * Cancel the open items of all runs (before a new run starts)
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ingestion_work_items SET status = 'CANCELLED', finished_at = now() " +
+                   "WHERE status IN ('PENDING', 'CLAIMED')",
+           nativeQuery = true)
+    int cancelOpenItems();
+    
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ingestion_work_items SET status = 'CANCELLED', finished_at = now() " +
+                   "WHERE run_id = :runId AND status IN ('PENDING', 'CLAIMED')",
+           nativeQuery = true)
+    int cancelRun(@Param("runId") String runId);
+    
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM ingestion_work_items WHERE created_at < :before", nativeQuery = true)
+    int deleteCreatedBefore(@Param("before") OffsetDateTime before);
+    
+    /**
+     * Totals of one run: open items, failed items, then the summed counters
+     * Read-write transaction so progress is read from the primary.
+     */
+    @Transactional
+    @Query(value = "SELECT COUNT(*) FILTER (WHERE status IN ('PENDING', 'CLAIMED')), " +
+                   "COUNT(*) FILTER (WHERE status IN ('FAILED', 'CANCELLED')), " +
+                   "COALESCE(SUM(fetched), 0), COALESCE(SUM(mapped), 0), COALESCE(SUM(inserted), 0), " +
+                   "COALESCE(SUM(updated), 0), COALESCE(SUM(skipped), 0), COALESCE(SUM(failed), 0), COUNT(*) " +
+                   "FROM ingestion_work_items WHERE run_id = :runId",
+           nativeQuery = true)
+    List<Object[]> summarizeRun(@Param("runId") String runId);
+    
+    @Transactional
+    @Query("SELECT w FROM IngestionWorkItem w WHERE w.runId = :runId AND w.status IN ('FAILED', 'CANCELLED') ORDER BY w.id")
+    List<IngestionWorkItem> findFailedItems(@Param("runId") String runId);
+}
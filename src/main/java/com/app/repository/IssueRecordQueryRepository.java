@@ -0,0 +1,24 @@
+package com.app.repository;
+
+import com.app.dto.IssueFilter;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Dynamic, projection-only issue queries (implemented in IssueRecordQueryRepositoryImpl)
+ */
+public interface IssueRecordQueryRepository {
+    
+    /**
+     * Read one keyset page ordered by (createdAt, id) descending, issues without createdAt last.
+     * Each row holds the requested attributes followed by createdAt and id.
+     * @param attributes IssueRecord attribute names to select
+     * @param afterCreatedAt createdAt of the last row of the previous page; null for the first page
+     *                       or when that row had no createdAt
+     * @param afterId id of the last row of the previous page, null for the first page
+     * @param limit Maximum number of rows
+     */
+    List<Object[]> findPage(IssueFilter filter, List<String> attributes,
+                            OffsetDateTime afterCreatedAt, Long afterId, int limit);
+}
@@ -0,0 +1,141 @@
+package com.app.repository;
+
+import com.app.dto.IssueFilter;
+import com.app.model.IssueRecord;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria implementation of {@link IssueRecordQueryRepository}.
+ * Only the requested columns are selected, so lazy TEXT columns stay unread unless asked for,
+ * and the keyset predicate lets the (created_at, id) index serve every page at the same cost.
+ * Issues without created_at come after all dated ones, by id; the same index serves them
+ * through its IS NULL prefix.
+ */
+public class IssueRecordQueryRepositoryImpl implements IssueRecordQueryRepository {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<Object[]> findPage(IssueFilter filter, List<String> attributes,
+                                   OffsetDateTime afterCreatedAt, Long afterId, int limit) {
+        boolean inUndated = afterCreatedAt == null && afterId != null;
+        List<Object[]> rows = inUndated
+            ? new ArrayList<>()
+            : new ArrayList<>(findDated(filter, attributes, afterCreatedAt, afterId, limit));
+        // A created date range never matches issues without a created date
+        boolean undatedMatch = filter.getCreatedFrom() == null && filter.getCreatedTo() == null;
+        if (rows.size() < limit && undatedMatch) {
+            rows.addAll(findUndated(filter, attributes, inUndated ? afterId : null, limit - rows.size()));
+        }
+        return rows;
+    }
+    
+    private List<Object[]> findDated(IssueFilter filter, List<String> attributes,
+                                     OffsetDateTime afterCreatedAt, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<IssueRecord> issue = query.from(IssueRecord.class);
+        Path<OffsetDateTime> createdAt = issue.get("createdAt");
+        Path<Long> id = issue.get("id");
+        select(query, issue, attributes);
+        
+        List<Predicate> predicates = filterPredicates(cb, issue, filter);
+        predicates.add(cb.isNotNull(createdAt));
+        if (filter.getCreatedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(createdAt, filter.getCreatedFrom()));
+        }
+        if (filter.getCreatedTo() != null) {
+            predicates.add(cb.lessThan(createdAt, filter.getCreatedTo()));
+        }
+        if (afterCreatedAt != null && afterId != null) {
+            // (created_at, id) < (:afterCreatedAt, :afterId); the first term bounds the index scan
+            predicates.add(cb.lessThanOrEqualTo(createdAt, afterCreatedAt));
+            predicates.add(cb.or(
+                cb.lessThan(createdAt, afterCreatedAt),
+                cb.lessThan(id, afterId)));
+        }
+        
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.desc(createdAt), cb.desc(id));
+        
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .getResultList();
+    }
+    
+    private List<Object[]> findUndated(IssueFilter filter, List<String> attributes, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<IssueRecord> issue = query.from(IssueRecord.class);
+        Path<OffsetDateTime> createdAt = issue.get("createdAt");
+        Path<Long> id = issue.get("id");
+        select(query, issue, attributes);
+        
+        List<Predicate> predicates = filterPredicates(cb, issue, filter);
+        predicates.add(cb.isNull(createdAt));
+        if (afterId != null) {
+            predicates.add(cb.lessThan(id, afterId));
+        }
+        
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.desc(id));
+        
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .getResultList();
+    }
+    
+    /**
+     * Select the requested attributes followed by createdAt and id (the keyset)
+     */
+    private static void select(CriteriaQuery<Object[]> query, Root<IssueRecord> issue, List<String> attributes) {
+        List<Selection<?>> selections = new ArrayList<>(attributes.size() + 2);
+        for (String attribute : attributes) {
+            selections.add(issue.get(attribute));
+        }
+        selections.add(issue.get("createdAt"));
+        selections.add(issue.get("id"));
+        query.multiselect(selections);
+    }
+    
+    /**
+     * Live rows matching the filter's equality and updated range conditions
+     */
+    private static List<Predicate> filterPredicates(CriteriaBuilder cb, Root<IssueRecord> issue, IssueFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isNull(issue.get("deletedAt")));
+        addEqual(predicates, cb, issue.get("status"), filter.getStatus());
+        addEqual(predicates, cb, issue.get("assignedTeam"), filter.getTeam());
+        addEqual(predicates, cb, issue.get("project"), filter.getProject());
+        addEqual(predicates, cb, issue.get("priority"), filter.getPriority());
+        Path<OffsetDateTime> updatedAt = issue.get("updatedAt");
+        if (filter.getUpdatedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(updatedAt, filter.getUpdatedFrom()));
+        }
+        if (filter.getUpdatedTo() != null) {
+            predicates.add(cb.lessThan(updatedAt, filter.getUpdatedTo()));
+        }
+        return predicates;
+    }
+    
+    private static void addEqual(List<Predicate> predicates, CriteriaBuilder cb, Path<String> path, String value) {
+        if (value != null && !value.isBlank()) {
+            predicates.add(cb.equal(path, value));
+        }
+    }
+}
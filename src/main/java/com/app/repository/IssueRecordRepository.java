@@ -1,42 +1,228 @@
 package com.app.repository;
 
+import com.app.dto.IssueExportRow;
 import com.app.model.IssueRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
+import java.util.stream.Stream;
 
 // @Repository - Disabled until database is configured
-public interface IssueRecordRepository extends JpaRepository<IssueRecord, Long> {
+public interface IssueRecordRepository extends JpaRepository<IssueRecord, Long>, IssueRecordQueryRepository {
+    
+    // Rows per round trip for streaming queries (PostgreSQL uses a cursor inside a transaction)
+    String STREAM_FETCH_SIZE = "500";
+    
+    // Constructor expression selecting only the exported columns (no raw_json)
+    String EXPORT_ROW = "new com.app.dto.IssueExportRow(" +
+        "i.qiraId, i.project, i.priority, i.issueType, i.summary, i.description, i.reporter, " +
+        "i.assignedTeam, i.assignee, i.status, i.dueDate, i.createdAt, i.resolvedAt, " +
+        "i.firstResponseAt, i.updatedAt, i.relatedJiraTicket, i.linkedIssues, i.supportCategory, " +
+        "i.supportActionDate, i.supportActionedBy, i.supportPriority, i.supportRemark, i.comment, " +
+        "i.isbnOrderNumber, i.bookId, i.resolution, i.causedByBooks, i.doiMultiLine, i.erratumDoi, " +
+        "i.errorLocationBooks, i.errorTypeBooks, i.productionSystemBooks, i.requestActionBooks, " +
+        "i.publicationStatusBooks, i.qiraTicketsCategory)";
     
     Optional<IssueRecord> findByQiraId(String qiraId);
     
-    @Query("SELECT i.qiraId FROM IssueRecord i WHERE i.qiraId IN :qiraIds")
-    Set<String> findExistingQiraIds(@Param("qiraIds") Set<String> qiraIds);
+    /**
+     * Latest QIRA update time in the table; seeds the incremental sync watermark once
+     */
+    @Query("SELECT MAX(i.updatedAt) FROM IssueRecord i")
+    OffsetDateTime findMaxUpdatedAt();
+    
+    @Query("SELECT i FROM IssueRecord i WHERE i.qiraId IN :qiraIds")
+    List<IssueRecord> findAllByQiraIdIn(@Param("qiraIds") Collection<String> qiraIds);
     
-    @Query("SELECT i FROM IssueRecord i WHERE i.createdAt >= :fromDate AND i.createdAt <= :toDate")
+    /**
+     * Stream (qiraId, contentHash, deletedAt) of every row to build the known key index
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT i.qiraId, i.contentHash, i.deletedAt FROM IssueRecord i")
+    Stream<Object[]> streamContentHashes();
+    
+    // Date ranges are half-open [fromDate, toDate) so they line up with the monthly
+    // created_at partitions and only the partitions overlapping the range are scanned
+    @Query("SELECT i FROM IssueRecord i WHERE i.createdAt >= :fromDate AND i.createdAt < :toDate " +
+           "AND i.deletedAt IS NULL")
     List<IssueRecord> findByDateRange(
         @Param("fromDate") OffsetDateTime fromDate,
         @Param("toDate") OffsetDateTime toDate
     );
     
-    @Query("SELECT i FROM IssueRecord i WHERE i.createdAt >= :fromDate AND i.createdAt <= :toDate " +
-           "AND (:team IS NULL OR i.assignedTeam = :team)")
+    @Query("SELECT i FROM IssueRecord i WHERE i.createdAt >= :fromDate AND i.createdAt < :toDate " +
+           "AND i.assignedTeam = :team AND i.deletedAt IS NULL")
     List<IssueRecord> findByDateRangeAndTeam(
         @Param("fromDate") OffsetDateTime fromDate,
         @Param("toDate") OffsetDateTime toDate,
         @Param("team") String team
     );
     
-    @Query("SELECT COUNT(i) FROM IssueRecord i WHERE i.status = :status")
-    long countByStatus(@Param("status") String status);
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT " + EXPORT_ROW + " FROM IssueRecord i " +
+           "WHERE i.createdAt >= :fromDate AND i.createdAt < :toDate AND i.deletedAt IS NULL")
+    Stream<IssueExportRow> streamExportRowsByDateRange(
+        @Param("fromDate") OffsetDateTime fromDate,
+        @Param("toDate") OffsetDateTime toDate
+    );
+    
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT " + EXPORT_ROW + " FROM IssueRecord i " +
+           "WHERE i.createdAt >= :fromDate AND i.createdAt < :toDate AND i.assignedTeam = :team " +
+           "AND i.deletedAt IS NULL")
+    Stream<IssueExportRow> streamExportRowsByDateRangeAndTeam(
+        @Param("fromDate") OffsetDateTime fromDate,
+        @Param("toDate") OffsetDateTime toDate,
+        @Param("team") String team
+    );
+    
+    /**
+     * Full-text search over the search_vector column (GIN index), best matches first.
+     * Only the page rows are joined back for display columns and ts_headline snippets.
+     * Row: qira_id, summary, status, assigned_team, created_at, rank, snippet
+     */
+    @Query(value = "SELECT i.qira_id, i.summary, i.status, i.assigned_team, i.created_at, hit.rank, " +
+                   "ts_headline('english', concat_ws(' ... ', i.summary, i.description, i.comment, i.support_remark), " +
+                   "hit.query, 'StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MaxWords=25, MinWords=8') " +
+                   "FROM (SELECT r.id, r.created_at, q.query, ts_rank_cd(r.search_vector, q.query) AS rank " +
+                   "      FROM issue_records r, websearch_to_tsquery('english', :query) AS q(query) " +
+                   "      WHERE r.search_vector @@ q.query AND r.deleted_at IS NULL " +
+                   "      ORDER BY rank DESC, r.id DESC LIMIT :limit OFFSET :offset) hit " +
+                   "JOIN issue_records i ON i.id = hit.id AND i.created_at IS NOT DISTINCT FROM hit.created_at " +
+                   "ORDER BY hit.rank DESC, hit.id DESC",
+           nativeQuery = true)
+    List<Object[]> searchFullText(
+        @Param("query") String query,
+        @Param("limit") int limit,
+        @Param("offset") int offset
+    );
+    
+    /**
+     * Full-text match on display columns only; summary carries the highest weight, so title matches rank first
+     * Row: qira_id, summary, status, assigned_team, created_at, rank
+     */
+    @Query(value = "SELECT r.qira_id, r.summary, r.status, r.assigned_team, r.created_at, " +
+                   "ts_rank_cd(r.search_vector, q.query) AS rank " +
+                   "FROM issue_records r, websearch_to_tsquery('english', :query) AS q(query) " +
+                   "WHERE r.search_vector @@ q.query AND r.deleted_at IS NULL " +
+                   "ORDER BY rank DESC, r.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<Object[]> searchRecords(@Param("query") String query, @Param("limit") int limit);
+    
+    /**
+     * Tombstoned rows among qiraIds; the known key index of one node does not see another node's sweep
+     */
+    @Query("SELECT i FROM IssueRecord i WHERE i.qiraId IN :qiraIds AND i.deletedAt IS NOT NULL")
+    List<IssueRecord> findTombstonedByQiraIdIn(@Param("qiraIds") Collection<String> qiraIds);
+    
+    /**
+     * Stamp rows that were skipped as unchanged with the current sync generation
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IssueRecord i SET i.syncGeneration = :generation " +
+           "WHERE i.qiraId IN :qiraIds AND i.syncGeneration < :generation")
+    int stampSyncGeneration(@Param("qiraIds") Collection<String> qiraIds, @Param("generation") long generation);
+    
+    /**
+     * Allocate the generation number for a new full sync
+     * Writes the sequence, so it must run on the primary.
+     */
+    @Transactional
+    @Query(value = "SELECT nextval('issue_sync_generation_seq')", nativeQuery = true)
+    long nextSyncGeneration();
+    
+    @Query("SELECT COUNT(i) FROM IssueRecord i WHERE i.deletedAt IS NULL AND i.syncGeneration < :generation")
+    long countUnseenSince(@Param("generation") long generation);
+    
+    /**
+     * Tombstone one batch of live rows not seen by the given generation
+     * @return qiraIds of the tombstoned rows
+     */
+    @Transactional
+    @Query(value = "SELECT sweep_issue_records(:generation, :batchSize)", nativeQuery = true)
+    List<String> sweepUnseenBatch(@Param("generation") long generation, @Param("batchSize") int batchSize);
+    
+    /**
+     * Tombstone one batch of live rows created in [fromDate, toDate) not seen by the given generation
+     */
+    @Transactional
+    @Query(value = "SELECT sweep_issue_records_window(:generation, CAST(:fromDate AS timestamptz), " +
+                   "CAST(:toDate AS timestamptz), :batchSize)", nativeQuery = true)
+    List<String> sweepUnseenBatchInWindow(
+        @Param("generation") long generation,
+        @Param("fromDate") OffsetDateTime fromDate,
+        @Param("toDate") OffsetDateTime toDate,
+        @Param("batchSize") int batchSize
+    );
+    
+    @Query("SELECT COUNT(i) FROM IssueRecord i WHERE i.deletedAt IS NULL AND i.syncGeneration < :generation " +
+           "AND i.createdAt >= :fromDate AND i.createdAt < :toDate")
+    long countUnseenSinceInWindow(
+        @Param("generation") long generation,
+        @Param("fromDate") OffsetDateTime fromDate,
+        @Param("toDate") OffsetDateTime toDate
+    );
+    
+    /**
+     * Reconciliation digest of live rows created in [fromDate, toDate): row count and max updatedAt
+     */
+    @Query("SELECT COUNT(i), MAX(i.updatedAt) FROM IssueRecord i " +
+           "WHERE i.createdAt >= :fromDate AND i.createdAt < :toDate AND i.deletedAt IS NULL")
+    List<Object[]> digestByCreatedWindow(
+        @Param("fromDate") OffsetDateTime fromDate,
+        @Param("toDate") OffsetDateTime toDate
+    );
+    
+    @Query("SELECT MIN(i.createdAt) FROM IssueRecord i WHERE i.deletedAt IS NULL")
+    Optional<OffsetDateTime> findEarliestCreatedAt();
+    
+    /**
+     * Create the monthly created_at partition containing the given day (no-op if it exists)
+     * Runs DDL, so it must not inherit the read-only default of repository query methods.
+     */
+    @Transactional
+    @Query(value = "SELECT create_issue_records_partition(CAST(:month AS date))", nativeQuery = true)
+    String createMonthlyPartition(@Param("month") LocalDate month);
+    
+    @Query(value = "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                   "WHERE i.inhparent = 'issue_records'::regclass ORDER BY c.relname",
+           nativeQuery = true)
+    List<String> findPartitionNames();
+    
+    /**
+     * Fill search_vector for one batch of rows of a partition that predate its trigger
+     * @return Rows filled; less than batchSize once the partition is done
+     */
+    @Transactional
+    @Query(value = "SELECT backfill_issue_records_search_vector(:partition, :batchSize)", nativeQuery = true)
+    int backfillSearchVectorBatch(@Param("partition") String partition, @Param("batchSize") int batchSize);
     
-    @Query("SELECT i.issueType as type, COUNT(i) as count FROM IssueRecord i " +
-           "GROUP BY i.issueType ORDER BY count DESC")
-    List<Object[]> countByIssueType();
+    /**
+     * Detach monthly partitions for months before the given day
+     */
+    @Transactional
+    @Query(value = "SELECT detach_issue_records_partitions_before(CAST(:before AS date))", nativeQuery = true)
+    List<String> detachPartitionsBefore(@Param("before") LocalDate before);
 }
@@ -0,0 +1,114 @@
+package com.app.repository;
+
+import com.app.model.IssueStatsRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface IssueStatsRollupRepository extends JpaRepository<IssueStatsRollup, Long> {
+    
+    // Optional month range [fromMonth, toMonth) and team filter shared by the grouped sums
+    String GROUP_FILTER = "(:fromMonth IS NULL OR r.month >= :fromMonth) " +
+                          "AND (:toMonth IS NULL OR r.month < :toMonth) " +
+                          "AND (:team IS NULL OR r.team = :team) ";
+    
+    /**
+     * Add a (possibly negative) delta to one rollup group, creating the group if needed
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO issue_stats_rollup (month, team, status, issue_type, priority, issue_count) " +
+                   "VALUES (CAST(:month AS date), :team, :status, :issueType, :priority, :delta) " +
+                   "ON CONFLICT ON CONSTRAINT uk_issue_stats_rollup_group " +
+                   "DO UPDATE SET issue_count = issue_stats_rollup.issue_count + EXCLUDED.issue_count",
+           nativeQuery = true)
+    int applyDelta(
+        @Param("month") LocalDate month,
+        @Param("team") String team,
+        @Param("status") String status,
+        @Param("issueType") String issueType,
+        @Param("priority") String priority,
+        @Param("delta") long delta
+    );
+    
+    /**
+     * Bump the rollup version. Rollup writers call it before their first rollup change and
+     * hold the row until they commit, so it is always the first lock they take.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE issue_stats_version SET version = version + 1 WHERE id = 1", nativeQuery = true)
+    int bumpVersion();
+    
+    /**
+     * Recompute the whole rollup from issue_records
+     * @return Number of groups written
+     */
+    @Transactional
+    @Query(value = "SELECT rebuild_issue_stats_rollup()", nativeQuery = true)
+    long rebuild();
+    
+    /**
+     * Version of the rollup; every transaction that changes the rollup bumps it
+     */
+    @Query(value = "SELECT version FROM issue_stats_version WHERE id = 1", nativeQuery = true)
+    long findVersion();
+    
+    @Query("SELECT COALESCE(SUM(r.issueCount), 0) FROM IssueStatsRollup r WHERE r.status = :status")
+    long countByStatus(@Param("status") String status);
+    
+    @Query("SELECT r.issueType as type, SUM(r.issueCount) as count FROM IssueStatsRollup r " +
+           "GROUP BY r.issueType HAVING SUM(r.issueCount) > 0 ORDER BY count DESC")
+    List<Object[]> countByIssueType();
+    
+    /**
+     * Ticket counts by status for created months in [fromMonth, toMonth), optionally for one team
+     * A null bound leaves that side open (and then includes tickets without created_at).
+     */
+    @Query("SELECT r.status, SUM(r.issueCount) FROM IssueStatsRollup r WHERE " + GROUP_FILTER +
+           "GROUP BY r.status HAVING SUM(r.issueCount) > 0 ORDER BY SUM(r.issueCount) DESC")
+    List<Object[]> sumByStatus(
+        @Param("fromMonth") LocalDate fromMonth,
+        @Param("toMonth") LocalDate toMonth,
+        @Param("team") String team
+    );
+    
+    @Query("SELECT r.issueType, SUM(r.issueCount) FROM IssueStatsRollup r WHERE " + GROUP_FILTER +
+           "GROUP BY r.issueType HAVING SUM(r.issueCount) > 0 ORDER BY SUM(r.issueCount) DESC")
+    List<Object[]> sumByIssueType(
+        @Param("fromMonth") LocalDate fromMonth,
+        @Param("toMonth") LocalDate toMonth,
+        @Param("team") String team
+    );
+    
+    @Query("SELECT r.team, SUM(r.issueCount) FROM IssueStatsRollup r WHERE " + GROUP_FILTER +
+           "GROUP BY r.team HAVING SUM(r.issueCount) > 0 ORDER BY SUM(r.issueCount) DESC")
+    List<Object[]> sumByTeam(
+        @Param("fromMonth") LocalDate fromMonth,
+        @Param("toMonth") LocalDate toMonth,
+        @Param("team") String team
+    );
+    
+    @Query("SELECT r.priority, SUM(r.issueCount) FROM IssueStatsRollup r WHERE " + GROUP_FILTER +
+           "GROUP BY r.priority HAVING SUM(r.issueCount) > 0 ORDER BY SUM(r.issueCount) DESC")
+    List<Object[]> sumByPriority(
+        @Param("fromMonth") LocalDate fromMonth,
+        @Param("toMonth") LocalDate toMonth,
+        @Param("team") String team
+    );
+    
+    @Query("SELECT r.month, SUM(r.issueCount) FROM IssueStatsRollup r WHERE " + GROUP_FILTER +
+           "GROUP BY r.month HAVING SUM(r.issueCount) > 0 ORDER BY r.month")
+    List<Object[]> sumByMonth(
+        @Param("fromMonth") LocalDate fromMonth,
+        @Param("toMonth") LocalDate toMonth,
+        @Param("team") String team
+    );
+}
@@ -0,0 +1,41 @@
+package com.app.repository;
+
+import com.app.model.JobRun;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface JobRunRepository extends JpaRepository<JobRun, String> {
+    
+    Page<JobRun> findByType(String type, Pageable pageable);
+    
+    Page<JobRun> findByRegressionTrue(Pageable pageable);
+    
+    /**
+     * Number of samples and median duration of the latest successful runs of the same type and
+     * record limit, excluding the run being checked
+     * @param maxRecords Record limit of the run, -1 for unlimited
+     * @return One row: [count, median duration_ms or null]
+     */
+    @Query(value = "SELECT COUNT(*), percentile_cont(0.5) WITHIN GROUP (ORDER BY duration_ms) FROM (" +
+                   "SELECT duration_ms FROM job_runs WHERE type = :type AND COALESCE(max_records, -1) = :maxRecords " +
+                   "AND status IN ('COMPLETED', 'COMPLETED_WITH_ERRORS') AND id <> :excludeId " +
+                   "ORDER BY finished_at DESC LIMIT :window) recent",
+           nativeQuery = true)
+    List<Object[]> trailingDurationMedian(@Param("type") String type, @Param("maxRecords") int maxRecords,
+                                          @Param("excludeId") String excludeId, @Param("window") int window);
+    
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM job_runs WHERE finished_at < :cutoff", nativeQuery = true)
+    int deleteFinishedBefore(@Param("cutoff") OffsetDateTime cutoff);
+}
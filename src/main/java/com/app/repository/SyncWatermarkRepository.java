@@ -0,0 +1,26 @@
+package com.app.repository;
+
+import com.app.model.SyncWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+@Repository
+public interface SyncWatermarkRepository extends JpaRepository<SyncWatermark, String> {
+    
+    /**
+     * Move a watermark forward; never moves it back, so a slow node finishing late is harmless
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO sync_watermarks (name, watermark, updated_at) VALUES (:name, :watermark, now()) " +
+                   "ON CONFLICT (name) DO UPDATE SET watermark = GREATEST(sync_watermarks.watermark, EXCLUDED.watermark), " +
+                   "updated_at = now()",
+           nativeQuery = true)
+    int advance(@Param("name") String name, @Param("watermark") OffsetDateTime watermark);
+}
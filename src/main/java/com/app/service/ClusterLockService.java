@@ -0,0 +1,134 @@
+package com.app.service;
+
+import com.app.config.ReplicaRoutingDataSource;
+import com.app.model.ClusterLock;
+import com.app.repository.ClusterLockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lease-based locks shared by all nodes through the cluster_locks table.
+ * A held lock is renewed every ingestion.lock.heartbeat-ms; if a node dies its lease runs out
+ * after ingestion.lock.lease-seconds and another node can take the lock. A node that finds
+ * its lease taken over runs the onLost callback given when acquiring.
+ */
+@Service
+public class ClusterLockService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClusterLockService.class);
+    
+    public static final String INGESTION_LOCK = "ingestion";
+    
+    private final ClusterLockRepository repository;
+    private final String nodeId;
+    private final boolean enabled;
+    private final long leaseSeconds;
+    private final long heartbeatMillis;
+    // Locks held by this node and what to do if one is lost
+    private final Map<String, Runnable> held = new ConcurrentHashMap<>();
+    
+    public ClusterLockService(
+            ClusterLockRepository repository,
+            @Value("${ingestion.lock.node-id:}") String nodeId,
+            @Value("${ingestion.lock.enabled:true}") boolean enabled,
+            @Value("${ingestion.lock.lease-seconds:120}") long leaseSeconds,
+            @Value("${ingestion.lock.heartbeat-ms:30000}") long heartbeatMillis) {
+        this.repository = repository;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.enabled = enabled;
+        this.leaseSeconds = Math.max(1, leaseSeconds);
+        this.heartbeatMillis = Math.max(100, heartbeatMillis);
+        if (this.heartbeatMillis >= this.leaseSeconds * 1000) {
+            logger.warn("ingestion.lock.heartbeat-ms ({}) is not below the lease ({} s); locks will lapse between heartbeats",
+                this.heartbeatMillis, this.leaseSeconds);
+        }
+    }
+    
+    /**
+     * Try to take a lock without waiting
+     * @param onLost Run (on the heartbeat thread) if the lease is later found taken over
+     * @return true if this node now holds the lock
+     */
+    public boolean tryAcquire(String name, Runnable onLost) {
+        if (!enabled) {
+            return true;
+        }
+        if (repository.tryAcquire(name, nodeId, leaseSeconds) == 0) {
+            return false;
+        }
+        held.put(name, onLost);
+        logger.info("Acquired cluster lock '{}' as {}", name, nodeId);
+        return true;
+    }
+    
+    public void release(String name) {
+        if (!enabled || held.remove(name) == null) {
+            return;
+        }
+        if (repository.release(name, nodeId) == 0) {
+            logger.warn("Cluster lock '{}' was no longer held by {} on release", name, nodeId);
+        } else {
+            logger.info("Released cluster lock '{}'", name);
+        }
+    }
+    
+    /**
+     * Whether a holder released the lock normally at or after since, i.e. finished its run
+     */
+    public boolean releasedSince(String name, OffsetDateTime since) {
+        return enabled && repository.releasedSince(name, since);
+    }
+    
+    /**
+     * Node currently holding the lock, if any
+     */
+    public Optional<String> holder(String name) {
+        return ReplicaRoutingDataSource.primaryScope(() -> repository.findById(name).map(ClusterLock::getOwner));
+    }
+    
+    /**
+     * Extend the leases of all locks this node holds
+     */
+    @Scheduled(fixedDelayString = "${ingestion.lock.heartbeat-ms:30000}")
+    public void heartbeat() {
+        for (Map.Entry<String, Runnable> lock : held.entrySet()) {
+            try {
+                if (repository.renew(lock.getKey(), nodeId, leaseSeconds) == 0 && held.remove(lock.getKey()) != null) {
+                    logger.error("Lost cluster lock '{}': lease ran out and another node took it over", lock.getKey());
+                    lock.getValue().run();
+                }
+            } catch (RuntimeException e) {
+                // The lease is still valid until it runs out; the next heartbeat retries
+                logger.warn("Failed to renew cluster lock '{}': {}", lock.getKey(), e.getMessage());
+            }
+        }
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    public long getHeartbeatMillis() {
+        return heartbeatMillis;
+    }
+    
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown-host";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,72 @@
+package com.app.service;
+
+import com.app.model.IngestionDeadLetter;
+import com.app.repository.IngestionDeadLetterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Stores tickets that failed to ingest in ingestion_dead_letters, with their raw payload.
+ * Job status keeps only counts and samples, so this is where the full detail of a mass
+ * failure goes.
+ */
+@Service
+public class DeadLetterService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterService.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    private final IngestionDeadLetterRepository repository;
+    
+    @Value("${ingestion.dead-letter.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${ingestion.dead-letter.retention-days:30}")
+    private int retentionDays;
+    
+    public DeadLetterService(IngestionDeadLetterRepository repository) {
+        this.repository = repository;
+    }
+    
+    /**
+     * Store failed tickets in one transaction. Failures are logged, never thrown: the
+     * tickets are already counted in the job's errors.
+     */
+    public void record(List<IngestionDeadLetter> deadLetters) {
+        if (!enabled || deadLetters.isEmpty()) {
+            return;
+        }
+        try {
+            repository.saveAll(deadLetters);
+        } catch (RuntimeException e) {
+            logger.error("Failed to store {} dead letters: {}", deadLetters.size(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Dead letters, newest first
+     * @param jobId Job to list, null for all
+     */
+    public Page<IngestionDeadLetter> getDeadLetters(String jobId, int page, int size) {
+        PageRequest pageable = PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE),
+            Sort.by(Sort.Direction.DESC, "id"));
+        return jobId != null ? repository.findByJobId(jobId, pageable) : repository.findAll(pageable);
+    }
+    
+    @Scheduled(cron = "${ingestion.dead-letter.cleanup-cron:0 45 1 * * ?}")
+    public void purgeExpired() {
+        int deleted = repository.deleteCreatedBefore(OffsetDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            logger.info("Deleted {} dead letters older than {} days", deleted, retentionDays);
+        }
+    }
+}
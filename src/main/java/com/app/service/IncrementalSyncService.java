@@ -0,0 +1,154 @@
+package com.app.service;
+
+import com.app.config.ReplicaRoutingDataSource;
+import com.app.dto.JobStatus;
+import com.app.dto.UpsertStats;
+import com.app.model.SyncWatermark;
+import com.app.repository.IssueRecordRepository;
+import com.app.repository.SyncWatermarkRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Incremental sync on the QIRA updated watermark, run every few minutes next to the monthly
+ * full sync. Fetches only tickets updated since the watermark (minus ingestion.incremental.overlap-minutes
+ * for clock skew and the minute precision of JQL dates) through the ingestion pipeline, which
+ * writes page-sized batches; no sweep and no report. The pipeline pages the search by keyset on
+ * updated, so a ticket edited during the run does not push another one out of it. Unchanged
+ * tickets in the overlap are skipped by their content hash. The watermark moves to the run's start time once every
+ * fetched ticket was written, and a complete full sync moves it too.
+ */
+@Service
+public class IncrementalSyncService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalSyncService.class);
+    
+    static final String WATERMARK = "incremental-sync";
+    
+    private final IngestionPipeline ingestionPipeline;
+    private final SyncWatermarkRepository watermarkRepository;
+    private final IssueRecordRepository issueRecordRepository;
+    private final IssueStatsService issueStatsService;
+    private final MeterRegistry meterRegistry;
+    private final long overlapMinutes;
+    private volatile OffsetDateTime lastWatermark;
+    
+    public IncrementalSyncService(
+            IngestionPipeline ingestionPipeline,
+            SyncWatermarkRepository watermarkRepository,
+            IssueRecordRepository issueRecordRepository,
+            IssueStatsService issueStatsService,
+            MeterRegistry meterRegistry,
+            @Value("${ingestion.incremental.overlap-minutes:5}") long overlapMinutes) {
+        this.ingestionPipeline = ingestionPipeline;
+        this.watermarkRepository = watermarkRepository;
+        this.issueRecordRepository = issueRecordRepository;
+        this.issueStatsService = issueStatsService;
+        this.meterRegistry = meterRegistry;
+        this.overlapMinutes = Math.max(0, overlapMinutes);
+    }
+    
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("qira.ingestion.incremental.lag", this,
+                service -> service.lastWatermark == null ? Double.NaN
+                    : Duration.between(service.lastWatermark, OffsetDateTime.now()).toSeconds())
+            .description("Seconds since the incremental sync watermark, i.e. how stale issue_records may be")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Run one incremental sync
+     * Runs on the IngestionJobManager executor; submit an INCREMENTAL_SYNC job instead of calling this directly
+     */
+    JobStatus sync(JobStatus jobStatus) {
+        OffsetDateTime startedAt = jobStatus.getStartedAt() != null ? jobStatus.getStartedAt() : OffsetDateTime.now();
+        OffsetDateTime watermark = currentWatermark();
+        if (watermark == null) {
+            logger.info("Incremental sync {} skipped: no watermark and no tickets yet; run a full sync first",
+                jobStatus.getId());
+            jobStatus.markSkipped("No watermark yet; run a full sync first");
+            return jobStatus;
+        }
+        
+        OffsetDateTime since = watermark.minusMinutes(overlapMinutes);
+        logger.info("Incremental sync {}: tickets updated since {} (watermark {})", jobStatus.getId(), since, watermark);
+        try {
+            IngestionPipeline.Result result = ingestionPipeline.runUpdatedSince(jobStatus.getId(), since,
+                jobStatus::isCancelRequested, IngestionPipeline.ProgressListener.forJob(jobStatus));
+            UpsertStats stats = result.getUpsertStats();
+            result.getStages().forEach(jobStatus::addStage);
+            jobStatus.setTotalFetched(result.getFetched());
+            jobStatus.addErrors(result.getErrorSummary());
+            jobStatus.setInserted(stats.getInserted());
+            jobStatus.setUpdated(stats.getUpdated());
+            jobStatus.setFailed(stats.getFailed());
+            
+            meterRegistry.counter("qira.ingestion.incremental.fetched").increment(result.getFetched());
+            meterRegistry.counter("qira.ingestion.inserted").increment(stats.getInserted());
+            meterRegistry.counter("qira.ingestion.updated").increment(stats.getUpdated());
+            meterRegistry.counter("qira.ingestion.failed").increment(stats.getFailed());
+            if (stats.getInserted() + stats.getUpdated() > 0) {
+                issueStatsService.invalidate();
+            }
+            
+            // Failed upserts are retried by keeping the watermark; tickets that fail to map are dead-lettered
+            if (stats.getFailed() == 0) {
+                advanceWatermark(startedAt);
+            } else {
+                logger.warn("Incremental sync {}: {} upserts failed, keeping watermark {}",
+                    jobStatus.getId(), stats.getFailed(), watermark);
+            }
+            jobStatus.markCompleted();
+            logger.info("Incremental sync {} finished: fetched {}, inserted {}, updated {}, skipped {}, failed {}",
+                jobStatus.getId(), result.getFetched(), stats.getInserted(), stats.getUpdated(), stats.getSkipped(),
+                stats.getFailed());
+        } catch (CancellationException e) {
+            logger.warn("Incremental sync {} cancelled: {}", jobStatus.getId(), e.getMessage());
+            jobStatus.markCancelled();
+            issueStatsService.invalidate();
+        }
+        meterRegistry.timer("qira.ingestion.incremental.duration")
+            .record(Duration.between(startedAt, OffsetDateTime.now()));
+        return jobStatus;
+    }
+    
+    /**
+     * Record that every QIRA change before at has been ingested, e.g. by a complete full sync
+     */
+    public void advanceWatermark(OffsetDateTime at) {
+        watermarkRepository.advance(WATERMARK, at);
+        if (lastWatermark == null || at.isAfter(lastWatermark)) {
+            lastWatermark = at;
+        }
+    }
+    
+    /**
+     * Stored watermark (read from the primary), seeded once from the latest updated time in issue_records
+     */
+    private OffsetDateTime currentWatermark() {
+        OffsetDateTime watermark = ReplicaRoutingDataSource.primaryScope(() -> {
+            OffsetDateTime stored = watermarkRepository.findById(WATERMARK).map(SyncWatermark::getWatermark).orElse(null);
+            if (stored == null) {
+                stored = issueRecordRepository.findMaxUpdatedAt();
+                if (stored != null) {
+                    logger.info("Seeding incremental sync watermark from issue_records: {}", stored);
+                    watermarkRepository.advance(WATERMARK, stored);
+                }
+            }
+            return stored;
+        });
+        lastWatermark = watermark;
+        return watermark;
+    }
+}
@@ -0,0 +1,356 @@
+package com.app.service;
+
+import com.app.dto.JobStage;
+import com.app.dto.JobStatus;
+import com.app.dto.ReconciliationReport;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs ingestion and reconciliation jobs one at a time on a single worker thread.
+ * Waiting jobs are ordered by type priority (scheduled syncs first, limited fetches last),
+ * then by submission order. A trigger matching a job that is still queued returns that job
+ * instead of queueing a duplicate. Jobs are cancelled cooperatively at page boundaries.
+ * Each job holds the cluster-wide ingestion lock while it runs, so across nodes only one
+ * job ingests at a time: manual jobs are skipped while another node holds the lock, scheduled
+ * jobs (fired on every node) wait for it and run only if the holder died without finishing.
+ * Incremental syncs fire every few minutes on every node and never wait for the lock: one node
+ * runs, the others skip without keeping the skipped job in the history.
+ * Every other job that ran is recorded in the job_runs history by JobRunService.
+ */
+@Service
+public class IngestionJobManager {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IngestionJobManager.class);
+    
+    /**
+     * Job types, highest priority first
+     */
+    public enum JobType {
+        SCHEDULED_SYNC(0),
+        RECONCILE(1),
+        MANUAL_SYNC(2),
+        LIMITED_FETCH(3),
+        // Frequent and cheap; yields to every other job and is simply picked up by the next tick
+        INCREMENTAL_SYNC(4);
+        
+        private final int priority;
+        
+        JobType(int priority) {
+            this.priority = priority;
+        }
+    }
+    
+    private final IngestionOrchestrator ingestionOrchestrator;
+    private final ReconciliationService reconciliationService;
+    private final IncrementalSyncService incrementalSyncService;
+    private final ClusterLockService clusterLock;
+    private final JobRunService jobRunService;
+    private final int maxQueued;
+    
+    @Value("${scheduler.incremental.enabled:true}")
+    private boolean incrementalEnabled;
+    
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+    // Recent jobs by id, oldest first; guarded by this
+    private final Map<String, JobStatus> jobs;
+    private volatile JobStatus currentJob;
+    
+    public IngestionJobManager(
+            IngestionOrchestrator ingestionOrchestrator,
+            ReconciliationService reconciliationService,
+            IncrementalSyncService incrementalSyncService,
+            ClusterLockService clusterLock,
+            JobRunService jobRunService,
+            @Value("${ingestion.jobs.max-queued:10}") int maxQueued,
+            @Value("${ingestion.jobs.history-size:50}") int historySize) {
+        this.ingestionOrchestrator = ingestionOrchestrator;
+        this.reconciliationService = reconciliationService;
+        this.incrementalSyncService = incrementalSyncService;
+        this.clusterLock = clusterLock;
+        this.jobRunService = jobRunService;
+        this.maxQueued = Math.max(1, maxQueued);
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(), new JobThreadFactory());
+        int retained = Math.max(this.maxQueued + 1, historySize);
+        this.jobs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JobStatus> eldest) {
+                return size() > retained;
+            }
+        };
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        // Interrupts the running job; its pipeline stages stop at the next queue operation
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Scheduled monthly ingestion job
+     * Runs at 2 AM on the 1st of every month by default
+     */
+    @Scheduled(cron = "${scheduler.monthly.cron:0 0 2 1 * ?}")
+    public void scheduledFetchAndReport() {
+        logger.info("==========================================================");
+        logger.info("SCHEDULED MONTHLY INGESTION JOB TRIGGERED");
+        logger.info("Scheduled Time: {}", OffsetDateTime.now());
+        logger.info("==========================================================");
+        submit(JobType.SCHEDULED_SYNC, null, true);
+    }
+    
+    @Scheduled(cron = "${reconcile.cron:0 0 4 * * SUN}")
+    public void scheduledReconcile() {
+        logger.info("Scheduled reconciliation triggered");
+        submit(JobType.RECONCILE, null, true);
+    }
+    
+    /**
+     * Incremental sync on the updated watermark, every 5 minutes by default
+     * Submitted as unscheduled so it skips instead of waiting while another node holds the lock.
+     */
+    @Scheduled(cron = "${scheduler.incremental.cron:0 */5 * * * ?}")
+    public void scheduledIncrementalSync() {
+        if (!incrementalEnabled) {
+            return;
+        }
+        logger.debug("Scheduled incremental sync triggered");
+        try {
+            submit(JobType.INCREMENTAL_SYNC, null, false);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Incremental sync not queued: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Queue a job
+     * @param maxRecords Maximum number of records to fetch (null for all records; ignored by RECONCILE)
+     * @return The queued job, or the identical job that was already waiting
+     * @throws RejectedExecutionException if ingestion.jobs.max-queued jobs are already waiting
+     */
+    public JobStatus submit(JobType type, Integer maxRecords) {
+        return submit(type, maxRecords, false);
+    }
+    
+    /**
+     * @param scheduled True for scheduler triggers, which fire on every node and wait for the cluster lock
+     */
+    synchronized JobStatus submit(JobType type, Integer maxRecords, boolean scheduled) {
+        for (JobStatus job : jobs.values()) {
+            if ("QUEUED".equals(job.getStatus()) && type.name().equals(job.getType())
+                    && Objects.equals(maxRecords, job.getMaxRecords())) {
+                logger.info("Job {} ({}) is already queued, not queueing another", job.getId(), type);
+                return job;
+            }
+        }
+        if (executor.getQueue().size() >= maxQueued) {
+            throw new RejectedExecutionException("Ingestion job queue is full (" + maxQueued + " jobs waiting)");
+        }
+        
+        JobStatus job = JobStatus.queued(UUID.randomUUID().toString(), type.name(), maxRecords);
+        jobs.put(job.getId(), job);
+        executor.execute(new QueuedJob(job, type, scheduled, sequence.incrementAndGet()));
+        logger.info("Queued job {} ({}, maxRecords: {})", job.getId(), type, maxRecords != null ? maxRecords : "ALL");
+        return job;
+    }
+    
+    /**
+     * Cancel a job: a queued job is dropped, a running job stops at its next page boundary
+     * @return The job, or null if it is unknown
+     */
+    public synchronized JobStatus cancel(String id) {
+        JobStatus job = jobs.get(id);
+        if (job == null || job.isFinished()) {
+            return job;
+        }
+        job.requestCancel();
+        if ("QUEUED".equals(job.getStatus())) {
+            executor.getQueue().removeIf(task -> ((QueuedJob) task).job == job);
+            job.markCancelled();
+        }
+        logger.info("Cancellation requested for job {} ({})", id, job.getStatus());
+        return job;
+    }
+    
+    public synchronized JobStatus getJob(String id) {
+        return jobs.get(id);
+    }
+    
+    /**
+     * Recent jobs, newest first
+     */
+    public synchronized List<JobStatus> getJobs() {
+        List<JobStatus> recent = new ArrayList<>(jobs.values());
+        Collections.reverse(recent);
+        return recent;
+    }
+    
+    public JobStatus getCurrentJob() {
+        return currentJob;
+    }
+    
+    public boolean isRunning() {
+        return currentJob != null;
+    }
+    
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+    
+    private void execute(JobStatus job, JobType type, boolean scheduled) {
+        synchronized (this) {
+            if (job.isCancelRequested()) {
+                return;
+            }
+            currentJob = job;
+            job.markStarted();
+        }
+        try {
+            if (!acquireClusterLock(job, scheduled)) {
+                return;
+            }
+            try {
+                switch (type) {
+                    case RECONCILE -> runReconciliation(job);
+                    case INCREMENTAL_SYNC -> incrementalSyncService.sync(job);
+                    default -> ingestionOrchestrator.fetchAndReport(job);
+                }
+            } finally {
+                clusterLock.release(ClusterLockService.INGESTION_LOCK);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Job {} ({}) failed", job.getId(), type, e);
+            job.markFailed("Fatal error: " + e.getMessage());
+        } finally {
+            currentJob = null;
+            if (type == JobType.INCREMENTAL_SYNC && "SKIPPED".equals(job.getStatus())) {
+                // Another node ran this tick; do not crowd the history with skips every few minutes
+                synchronized (this) {
+                    jobs.remove(job.getId());
+                }
+            } else if (job.isFinished()) {
+                jobRunService.record(job);
+            }
+        }
+    }
+    
+    /**
+     * Take the cluster-wide ingestion lock for a job
+     * Scheduled jobs wait while another node runs, and are skipped once that node releases the
+     * lock after finishing; if its lease runs out instead (the node died) this node takes over.
+     * @return false if the job was skipped or cancelled instead
+     */
+    private boolean acquireClusterLock(JobStatus job, boolean scheduled) {
+        String lock = ClusterLockService.INGESTION_LOCK;
+        Runnable onLost = () -> {
+            job.addError("Lost the cluster ingestion lock to another node");
+            job.requestCancel();
+        };
+        while (!clusterLock.tryAcquire(lock, onLost)) {
+            String holder = clusterLock.holder(lock).orElse("another node");
+            if (!scheduled) {
+                if (JobType.INCREMENTAL_SYNC.name().equals(job.getType())) {
+                    logger.debug("Incremental sync {} skipped: ingestion is running on {}", job.getId(), holder);
+                } else {
+                    logger.warn("Job {} skipped: ingestion is running on {}", job.getId(), holder);
+                }
+                job.markSkipped("Ingestion is running on " + holder);
+                return false;
+            }
+            if (clusterLock.releasedSince(lock, job.getQueuedAt())) {
+                logger.info("Job {} skipped: already run by another node", job.getId());
+                job.markSkipped("Already run by another node");
+                return false;
+            }
+            if (job.isCancelRequested()) {
+                job.markCancelled();
+                return false;
+            }
+            logger.info("Job {} waiting for the ingestion lock held by {}", job.getId(), holder);
+            try {
+                Thread.sleep(clusterLock.getHeartbeatMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.markCancelled();
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void runReconciliation(JobStatus job) {
+        JobStage stage = JobStage.start("reconcile");
+        ReconciliationReport report = reconciliationService.reconcile(job::isCancelRequested);
+        job.addStage(stage.addRecords(report.getTicketsRefetched()).addErrors(report.getFailed()).finish());
+        job.setTotalFetched(report.getTicketsRefetched());
+        job.setInserted(report.getInserted());
+        job.setUpdated(report.getUpdated());
+        job.setFailed(report.getFailed());
+        switch (report.getStatus()) {
+            case "CANCELLED" -> job.markCancelled();
+            case "FAILED" -> job.markFailed(report.getError());
+            default -> job.markCompleted();
+        }
+    }
+    
+    /**
+     * Executor task ordered by type priority, then submission order
+     */
+    private class QueuedJob implements Runnable, Comparable<QueuedJob> {
+        private final JobStatus job;
+        private final JobType type;
+        private final boolean scheduled;
+        private final long sequence;
+        
+        QueuedJob(JobStatus job, JobType type, boolean scheduled, long sequence) {
+            this.job = job;
+            this.type = type;
+            this.scheduled = scheduled;
+            this.sequence = sequence;
+        }
+        
+        @Override
+        public void run() {
+            execute(job, type, scheduled);
+        }
+        
+        @Override
+        public int compareTo(QueuedJob other) {
+            int byPriority = Integer.compare(type.priority, other.type.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+    
+    private static class JobThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ingestion-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,38 +1,40 @@
 package com.app.service;
 
-import com.app.client.QiraClient;
+import com.app.config.ReplicaRoutingDataSource;
+import com.app.dto.JobStage;
 import com.app.dto.JobStatus;
 import com.app.dto.UpsertStats;
-import com.app.model.IssueRecord;
-import com.fasterxml.jackson.databind.JsonNode;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 @Service
 public class IngestionOrchestrator {
     
     private static final Logger logger = LoggerFactory.getLogger(IngestionOrchestrator.class);
     
-    private final QiraClient qiraClient;
-    private final TicketMapper ticketMapper;
-    private final IssueService issueService;
+    private final IngestionPipeline ingestionPipeline;
+    private final IngestionWorkQueue ingestionWorkQueue;
     private final ReportService reportService;
     private final EmailService emailService;
     private final MeterRegistry meterRegistry;
+    private final IssueStatsService issueStatsService;
+    private final IssueSweepService issueSweepService;
+    private final IncrementalSyncService incrementalSyncService;
     
     @Value("${report.output-dir:./reports}")
     private String reportOutputDir;
@@ -43,119 +45,96 @@ public class IngestionOrchestrator {
     @Value("${mail.recipients.support:}")
     private String supportRecipients;
     
-    private JobStatus lastJobStatus;
-    private volatile boolean isRunning = false;
+    private volatile JobStatus lastJobStatus;
     
     public IngestionOrchestrator(
-            QiraClient qiraClient,
-            TicketMapper ticketMapper,
-            IssueService issueService,
+            IngestionPipeline ingestionPipeline,
+            IngestionWorkQueue ingestionWorkQueue,
             ReportService reportService,
             EmailService emailService,
-            MeterRegistry meterRegistry) {
-        this.qiraClient = qiraClient;
-        this.ticketMapper = ticketMapper;
-        this.issueService = issueService;
+            MeterRegistry meterRegistry,
+            IssueStatsService issueStatsService,
+            IssueSweepService issueSweepService,
+            IncrementalSyncService incrementalSyncService) {
+        this.ingestionPipeline = ingestionPipeline;
+        this.ingestionWorkQueue = ingestionWorkQueue;
         this.reportService = reportService;
         this.emailService = emailService;
         this.meterRegistry = meterRegistry;
-    }
-    
-    /**
-     * Scheduled monthly ingestion job
-     * Runs at 2 AM on the 1st of every month by default
-     */
-    @Scheduled(cron = "${scheduler.monthly.cron:0 0 2 1 * ?}")
-    public void scheduledFetchAndReport() {
-        logger.info("==========================================================");
-        logger.info("SCHEDULED MONTHLY INGESTION JOB TRIGGERED");
-        logger.info("Scheduled Time: {}", OffsetDateTime.now());
-        logger.info("Cron Expression: ${scheduler.monthly.cron:0 0 2 1 * ?}");
-        logger.info("==========================================================");
-        fetchAndReport(null); // Fetch all records for scheduled job
+        this.issueStatsService = issueStatsService;
+        this.issueSweepService = issueSweepService;
+        this.incrementalSyncService = incrementalSyncService;
     }
     
     /**
      * Main ingestion and reporting flow
-     * Can be called manually or by scheduler
-     * @param maxRecords Maximum number of records to fetch (null for all records)
+     * Runs on the IngestionJobManager executor; submit jobs there instead of calling this directly
+     * @param jobStatus Started job; its maxRecords limits the fetch (null for all records)
      */
-    public synchronized JobStatus fetchAndReport(Integer maxRecords) {
-        if (isRunning) {
-            logger.warn("⚠️  Ingestion already running, skipping this trigger");
-            logger.warn("Current job started at: {}", lastJobStatus.getStartedAt());
-            return lastJobStatus;
-        }
-        
-        isRunning = true;
-        JobStatus jobStatus = new JobStatus();
-        jobStatus.setStartedAt(OffsetDateTime.now());
+    JobStatus fetchAndReport(JobStatus jobStatus) {
+        Integer maxRecords = jobStatus.getMaxRecords();
         lastJobStatus = jobStatus;
         
         try {
             logger.info("╔══════════════════════════════════════════════════════════╗");
             logger.info("║    QIRA TICKET INGESTION & REPORTING JOB STARTED        ║");
             logger.info("╚══════════════════════════════════════════════════════════╝");
+            logger.info("Job Id: {} ({})", jobStatus.getId(), jobStatus.getType());
             logger.info("Job Start Time: {}", jobStatus.getStartedAt());
             logger.info("Max Records Limit: {}", maxRecords != null ? maxRecords : "ALL");
             
-            // Step 1: Fetch tickets from QIRA API
-            logger.info("📥 STEP 1: Fetching tickets from QIRA API...");
-            List<JsonNode> allTickets;
-            if (maxRecords != null && maxRecords > 0) {
-                allTickets = qiraClient.fetchLimitedTickets(maxRecords);
-                logger.info("✅ Successfully fetched {} tickets (limited to {})", allTickets.size(), maxRecords);
-            } else {
-                allTickets = qiraClient.fetchAllTickets();
-                logger.info("✅ Successfully fetched {} tickets from QIRA API", allTickets.size());
-            }
-            
-            jobStatus.setTotalFetched(allTickets.size());
-            
-            // Update metrics
-            meterRegistry.counter("qira.ingestion.fetched").increment(allTickets.size());
-            
-            // Step 2: Map tickets to entity records
-            logger.info("🔄 STEP 2: Mapping {} tickets to database records...", allTickets.size());
-            List<IssueRecord> mappedRecords = new ArrayList<>();
-            for (JsonNode ticket : allTickets) {
-                try {
-                    IssueRecord record = ticketMapper.map(ticket);
-                    if (record != null) {
-                        mappedRecords.add(record);
-                    } else {
-                        jobStatus.addError("Failed to map ticket (missing qiraId)");
-                    }
-                } catch (Exception e) {
-                    logger.error("Error mapping ticket", e);
-                    jobStatus.addError("Mapping error: " + e.getMessage());
-                }
-            }
-            
-            logger.info("✅ Successfully mapped {} out of {} tickets", mappedRecords.size(), allTickets.size());
+            // Steps 1-3 run as one pipeline: pages are fetched, mapped and upserted concurrently
+            logger.info("📥 STEPS 1-3: Fetching, mapping and upserting tickets (pipelined)...");
+            // A full sync stamps every ticket it sees with a new generation for the sweep below
+            boolean fullSync = maxRecords == null || maxRecords <= 0;
+            Long syncGeneration = fullSync ? issueSweepService.startGeneration() : null;
+            // With ingestion.distributed.enabled a full sync is split into work items shared by all nodes
+            IngestionPipeline.Result result = fullSync && ingestionWorkQueue.isEnabled()
+                ? ingestionWorkQueue.runFullSync(jobStatus.getId(), syncGeneration, jobStatus::isCancelRequested)
+                : ingestionPipeline.run(jobStatus.getId(), null, maxRecords, syncGeneration,
+                    jobStatus::isCancelRequested, IngestionPipeline.ProgressListener.forJob(jobStatus));
+            UpsertStats upsertStats = result.getUpsertStats();
+            result.getStages().forEach(jobStatus::addStage);
             
-            // Step 3: Bulk upsert records
-            logger.info("💾 STEP 3: Performing bulk upsert to database...");
-            UpsertStats upsertStats = issueService.upsertBulk(mappedRecords);
+            jobStatus.setTotalFetched(result.getFetched());
+            jobStatus.addErrors(result.getErrorSummary());
             jobStatus.setInserted(upsertStats.getInserted());
             jobStatus.setUpdated(upsertStats.getUpdated());
             jobStatus.setFailed(upsertStats.getFailed());
             
+            logger.info("✅ Fetched {} tickets, mapped {}", result.getFetched(), result.getMapped());
             logger.info("✅ Upsert completed - Inserted: {}, Updated: {}, Failed: {}", 
                        upsertStats.getInserted(), upsertStats.getUpdated(), upsertStats.getFailed());
             
             // Update metrics
+            meterRegistry.counter("qira.ingestion.fetched").increment(result.getFetched());
             meterRegistry.counter("qira.ingestion.inserted").increment(upsertStats.getInserted());
             meterRegistry.counter("qira.ingestion.updated").increment(upsertStats.getUpdated());
             meterRegistry.counter("qira.ingestion.failed").increment(upsertStats.getFailed());
             
+            // Tombstone tickets QIRA no longer returns; only safe if every fetched ticket was written
+            if (syncGeneration != null) {
+                if (result.isComplete() && result.getMapped() == result.getFetched() && upsertStats.getFailed() == 0) {
+                    JobStage sweepStage = JobStage.start("sweep");
+                    int swept = issueSweepService.sweep(syncGeneration, result.getMapped());
+                    jobStatus.addStage(sweepStage.addRecords(swept).finish());
+                    // Every change QIRA had when this sync started is in; incremental syncs continue from here
+                    incrementalSyncService.advanceWatermark(jobStatus.getStartedAt());
+                    meterRegistry.counter("qira.ingestion.tombstoned").increment(swept);
+                } else {
+                    logger.warn("Skipping deleted-ticket sweep: {} of {} tickets mapped, {} failed upserts, complete: {}",
+                        result.getMapped(), result.getFetched(), upsertStats.getFailed(), result.isComplete());
+                }
+            }
+            // Committed: cached dashboard stats are stale now
+            issueStatsService.invalidate();
+            
             // Step 4: Generate report for last month
             logger.info("📊 STEP 4: Generating monthly report...");
-            OffsetDateTime lastMonthStart = YearMonth.now().minusMonths(1).atDay(1).atStartOfDay().atOffset(OffsetDateTime.now().getOffset());
-            OffsetDateTime lastMonthEnd = YearMonth.now().atDay(1).atStartOfDay().atOffset(OffsetDateTime.now().getOffset()).minusNanos(1);
-            
-            List<IssueRecord> reportRecords = issueService.findByDateRange(lastMonthStart, lastMonthEnd);
-            logger.info("Found {} records from last month for report", reportRecords.size());
+            // UTC months, like the created months of the stats rollup
+            YearMonth lastMonth = YearMonth.now(ZoneOffset.UTC).minusMonths(1);
+            OffsetDateTime lastMonthStart = lastMonth.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+            OffsetDateTime lastMonthEnd = lastMonth.plusMonths(1).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
             
             // Create report directory if needed
             Path reportDir = Paths.get(reportOutputDir);
@@ -165,10 +144,14 @@ public class IngestionOrchestrator {
             }
             
             String fileName = String.format("QIRA_Report_%s.xlsx", 
-                YearMonth.now().minusMonths(1).format(DateTimeFormatter.ofPattern("yyyy-MM")));
+                lastMonth.format(DateTimeFormatter.ofPattern("yyyy-MM")));
             Path reportPath = reportDir.resolve(fileName);
             
-            reportService.generateExcel(reportRecords, reportPath);
+            // Read from the primary: the report must include the rows upserted moments ago
+            JobStage reportStage = JobStage.start("report");
+            ReplicaRoutingDataSource.primaryScope(
+                () -> reportService.generateExcel(lastMonthStart, lastMonthEnd, null, reportPath));
+            jobStatus.addStage(reportStage.addBytes(Files.size(reportPath)).finish());
             logger.info("✅ Report generated successfully: {}", reportPath);
             
             // Step 5: Send email with report (DISABLED)
@@ -202,7 +185,8 @@ public class IngestionOrchestrator {
             jobStatus.markCompleted();
             
             // Update metrics
-            meterRegistry.timer("qira.ingestion.duration").record(jobStatus.getDurationSeconds(), java.util.concurrent.TimeUnit.SECONDS);
+            meterRegistry.timer("qira.ingestion.duration")
+                .record(Duration.between(jobStatus.getStartedAt(), jobStatus.getFinishedAt()));
             
             logger.info("╔══════════════════════════════════════════════════════════╗");
             logger.info("║    QIRA INGESTION JOB COMPLETED SUCCESSFULLY ✅         ║");
@@ -214,7 +198,14 @@ public class IngestionOrchestrator {
                        jobStatus.getInserted(), 
                        jobStatus.getUpdated(), 
                        jobStatus.getFailed());
-            
+        
+        } catch (CancellationException e) {
+            // Pages written before the cancel stay written; no sweep and no report for a partial run
+            logger.warn("Ingestion job {} cancelled: {}", jobStatus.getId(), e.getMessage());
+            jobStatus.markCancelled();
+            issueStatsService.invalidate();
+            meterRegistry.counter("qira.ingestion.job.cancelled").increment();
+        
         } catch (Exception e) {
             logger.error("╔══════════════════════════════════════════════════════════╗");
             logger.error("║    QIRA INGESTION JOB FAILED ❌                         ║");
@@ -249,11 +240,10 @@ public class IngestionOrchestrator {
             
             // Update failure metric
             meterRegistry.counter("qira.ingestion.job.failed").increment();
-            
+        
         } finally {
-            isRunning = false;
             logger.info("==========================================================");
-            logger.info("Job execution completed, releasing lock");
+            logger.info("Job {} finished with status {}", jobStatus.getId(), jobStatus.getStatus());
             logger.info("==========================================================");
         }
         
@@ -267,13 +257,6 @@ public class IngestionOrchestrator {
         return lastJobStatus;
     }
     
-    /**
-     * Check if ingestion is currently running
-     */
-    public boolean isRunning() {
-        return isRunning;
-    }
-    
     /**
      * Parse comma-separated email recipients
      */
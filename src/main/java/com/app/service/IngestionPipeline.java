@@ -0,0 +1,749 @@
+package com.app.service;
+
+import com.app.client.QiraClient;
+import com.app.dto.ErrorSummary;
+import com.app.dto.JobStage;
+import com.app.dto.JobStatus;
+import com.app.dto.QiraPageResponse;
+import com.app.dto.QiraTicket;
+import com.app.dto.UpsertStats;
+import com.app.model.IngestionDeadLetter;
+import com.app.model.IssueRecord;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Fetch → map → upsert pipeline. The fetch and map stages run on their own threads and hand
+ * pages on through bounded queues, so page N+1 downloads while page N is mapped and earlier
+ * pages are written. A full queue blocks the stage feeding it, which keeps at most
+ * queue-capacity pages per queue in memory. The upsert stage runs on the calling thread and
+ * writes whatever pages have queued up in one upsertBulk call.
+ * Cancellation is checked at page boundaries in every stage.
+ * Each stage records its work per page (qira.ingestion.page.fetch, .page.map, .upsert.batch)
+ * and the time it spent blocked on a queue (qira.ingestion.stage.wait, tagged by stage); the
+ * slow stage is the one whose neighbours wait.
+ * Tickets that fail to map are counted by category in the result and stored with their payload
+ * in the dead-letter table.
+ * Pages in flight are also charged to the run's PipelineMemoryBudget allowance by their response
+ * size: a page that does not fit is spilled to a temp file for the map stage to read back, or,
+ * with no room on disk either, fetching pauses until the upsert stage has written enough.
+ */
+@Component
+public class IngestionPipeline {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IngestionPipeline.class);
+    
+    // Error categories of the map stage
+    static final String MISSING_ID = "MAPPING_MISSING_ID";
+    static final String MAPPING_EXCEPTION = "MAPPING_EXCEPTION";
+    
+    // How often a blocked stage checks whether another stage has failed
+    private static final long POLL_MILLIS = 200;
+    
+    private final QiraClient qiraClient;
+    private final TicketMapper ticketMapper;
+    private final IssueService issueService;
+    private final DeadLetterService deadLetterService;
+    private final PipelineMemoryBudget memoryBudget;
+    private final int pageSize;
+    private final int queueCapacity;
+    private final ExecutorService stageThreads = Executors.newCachedThreadPool(new StageThreadFactory());
+    
+    private final Timer fetchTimer;
+    private final Timer mapTimer;
+    private final Timer upsertTimer;
+    private final Timer fetchWaitTimer;
+    private final Timer mapWaitTimer;
+    private final Timer upsertWaitTimer;
+    private final DistributionSummary pageBytes;
+    
+    public IngestionPipeline(
+            QiraClient qiraClient,
+            TicketMapper ticketMapper,
+            IssueService issueService,
+            DeadLetterService deadLetterService,
+            PipelineMemoryBudget memoryBudget,
+            MeterRegistry meterRegistry,
+            @Value("${ingestion.page-size:100}") int pageSize,
+            @Value("${ingestion.pipeline.queue-capacity:4}") int queueCapacity) {
+        this.qiraClient = qiraClient;
+        this.ticketMapper = ticketMapper;
+        this.issueService = issueService;
+        this.deadLetterService = deadLetterService;
+        this.memoryBudget = memoryBudget;
+        this.pageSize = Math.max(1, pageSize);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        
+        this.fetchTimer = Timer.builder("qira.ingestion.page.fetch")
+            .description("QIRA search request per page, including retries")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.mapTimer = Timer.builder("qira.ingestion.page.map")
+            .description("Mapping one page of tickets to records")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.upsertTimer = Timer.builder("qira.ingestion.upsert.batch")
+            .description("One upsertBulk call over the pages queued for the upsert stage")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.fetchWaitTimer = waitTimer(meterRegistry, "fetch");
+        this.mapWaitTimer = waitTimer(meterRegistry, "map");
+        this.upsertWaitTimer = waitTimer(meterRegistry, "upsert");
+        this.pageBytes = DistributionSummary.builder("qira.ingestion.page.bytes")
+            .description("QIRA search response size per page")
+            .baseUnit("bytes")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+    
+    private static Timer waitTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("qira.ingestion.stage.wait")
+            .description("Time a pipeline stage spent blocked on its input or output queue")
+            .tag("stage", stage)
+            .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        stageThreads.shutdownNow();
+    }
+    
+    /**
+     * Fetch, map and upsert every ticket matching the configured JQL
+     * @param jqlFilter Extra JQL clause ANDed with the configured query, null for none
+     * @param maxRecords Maximum number of tickets to fetch (null or <= 0 for all)
+     * @param syncGeneration Generation to stamp on written rows, null to not stamp
+     * @throws IllegalStateException if the fetch or map stage fails; pages already
+     *         written stay written
+     */
+    public Result run(String jqlFilter, Integer maxRecords, Long syncGeneration) {
+        return run(jqlFilter, maxRecords, syncGeneration, () -> false);
+    }
+    
+    /**
+     * Run the pipeline, stopping at the next page boundary once cancelled returns true
+     * @throws CancellationException if the run was cancelled; pages already written stay written
+     */
+    public Result run(String jqlFilter, Integer maxRecords, Long syncGeneration, BooleanSupplier cancelled) {
+        return run(jqlFilter, maxRecords, syncGeneration, cancelled, ProgressListener.NONE);
+    }
+    
+    /**
+     * Run the pipeline, reporting progress as pages pass each stage
+     * @param listener Called from the stage threads; must not block
+     */
+    public Result run(String jqlFilter, Integer maxRecords, Long syncGeneration, BooleanSupplier cancelled,
+                      ProgressListener listener) {
+        return run(null, jqlFilter, maxRecords, syncGeneration, cancelled, listener);
+    }
+    
+    /**
+     * @param jobId Job the run belongs to, stored with its dead letters; null if none
+     */
+    public Result run(String jobId, String jqlFilter, Integer maxRecords, Long syncGeneration,
+                      BooleanSupplier cancelled, ProgressListener listener) {
+        return execute(new Run(jobId, jqlFilter, null,
+            maxRecords != null && maxRecords > 0 ? maxRecords : Integer.MAX_VALUE, cancelled, listener), syncGeneration);
+    }
+    
+    /**
+     * Fetch, map and upsert every ticket updated at or after since, oldest change first.
+     * Pages are read by keyset rather than offset: each search restarts at the minute of the last
+     * ticket read and drops the tickets already read at the same updated time. A ticket edited
+     * while the run pages through moves to the end of the search, which would shift the next
+     * ticket past an offset; here it is simply read again later. Only pages whose tickets all
+     * share one minute are followed by offset.
+     */
+    public Result runUpdatedSince(String jobId, OffsetDateTime since, BooleanSupplier cancelled,
+                                  ProgressListener listener) {
+        return execute(new Run(jobId, null, since, Integer.MAX_VALUE, cancelled, listener), null);
+    }
+    
+    private Result execute(Run run, Long syncGeneration) {
+        Future<?> fetchStage = stageThreads.submit(run::fetch);
+        Future<?> mapStage = stageThreads.submit(run::map);
+        try {
+            run.upsert(syncGeneration);
+            fetchStage.get();
+            mapStage.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new IllegalStateException("Ingestion pipeline failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ingestion pipeline interrupted", e);
+        } finally {
+            run.abort();
+            fetchStage.cancel(true);
+            mapStage.cancel(true);
+            run.close();
+        }
+        if (run.cancelled) {
+            throw new CancellationException("Ingestion cancelled after " + run.fetched.get() + " tickets");
+        }
+        
+        logger.info("Pipeline finished: {} tickets fetched in {} pages ({} bytes, {} spilled), {} mapped, {}",
+            run.fetched.get(), run.pages.get(), run.bytes.get(), run.spilledPages.get(), run.mapped.get(), run.stats);
+        return new Result(run.fetched.get(), run.mapped.get(), run.errors, run.stats, true,
+            List.of(run.fetchStage, run.mapStage, run.upsertStage));
+    }
+    
+    /**
+     * Progress callbacks, one per page or upsert batch
+     */
+    public interface ProgressListener {
+        ProgressListener NONE = new ProgressListener() {
+        };
+        
+        /**
+         * Live progress of a job, shown by /admin/jobs while it runs
+         */
+        static ProgressListener forJob(JobStatus job) {
+            return new ProgressListener() {
+                @Override
+                public void pageFetched(int tickets, long bytes, Integer expectedTotal) {
+                    job.recordPageFetched(tickets, bytes, expectedTotal);
+                }
+                
+                @Override
+                public void pageMapped(int records) {
+                    job.recordMapped(records);
+                }
+                
+                @Override
+                public void batchWritten(int records) {
+                    job.recordWritten(records);
+                }
+            };
+        }
+        
+        /**
+         * @param expectedTotal Tickets QIRA reports for the query, capped by maxRecords; null if unknown
+         */
+        default void pageFetched(int tickets, long bytes, Integer expectedTotal) {
+        }
+        
+        default void pageMapped(int records) {
+        }
+        
+        default void batchWritten(int records) {
+        }
+    }
+    
+    /**
+     * Outcome of one pipeline run
+     */
+    public static class Result {
+        private final int fetched;
+        private final int mapped;
+        private final ErrorSummary errors;
+        private final UpsertStats upsertStats;
+        private final boolean complete;
+        private final List<JobStage> stages;
+        
+        Result(int fetched, int mapped, ErrorSummary errors, UpsertStats upsertStats) {
+            this(fetched, mapped, errors, upsertStats, true, List.of());
+        }
+        
+        Result(int fetched, int mapped, ErrorSummary errors, UpsertStats upsertStats, boolean complete,
+               List<JobStage> stages) {
+            this.fetched = fetched;
+            this.mapped = mapped;
+            this.errors = errors;
+            this.upsertStats = upsertStats;
+            this.complete = complete;
+            this.stages = List.copyOf(stages);
+        }
+        
+        public int getFetched() {
+            return fetched;
+        }
+        
+        public int getMapped() {
+            return mapped;
+        }
+        
+        /** Messages of the most recent per-ticket errors */
+        public List<String> getErrors() {
+            return errors.getMessages();
+        }
+        
+        /** Per-ticket errors by category, with samples; details are in the dead-letter table */
+        public ErrorSummary getErrorSummary() {
+            return errors;
+        }
+        
+        public UpsertStats getUpsertStats() {
+            return upsertStats;
+        }
+        
+        /** False if part of the requested tickets was never fetched (a failed distributed work item) */
+        public boolean isComplete() {
+            return complete;
+        }
+        
+        /** Timings of the fetch, map and upsert stages */
+        public List<JobStage> getStages() {
+            return stages;
+        }
+    }
+    
+    /**
+     * A blocking charge to a run's memory allowance
+     */
+    private interface Charge {
+        boolean charge() throws InterruptedException;
+    }
+    
+    /**
+     * A page on its way through the stages, with what it is charged to the memory budget
+     */
+    private static class Page<T> {
+        private final List<T> items;
+        private final long jsonBytes;
+        // Charged while the page is in memory; 0 while it waits in spillFile
+        private final long heapBytes;
+        private final Path spillFile;
+        
+        Page(List<T> items, long jsonBytes, long heapBytes, Path spillFile) {
+            this.items = items;
+            this.jsonBytes = jsonBytes;
+            this.heapBytes = heapBytes;
+            this.spillFile = spillFile;
+        }
+    }
+    
+    /**
+     * State shared by the three stages of one run
+     */
+    private class Run {
+        // End-of-stream markers, compared by identity
+        private final Page<JsonNode> endOfTickets = new Page<>(List.of(), 0, 0, null);
+        private final Page<IssueRecord> endOfRecords = new Page<>(List.of(), 0, 0, null);
+        
+        // Spilled pages queue up without limit (the spill cap bounds them); at most queueCapacity
+        // pages in memory, each holding one of memorySlots
+        private final BlockingQueue<Page<JsonNode>> ticketPages = new LinkedBlockingQueue<>();
+        private final Semaphore memorySlots = new Semaphore(queueCapacity);
+        private final BlockingQueue<Page<IssueRecord>> recordPages = new ArrayBlockingQueue<>(queueCapacity);
+        // Spill files not read yet, with their size, deleted by close()
+        private final Map<Path, Long> spillFiles = new ConcurrentHashMap<>();
+        private final AtomicInteger spilledPages = new AtomicInteger();
+        private final PipelineMemoryBudget.Allowance memory = memoryBudget.allowance();
+        
+        private final String jobId;
+        private final String jqlFilter;
+        // Start of a keyset run over updated, null to page jqlFilter by offset
+        private final OffsetDateTime updatedSince;
+        private final int maxRecords;
+        private final AtomicInteger fetched = new AtomicInteger();
+        private final AtomicInteger mapped = new AtomicInteger();
+        private final AtomicInteger pages = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final ErrorSummary errors = new ErrorSummary();
+        // Map stage only
+        private boolean mappingExceptionLogged;
+        private final UpsertStats stats = new UpsertStats();
+        // Each written only by its own stage thread, read after the stages have joined
+        private final JobStage fetchStage = JobStage.start("fetch");
+        private final JobStage mapStage = JobStage.start("map");
+        private final JobStage upsertStage = JobStage.start("upsert");
+        private final BooleanSupplier cancelRequested;
+        private final ProgressListener listener;
+        private volatile boolean aborted;
+        private volatile boolean cancelled;
+        
+        Run(String jobId, String jqlFilter, OffsetDateTime updatedSince, int maxRecords, BooleanSupplier cancelRequested,
+            ProgressListener listener) {
+            this.jobId = jobId;
+            this.jqlFilter = jqlFilter;
+            this.updatedSince = updatedSince;
+            this.maxRecords = maxRecords;
+            this.cancelRequested = cancelRequested;
+            this.listener = listener;
+        }
+        
+        void abort() {
+            aborted = true;
+        }
+        
+        /**
+         * Return this run's share of the memory budget and delete its unread spill files
+         */
+        void close() {
+            memory.close();
+            // Removed one by one: the map stage may still be claiming a file
+            spillFiles.keySet().forEach(file -> {
+                Long jsonBytes = spillFiles.remove(file);
+                if (jsonBytes != null) {
+                    memoryBudget.discard(file, jsonBytes);
+                }
+            });
+        }
+        
+        /**
+         * Page-boundary check: true if the run was aborted or has just been cancelled
+         */
+        private boolean stopped() {
+            if (!aborted && cancelRequested.getAsBoolean()) {
+                cancelled = true;
+                abort();
+            }
+            return aborted;
+        }
+        
+        void fetch() {
+            try {
+                int startAt = 0;
+                OffsetDateTime since = updatedSince;
+                // Keyset runs: updated time of each ticket read at or after since, and the
+                // tickets passed on before the current search started
+                Map<String, OffsetDateTime> read = new HashMap<>();
+                int searchBase = 0;
+                while (fetched.get() < maxRecords && !stopped()) {
+                    int fetchSize = Math.min(pageSize, maxRecords - fetched.get());
+                    int pageStart = startAt;
+                    String jql = since != null ? qiraClient.updatedSinceJql(since) : jqlFilter;
+                    QiraPageResponse response = fetchTimer.record(() -> jql == null
+                        ? qiraClient.fetchTickets(pageStart, fetchSize)
+                        : qiraClient.searchTickets(jql, pageStart, fetchSize, "*all"));
+                    
+                    List<QiraTicket> items = response.getItems();
+                    if (items == null || items.isEmpty()) {
+                        logger.info("No items at startAt {}, stopping", startAt);
+                        break;
+                    }
+                    List<JsonNode> tickets = new ArrayList<>(items.size());
+                    OffsetDateTime lastUpdated = null;
+                    for (QiraTicket item : items) {
+                        JsonNode ticket = item.getRawData();
+                        if (since != null) {
+                            lastUpdated = ticketMapper.updatedAt(ticket);
+                            String key = ticket.path("key").asText(null);
+                            if (key != null && lastUpdated != null && lastUpdated.equals(read.put(key, lastUpdated))) {
+                                continue;
+                            }
+                        }
+                        tickets.add(ticket);
+                    }
+                    fetched.addAndGet(tickets.size());
+                    pages.incrementAndGet();
+                    bytes.addAndGet(response.getResponseBytes());
+                    pageBytes.record(response.getResponseBytes());
+                    Integer expected = response.getTotal() != null
+                        ? (int) Math.min((long) searchBase + response.getTotal(), maxRecords) : null;
+                    fetchStage.addRecords(tickets.size()).addBytes(response.getResponseBytes());
+                    listener.pageFetched(tickets.size(), response.getResponseBytes(), expected);
+                    if (!tickets.isEmpty()) {
+                        Page<JsonNode> page = admit(tickets, response.getResponseBytes());
+                        if (page == null) {
+                            return;
+                        }
+                        ticketPages.add(page);
+                    }
+                    
+                    if (items.size() < fetchSize || !response.hasMorePages()) {
+                        break;
+                    }
+                    // JQL dates have minute precision, so the next search starts at the last ticket's minute
+                    OffsetDateTime next = lastUpdated != null ? lastUpdated.truncatedTo(ChronoUnit.MINUTES) : null;
+                    if (next != null && next.isAfter(since)) {
+                        since = next;
+                        OffsetDateTime from = next;
+                        read.values().removeIf(updated -> updated.isBefore(from));
+                        searchBase = fetched.get();
+                        startAt = 0;
+                    } else {
+                        startAt += fetchSize;
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.error("Fetch stage failed after {} tickets", fetched.get(), e);
+                abort();
+                throw e;
+            } finally {
+                ticketPages.add(endOfTickets);
+                fetchStage.finish();
+            }
+        }
+        
+        void map() {
+            try {
+                Page<JsonNode> page;
+                while ((page = take(ticketPages, mapWaitTimer, mapStage)) != null && page != endOfTickets && !stopped()) {
+                    List<JsonNode> tickets;
+                    long heapBytes;
+                    if (page.spillFile != null) {
+                        heapBytes = memoryBudget.estimate(page.jsonBytes);
+                        long bytes = heapBytes;
+                        // Not in spillFiles any more once close() has discarded it
+                        if (!await(() -> memory.chargeHead(bytes, () -> aborted), mapWaitTimer, mapStage)
+                                || spillFiles.remove(page.spillFile) == null) {
+                            return;
+                        }
+                        tickets = memoryBudget.load(page.spillFile, page.jsonBytes);
+                    } else {
+                        memorySlots.release();
+                        memory.dequeued(page.heapBytes);
+                        tickets = page.items;
+                        heapBytes = page.heapBytes;
+                    }
+                    long mapStart = System.nanoTime();
+                    List<IssueRecord> records = new ArrayList<>(tickets.size());
+                    List<IngestionDeadLetter> deadLetters = new ArrayList<>();
+                    for (JsonNode ticket : tickets) {
+                        try {
+                            IssueRecord record = ticketMapper.map(ticket);
+                            if (record != null) {
+                                records.add(record);
+                            } else {
+                                mappingFailed(ticket, MISSING_ID, "Failed to map ticket (missing qiraId)", deadLetters);
+                            }
+                        } catch (Exception e) {
+                            // One stack trace per category is enough; the rest is counted and dead-lettered
+                            if (!mappingExceptionLogged) {
+                                logger.error("Error mapping ticket", e);
+                                mappingExceptionLogged = true;
+                            }
+                            mappingFailed(ticket, MAPPING_EXCEPTION, "Mapping error: " + e.getMessage(), deadLetters);
+                        }
+                    }
+                    deadLetterService.record(deadLetters);
+                    mapTimer.record(System.nanoTime() - mapStart, TimeUnit.NANOSECONDS);
+                    mapped.addAndGet(records.size());
+                    mapStage.addRecords(records.size());
+                    listener.pageMapped(records.size());
+                    if (records.isEmpty()) {
+                        memory.release(heapBytes);
+                    } else if (!put(recordPages, new Page<>(records, page.jsonBytes, heapBytes, null), mapWaitTimer, mapStage)) {
+                        return;
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.error("Map stage failed", e);
+                abort();
+                throw e;
+            } finally {
+                put(recordPages, endOfRecords, mapWaitTimer, mapStage);
+                mapStage.addErrors((int) errors.getTotal()).finish();
+            }
+        }
+        
+        void upsert(Long syncGeneration) {
+            try {
+                Page<IssueRecord> page;
+                while ((page = take(recordPages, upsertWaitTimer, upsertStage)) != null && page != endOfRecords && !stopped()) {
+                    // Write every page that queued up while the previous batch was being written
+                    List<IssueRecord> batch = new ArrayList<>(page.items);
+                    long batchHeapBytes = page.heapBytes;
+                    List<Page<IssueRecord>> queued = new ArrayList<>();
+                    recordPages.drainTo(queued);
+                    boolean end = false;
+                    for (Page<IssueRecord> next : queued) {
+                        if (next == endOfRecords) {
+                            end = true;
+                            break;
+                        }
+                        batch.addAll(next.items);
+                        batchHeapBytes += next.heapBytes;
+                    }
+                    UpsertStats batchStats = upsertTimer.record(() -> issueService.upsertBulk(batch, syncGeneration));
+                    memory.release(batchHeapBytes);
+                    stats.merge(batchStats);
+                    upsertStage.addRecords(batch.size() - batchStats.getFailed()).addErrors(batchStats.getFailed());
+                    listener.batchWritten(batch.size());
+                    if (end) {
+                        break;
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.error("Upsert stage failed", e);
+                abort();
+                throw e;
+            } finally {
+                upsertStage.finish();
+            }
+        }
+        
+        /**
+         * Charge a fetched page to the memory budget: kept in memory if a queue slot and the
+         * budget allow, else spilled to disk, else held until both allow
+         * @return null if the run was aborted while waiting
+         */
+        private Page<JsonNode> admit(List<JsonNode> tickets, long jsonBytes) {
+            long heapBytes = memoryBudget.estimate(jsonBytes);
+            boolean slot = memorySlots.tryAcquire();
+            if (slot && memory.tryChargeQueued(heapBytes)) {
+                return new Page<>(tickets, jsonBytes, heapBytes, null);
+            }
+            // The map stage is behind or memory is short: park the page on disk and keep fetching
+            Path file = memoryBudget.spill(tickets, jsonBytes);
+            if (file != null) {
+                if (slot) {
+                    memorySlots.release();
+                }
+                spillFiles.put(file, jsonBytes);
+                if (spilledPages.incrementAndGet() == 1) {
+                    logger.info("Ingestion over its memory budget or queue, spilling pages to disk");
+                }
+                return new Page<>(null, jsonBytes, 0, file);
+            }
+            // No room on disk either: pause until the map stage takes a page and the upsert stage frees memory
+            long start = System.nanoTime();
+            try {
+                while (!slot) {
+                    if (aborted) {
+                        return null;
+                    }
+                    slot = memorySlots.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abort();
+                return null;
+            } finally {
+                long waited = System.nanoTime() - start;
+                fetchWaitTimer.record(waited, TimeUnit.NANOSECONDS);
+                fetchStage.addWaitNanos(waited);
+            }
+            if (!await(() -> memory.chargeQueued(heapBytes, () -> aborted), fetchWaitTimer, fetchStage)) {
+                memorySlots.release();
+                return null;
+            }
+            return new Page<>(tickets, jsonBytes, heapBytes, null);
+        }
+        
+        /**
+         * Wait for a memory budget charge, counting the time as the stage's wait
+         * @return false if the run was aborted first
+         */
+        private boolean await(Charge charge, Timer waitTimer, JobStage stage) {
+            long start = System.nanoTime();
+            try {
+                return charge.charge();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abort();
+                return false;
+            } finally {
+                long waited = System.nanoTime() - start;
+                waitTimer.record(waited, TimeUnit.NANOSECONDS);
+                stage.addWaitNanos(waited);
+            }
+        }
+        
+        private void mappingFailed(JsonNode ticket, String category, String message,
+                                   List<IngestionDeadLetter> deadLetters) {
+            String qiraId = ticketKey(ticket);
+            errors.add(category, qiraId, message);
+            deadLetters.add(new IngestionDeadLetter(jobId, qiraId, category, message,
+                ticket != null ? ticket.toString() : null));
+        }
+        
+        /**
+         * Blocking put that gives up once another stage has failed
+         * @return false if the run was aborted
+         */
+        private <T> boolean put(BlockingQueue<T> queue, T item, Timer waitTimer, JobStage stage) {
+            long start = System.nanoTime();
+            try {
+                while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (aborted) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abort();
+                return false;
+            } finally {
+                long waited = System.nanoTime() - start;
+                waitTimer.record(waited, TimeUnit.NANOSECONDS);
+                stage.addWaitNanos(waited);
+            }
+        }
+        
+        /**
+         * Blocking take that gives up once another stage has failed
+         * @return null if the run was aborted
+         */
+        private <T> T take(BlockingQueue<T> queue, Timer waitTimer, JobStage stage) {
+            long start = System.nanoTime();
+            try {
+                T item;
+                while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                    if (aborted) {
+                        return null;
+                    }
+                }
+                return item;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abort();
+                return null;
+            } finally {
+                long waited = System.nanoTime() - start;
+                waitTimer.record(waited, TimeUnit.NANOSECONDS);
+                stage.addWaitNanos(waited);
+            }
+        }
+    }
+    
+    /**
+     * Best-effort ticket key for error reports, null if the ticket has none
+     */
+    private static String ticketKey(JsonNode ticket) {
+        if (ticket == null) {
+            return null;
+        }
+        for (String field : new String[] {"key", "qiraId", "Qira id", "id"}) {
+            JsonNode value = ticket.get(field);
+            if (value != null && !value.isNull() && !value.asText().isBlank()) {
+                return value.asText();
+            }
+        }
+        return null;
+    }
+    
+    private static class StageThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ingest-stage-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
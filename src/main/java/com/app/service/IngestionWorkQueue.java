@@ -0,0 +1,276 @@
+package com.app.service;
+
+import com.app.client.QiraClient;
+import com.app.dto.ErrorSummary;
+import com.app.dto.JobStage;
+import com.app.dto.QiraPageResponse;
+import com.app.dto.UpsertStats;
+import com.app.model.IngestionWorkItem;
+import com.app.model.IssueRecord;
+import com.app.repository.IngestionWorkItemRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Distributed full sync through the ingestion_work_items table.
+ * The node running the full sync job splits it into created-date windows; every node with
+ * ingestion.distributed.enabled polls the table, claims items with FOR UPDATE SKIP LOCKED and
+ * runs each window through the local IngestionPipeline under a renewed lease. Items of a worker
+ * that dies become claimable again once their lease runs out. The coordinator waits until no
+ * item is open and then sweeps and reports as for a local sync.
+ */
+@Service
+public class IngestionWorkQueue {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IngestionWorkQueue.class);
+    private static final String WORK_ITEM_FAILED = "WORK_ITEM_FAILED";
+    
+    private final IngestionWorkItemRepository repository;
+    private final IngestionPipeline ingestionPipeline;
+    private final QiraClient qiraClient;
+    private final TicketMapper ticketMapper;
+    private final String nodeId;
+    
+    @Value("${ingestion.distributed.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${ingestion.distributed.window-months:1}")
+    private int windowMonths;
+    
+    @Value("${ingestion.distributed.lease-seconds:120}")
+    private long leaseSeconds;
+    
+    @Value("${ingestion.distributed.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${ingestion.distributed.poll-ms:5000}")
+    private long pollMillis;
+    
+    @Value("${ingestion.distributed.retention-days:7}")
+    private int retentionDays;
+    
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ingestion-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean draining = new AtomicBoolean();
+    // Items this node is processing, and those whose lease was found cancelled or taken over
+    private final Set<Long> held = ConcurrentHashMap.newKeySet();
+    private final Set<Long> lost = ConcurrentHashMap.newKeySet();
+    
+    public IngestionWorkQueue(
+            IngestionWorkItemRepository repository,
+            IngestionPipeline ingestionPipeline,
+            QiraClient qiraClient,
+            TicketMapper ticketMapper,
+            ClusterLockService clusterLock) {
+        this.repository = repository;
+        this.ingestionPipeline = ingestionPipeline;
+        this.qiraClient = qiraClient;
+        this.ticketMapper = ticketMapper;
+        this.nodeId = clusterLock.getNodeId();
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Coordinator side of a distributed full sync: plan one work item per window, then wait
+     * until every item is done or has failed for good
+     * @param runId Id of the job running the sync
+     * @param cancelled Checked while waiting; cancels the run's open items
+     * @return Totals over all items; incomplete if any item failed
+     */
+    IngestionPipeline.Result runFullSync(String runId, long syncGeneration, BooleanSupplier cancelled) {
+        // Items of runs abandoned by a dead coordinator must not hold up or mix into this one
+        int abandoned = repository.cancelOpenItems();
+        if (abandoned > 0) {
+            logger.warn("Cancelled {} open work items of earlier runs", abandoned);
+        }
+        repository.deleteCreatedBefore(OffsetDateTime.now().minusDays(retentionDays));
+        
+        JobStage stage = JobStage.start("distributed");
+        List<OffsetDateTime[]> windows = planWindows();
+        for (OffsetDateTime[] window : windows) {
+            repository.insertItem(runId, syncGeneration, window[0], window[1]);
+        }
+        logger.info("Distributed sync {}: queued {} work items of {} month(s)", runId, windows.size(), windowMonths);
+        wake();
+        
+        Object[] totals;
+        while (true) {
+            repository.failAbandoned(runId, maxAttempts);
+            totals = repository.summarizeRun(runId).get(0);
+            long open = ((Number) totals[0]).longValue();
+            if (open == 0) {
+                break;
+            }
+            if (cancelled.getAsBoolean()) {
+                repository.cancelRun(runId);
+                throw new CancellationException("Distributed sync cancelled with " + open + " work items open");
+            }
+            logger.info("Distributed sync {}: {} of {} work items open, {} tickets fetched so far",
+                runId, open, windows.size(), totals[2]);
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                repository.cancelRun(runId);
+                throw new CancellationException("Distributed sync interrupted");
+            }
+        }
+        
+        ErrorSummary errors = new ErrorSummary();
+        for (IngestionWorkItem item : repository.findFailedItems(runId)) {
+            errors.add(WORK_ITEM_FAILED, null, String.format("Work item [%s, %s) %s after %d attempts: %s",
+                item.getWindowFrom(), item.getWindowTo(), item.getStatus().toLowerCase(), item.getAttempts(),
+                item.getLastError()));
+        }
+        UpsertStats stats = new UpsertStats();
+        stats.addInserted(((Number) totals[4]).intValue());
+        stats.addUpdated(((Number) totals[5]).intValue());
+        stats.addSkipped(((Number) totals[6]).intValue());
+        stats.addFailed(((Number) totals[7]).intValue());
+        boolean complete = ((Number) totals[1]).longValue() == 0;
+        // The stages ran on the worker nodes; the coordinator only sees the run as a whole
+        stage.addRecords(stats.getInserted() + stats.getUpdated() + stats.getSkipped())
+            .addErrors(stats.getFailed() + (int) errors.getTotal()).finish();
+        return new IngestionPipeline.Result(((Number) totals[2]).intValue(), ((Number) totals[3]).intValue(),
+            errors, stats, complete, List.of(stage));
+    }
+    
+    /**
+     * Worker side: look for claimable items on every node
+     */
+    @Scheduled(fixedDelayString = "${ingestion.distributed.poll-ms:5000}")
+    public void poll() {
+        if (enabled) {
+            wake();
+        }
+    }
+    
+    /**
+     * Extend the leases of the items this node is processing
+     */
+    @Scheduled(fixedDelayString = "${ingestion.lock.heartbeat-ms:30000}")
+    public void heartbeat() {
+        if (held.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = Set.copyOf(held);
+        try {
+            List<Long> renewed = repository.renewLeases(ids, nodeId, leaseSeconds);
+            for (Long id : ids) {
+                if (!renewed.contains(id) && held.contains(id)) {
+                    logger.warn("Work item {} was cancelled or taken over by another node; stopping it", id);
+                    lost.add(id);
+                }
+            }
+        } catch (RuntimeException e) {
+            // The leases are still valid until they run out; the next heartbeat retries
+            logger.warn("Failed to renew work item leases: {}", e.getMessage());
+        }
+    }
+    
+    private void wake() {
+        if (draining.compareAndSet(false, true)) {
+            worker.execute(this::drain);
+        }
+    }
+    
+    private void drain() {
+        try {
+            Optional<IngestionWorkItem> item;
+            while (!Thread.currentThread().isInterrupted()
+                    && (item = repository.claimNext(nodeId, leaseSeconds, maxAttempts)).isPresent()) {
+                process(item.get());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Work queue polling failed", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+    
+    private void process(IngestionWorkItem item) {
+        long id = item.getId();
+        logger.info("Processing work item {} [{}, {}) of run {} (attempt {})",
+            id, item.getWindowFrom(), item.getWindowTo(), item.getRunId(), item.getAttempts());
+        held.add(id);
+        try {
+            String windowJql = qiraClient.createdWindowJql(item.getWindowFrom(), item.getWindowTo());
+            IngestionPipeline.Result result = ingestionPipeline.run(item.getRunId(), windowJql, null,
+                item.getSyncGeneration(), () -> lost.contains(id), IngestionPipeline.ProgressListener.NONE);
+            UpsertStats stats = result.getUpsertStats();
+            ErrorSummary errors = result.getErrorSummary();
+            List<String> samples = result.getErrors();
+            String error = errors.isEmpty() ? null : errors.getTotal() + " mapping errors " + errors.getCounts()
+                + ", last: " + samples.get(samples.size() - 1);
+            if (repository.complete(id, nodeId, result.getFetched(), result.getMapped(), stats.getInserted(),
+                    stats.getUpdated(), stats.getSkipped(), stats.getFailed(), error) == 0) {
+                logger.warn("Work item {} finished after its lease was lost; another node redoes it", id);
+            }
+        } catch (CancellationException e) {
+            logger.warn("Work item {} stopped: {}", id, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Work item {} failed", id, e);
+            repository.fail(id, nodeId, e.getMessage(), maxAttempts);
+        } finally {
+            held.remove(id);
+            lost.remove(id);
+        }
+    }
+    
+    /**
+     * Created-month windows (UTC) from the oldest QIRA ticket through the current month
+     */
+    private List<OffsetDateTime[]> planWindows() {
+        List<OffsetDateTime[]> windows = new ArrayList<>();
+        QiraPageResponse oldest = qiraClient.searchTickets("ORDER BY created ASC", 0, 1, "created");
+        if (oldest.getItems() == null || oldest.getItems().isEmpty()) {
+            return windows;
+        }
+        IssueRecord record = ticketMapper.map(oldest.getItems().get(0).getRawData());
+        if (record == null || record.getCreatedAt() == null) {
+            throw new IllegalStateException("Cannot plan distributed sync: oldest QIRA ticket has no created date");
+        }
+        
+        YearMonth month = YearMonth.from(record.getCreatedAt().withOffsetSameInstant(ZoneOffset.UTC));
+        YearMonth end = YearMonth.now(ZoneOffset.UTC).plusMonths(1);
+        int step = Math.max(1, windowMonths);
+        while (month.isBefore(end)) {
+            YearMonth next = month.plusMonths(step).isAfter(end) ? end : month.plusMonths(step);
+            windows.add(new OffsetDateTime[] {
+                month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC),
+                next.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC)
+            });
+            month = next;
+        }
+        return windows;
+    }
+}
@@ -0,0 +1,196 @@
+package com.app.service;
+
+import com.app.dto.IssueFilter;
+import com.app.dto.IssuePage;
+import com.app.dto.IssueSearchHit;
+import com.app.repository.IssueRecordRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filterable, keyset-paginated reads of issue records with sparse field selection
+ */
+@Service
+public class IssueQueryService {
+    
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+    public static final int MAX_SEARCH_SIZE = 100;
+    
+    // Selectable fields (IssueRecord attribute names); raw_json is deliberately not exposed
+    private static final Set<String> SELECTABLE_FIELDS = Set.of(
+        "id", "qiraId", "project", "priority", "issueType", "summary", "description", "reporter",
+        "assignedTeam", "assignee", "status", "dueDate", "createdAt", "resolvedAt", "firstResponseAt",
+        "updatedAt", "relatedJiraTicket", "linkedIssues", "supportCategory", "supportActionDate",
+        "supportActionedBy", "supportPriority", "supportRemark", "comment", "isbnOrderNumber", "bookId",
+        "resolution", "causedByBooks", "doiMultiLine", "erratumDoi", "errorLocationBooks", "errorTypeBooks",
+        "productionSystemBooks", "requestActionBooks", "publicationStatusBooks", "qiraTicketsCategory",
+        "ingestedAt"
+    );
+    
+    // Narrow columns only: detail TEXT columns are returned when requested explicitly
+    private static final List<String> DEFAULT_FIELDS = List.of(
+        "qiraId", "project", "priority", "issueType", "summary", "assignedTeam", "assignee",
+        "status", "createdAt", "updatedAt", "resolvedAt"
+    );
+    
+    private final IssueRecordRepository repository;
+    
+    public IssueQueryService(IssueRecordRepository repository) {
+        this.repository = repository;
+    }
+    
+    /**
+     * Read one page of issues, newest created first, then those without a created date
+     * @param fields Requested fields, null or empty for the defaults
+     * @param cursor Cursor from the previous page, null for the first page
+     * @param limit Page size, capped at MAX_LIMIT
+     * @throws IllegalArgumentException on unknown fields or a malformed cursor
+     */
+    @Transactional(readOnly = true)
+    public IssuePage findPage(IssueFilter filter, List<String> fields, String cursor, Integer limit) {
+        List<String> selected = resolveFields(fields);
+        int pageSize = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        
+        OffsetDateTime afterCreatedAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterCreatedAt = parseCursorTime(position[0]);
+            afterId = parseCursorId(position[1]);
+        }
+        
+        // One extra row tells whether another page exists
+        List<Object[]> rows = repository.findPage(filter, selected, afterCreatedAt, afterId, pageSize + 1);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Object[] last = rows.get(pageSize - 1);
+            nextCursor = encodeCursor((OffsetDateTime) last[selected.size()], (Long) last[selected.size() + 1]);
+        }
+        
+        List<Object[]> values = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            values.add(Arrays.copyOf(row, selected.size()));
+        }
+        return new IssuePage(selected, values, nextCursor);
+    }
+    
+    /**
+     * Full-text search across summary, description, comment and support remark
+     * @param query Search text in web search syntax ("quoted phrase", -excluded, or)
+     * @param page Zero-based page number
+     * @param size Page size, capped at MAX_SEARCH_SIZE
+     * @return Up to size hits plus one extra if another page exists
+     */
+    @Transactional(readOnly = true)
+    public List<IssueSearchHit> search(String query, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_SIZE));
+        int offset = Math.max(0, page) * pageSize;
+        List<Object[]> rows = repository.searchFullText(query, pageSize + 1, offset);
+        
+        List<IssueSearchHit> hits = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            hits.add(toSearchHit(row));
+        }
+        return hits;
+    }
+    
+    /**
+     * Map a search row: qira_id, summary, status, assigned_team, created_at, rank and an optional snippet
+     */
+    static IssueSearchHit toSearchHit(Object[] row) {
+        return new IssueSearchHit(
+            (String) row[0],
+            (String) row[1],
+            (String) row[2],
+            (String) row[3],
+            toOffsetDateTime(row[4]),
+            ((Number) row[5]).doubleValue(),
+            row.length > 6 ? (String) row[6] : null);
+    }
+    
+    private static OffsetDateTime toOffsetDateTime(Object value) {
+        if (value instanceof OffsetDateTime dateTime) {
+            return dateTime;
+        }
+        if (value instanceof Instant instant) {
+            return instant.atOffset(ZoneOffset.UTC);
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toInstant().atOffset(ZoneOffset.UTC);
+        }
+        return null;
+    }
+    
+    private static List<String> resolveFields(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return DEFAULT_FIELDS;
+        }
+        Set<String> resolved = new LinkedHashSet<>();
+        for (String field : fields) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!SELECTABLE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            resolved.add(name);
+        }
+        return resolved.isEmpty() ? DEFAULT_FIELDS : List.copyOf(resolved);
+    }
+    
+    /**
+     * Cursor for the position after (createdAt, id); an empty time marks issues without a created date
+     */
+    static String encodeCursor(OffsetDateTime createdAt, Long id) {
+        String position = (createdAt != null ? createdAt.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|", -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+    
+    private static OffsetDateTime parseCursorTime(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+    
+    private static Long parseCursorId(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
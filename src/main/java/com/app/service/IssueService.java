@@ -1,27 +1,114 @@
 package com.app.service;
 
+import com.app.dto.IssueExportRow;
+import com.app.dto.IssueSearchHit;
 import com.app.dto.UpsertStats;
 import com.app.model.IssueRecord;
 import com.app.repository.IssueRecordRepository;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class IssueService {
     
     private static final Logger logger = LoggerFactory.getLogger(IssueService.class);
     private static final int BATCH_SIZE = 100;
+    private static final int SEARCH_RESULT_LIMIT = 50;
     
     private final IssueRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int upsertParallelism;
+    private final ExecutorService upsertWorkers;
+    private final KnownQiraIdIndex keyIndex;
+    private final IssueStatsRollupService statsRollup;
     
-    public IssueService(IssueRecordRepository repository) {
+    @Value("${ingestion.key-index.enabled:true}")
+    private boolean keyIndexEnabled;
+    
+    @Autowired
+    public IssueService(
+            IssueRecordRepository repository,
+            PlatformTransactionManager transactionManager,
+            KnownQiraIdIndex keyIndex,
+            IssueStatsRollupService statsRollup,
+            @Value("${ingestion.upsert.parallelism:1}") int upsertParallelism) {
+        this(repository, transactionManager, keyIndex, statsRollup, upsertParallelism,
+            upsertParallelism > 1 ? Executors.newFixedThreadPool(upsertParallelism, new UpsertWorkerThreadFactory()) : null);
+    }
+    
+    IssueService(
+            IssueRecordRepository repository,
+            PlatformTransactionManager transactionManager,
+            KnownQiraIdIndex keyIndex,
+            IssueStatsRollupService statsRollup,
+            int upsertParallelism,
+            ExecutorService upsertWorkers) {
         this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.keyIndex = keyIndex;
+        this.statsRollup = statsRollup;
+        this.upsertParallelism = upsertWorkers != null ? Math.max(1, upsertParallelism) : 1;
+        this.upsertWorkers = upsertWorkers;
+    }
+    
+    /**
+     * Load the known qiraId index from the database once the application is up.
+     * Until loading completes every record goes through the IN-query path.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadKeyIndex() {
+        if (!keyIndexEnabled) {
+            logger.info("Known qiraId index disabled");
+            return;
+        }
+        try {
+            long startNanos = System.nanoTime();
+            TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            readOnly.setReadOnly(true);
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = repository.streamContentHashes()) {
+                    // Tombstoned rows stay known (so a returning ticket is updated) but never match
+                    rows.forEach(row -> keyIndex.put((String) row[0], row[2] == null ? (Long) row[1] : null));
+                }
+            });
+            keyIndex.markLoaded();
+            logger.info("Loaded known qiraId index with {} keys in {} ms",
+                keyIndex.size(), (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (Exception e) {
+            logger.error("Failed to load known qiraId index, falling back to database lookups", e);
+            keyIndex.clear();
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (upsertWorkers != null) {
+            upsertWorkers.shutdown();
+        }
     }
     
     /**
@@ -31,6 +118,10 @@ public class IssueService {
      */
     @Transactional
     public UpsertStats upsert(IssueRecord record) {
+        return doUpsert(record);
+    }
+    
+    private UpsertStats doUpsert(IssueRecord record) {
         UpsertStats stats = new UpsertStats();
         
         if (record == null || record.getQiraId() == null) {
@@ -39,21 +130,31 @@ public class IssueService {
         }
         
         try {
+            ensureContentHash(record);
             Optional<IssueRecord> existing = repository.findByQiraId(record.getQiraId());
+            IssueStatsDelta delta = new IssueStatsDelta();
             
             if (existing.isPresent()) {
                 // Update existing record
                 IssueRecord existingRecord = existing.get();
+                // Tombstoned rows were already taken out of the rollup
+                if (existingRecord.getDeletedAt() == null) {
+                    delta.remove(existingRecord);
+                }
                 updateRecord(existingRecord, record);
+                delta.add(existingRecord);
                 repository.save(existingRecord);
                 stats.incrementUpdated();
                 logger.debug("Updated record for qiraId: {}", record.getQiraId());
             } else {
                 // Insert new record
                 repository.save(record);
+                delta.add(record);
                 stats.incrementInserted();
                 logger.debug("Inserted new record for qiraId: {}", record.getQiraId());
             }
+            statsRollup.apply(delta);
+            rememberAfterCommit(List.of(record));
         } catch (Exception e) {
             logger.error("Failed to upsert record for qiraId: {}", record.getQiraId(), e);
             stats.incrementFailed();
@@ -64,105 +165,284 @@ public class IssueService {
     
     /**
      * Efficiently bulk upsert issue records
-     * Finds existing records first, then batches insert/update operations
+     * Records are processed in chunks of BATCH_SIZE, each in its own transaction.
+     * Existing rows for a chunk are loaded with a single IN query and updated in memory;
+     * new rows are inserted directly and rely on the qira_id unique constraint.
      * @param records List of records to upsert
      * @return Aggregate stats
      */
-    @Transactional
     public UpsertStats upsertBulk(List<IssueRecord> records) {
-        logger.info("Starting bulk upsert for {} records", records.size());
+        return upsertBulk(records, null);
+    }
+    
+    /**
+     * Bulk upsert as part of a full sync: every written or unchanged row is stamped with
+     * the sync generation so rows the sync did not see can be swept afterwards
+     * @param syncGeneration Generation from IssueSweepService.startGeneration(), null to not stamp
+     */
+    public UpsertStats upsertBulk(List<IssueRecord> records, Long syncGeneration) {
         UpsertStats stats = new UpsertStats();
         
         if (records == null || records.isEmpty()) {
             return stats;
         }
         
-        // Filter out null or invalid records
-        List<IssueRecord> validRecords = records.stream()
-            .filter(r -> r != null && r.getQiraId() != null && !r.getQiraId().isBlank())
-            .collect(Collectors.toList());
+        logger.info("Starting bulk upsert for {} records", records.size());
         
-        stats.addInserted(records.size() - validRecords.size()); // Count skipped
+        // Filter out invalid records and collapse duplicate qiraIds (first occurrence wins)
+        Map<String, IssueRecord> uniqueRecords = new LinkedHashMap<>();
+        for (IssueRecord record : records) {
+            if (record == null || record.getQiraId() == null || record.getQiraId().isBlank()) {
+                stats.incrementSkipped();
+            } else if (uniqueRecords.putIfAbsent(record.getQiraId(), record) != null) {
+                logger.debug("Duplicate qiraId {} in batch, skipping", record.getQiraId());
+                stats.incrementSkipped();
+            } else if (syncGeneration != null) {
+                record.setSyncGeneration(syncGeneration);
+            }
+        }
         
-        if (validRecords.isEmpty()) {
+        if (uniqueRecords.isEmpty()) {
             logger.warn("No valid records to upsert");
             return stats;
         }
         
-        // Extract all qiraIds
-        Set<String> qiraIds = validRecords.stream()
-            .map(IssueRecord::getQiraId)
-            .collect(Collectors.toSet());
+        List<IssueRecord> validRecords = new ArrayList<>(uniqueRecords.values());
+        if (upsertParallelism > 1 && validRecords.size() > BATCH_SIZE) {
+            upsertPartitioned(validRecords, stats);
+        } else {
+            upsertPartition(validRecords, stats);
+        }
         
-        // Find existing qiraIds in bulk
-        Set<String> existingQiraIds = repository.findExistingQiraIds(qiraIds);
-        logger.info("Found {} existing records out of {}", existingQiraIds.size(), qiraIds.size());
+        logger.info("Bulk upsert completed: {}", stats);
+        return stats;
+    }
+    
+    /**
+     * Split records by a hash of qiraId so no two workers touch the same row,
+     * then upsert every partition on its own worker thread. Each worker writes its
+     * chunks in its own transactions, so each holds its own pooled connection.
+     */
+    private void upsertPartitioned(List<IssueRecord> records, UpsertStats stats) {
+        List<List<IssueRecord>> partitions = new ArrayList<>();
+        for (int i = 0; i < upsertParallelism; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (IssueRecord record : records) {
+            partitions.get(Math.floorMod(record.getQiraId().hashCode(), upsertParallelism)).add(record);
+        }
         
-        // Separate into inserts and updates
-        List<IssueRecord> toInsert = new ArrayList<>();
-        List<IssueRecord> toUpdate = new ArrayList<>();
-        Map<String, IssueRecord> newRecordMap = validRecords.stream()
-            .collect(Collectors.toMap(IssueRecord::getQiraId, r -> r, (r1, r2) -> r1));
+        logger.info("Upserting {} records across {} parallel partitions", records.size(), upsertParallelism);
+        partitions.removeIf(List::isEmpty);
+        List<UpsertStats> partitionStats = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (List<IssueRecord> partition : partitions) {
+            UpsertStats written = new UpsertStats();
+            partitionStats.add(written);
+            futures.add(upsertWorkers.submit(() -> upsertPartition(partition, written)));
+        }
         
-        for (IssueRecord record : validRecords) {
-            if (existingQiraIds.contains(record.getQiraId())) {
-                toUpdate.add(record);
-            } else {
-                toInsert.add(record);
+        for (int i = 0; i < futures.size(); i++) {
+            UpsertStats written = partitionStats.get(i);
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("Interrupted while waiting for upsert workers", e);
+            } catch (ExecutionException e) {
+                // Chunks the worker never got to count as failed, so the run does not sweep their rows
+                int unwritten = partitions.get(i).size() - written.getTotal();
+                logger.error("Upsert worker failed, {} records of its partition not written", unwritten, e.getCause());
+                written.addFailed(unwritten);
             }
+            stats.merge(written);
         }
-        
-        // Insert new records individually to handle duplicates gracefully
-        if (!toInsert.isEmpty()) {
-            logger.info("Inserting {} new records individually", toInsert.size());
-            for (IssueRecord record : toInsert) {
+    }
+    
+    /**
+     * Upsert records chunk by chunk on the calling thread
+     */
+    private void upsertPartition(List<IssueRecord> records, UpsertStats stats) {
+        for (int from = 0; from < records.size(); from += BATCH_SIZE) {
+            List<IssueRecord> chunk = records.subList(from, Math.min(from + BATCH_SIZE, records.size()));
+            stats.merge(upsertChunk(chunk));
+        }
+    }
+    
+    /**
+     * Upsert one chunk in a single transaction.
+     * If an insert collides with a row written concurrently, the transaction is rolled back
+     * and the chunk is replayed record by record.
+     */
+    private UpsertStats upsertChunk(List<IssueRecord> chunk) {
+        try {
+            return transactionTemplate.execute(status -> writeChunk(chunk));
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Unique constraint hit while writing chunk of {} records, retrying individually", chunk.size());
+            // Identifiers assigned by the rolled-back inserts are no longer valid
+            chunk.forEach(r -> r.setId(null));
+            UpsertStats stats = new UpsertStats();
+            for (IssueRecord record : chunk) {
                 try {
-                    // Check if it already exists (race condition protection)
-                    if (repository.findByQiraId(record.getQiraId()).isPresent()) {
-                        logger.debug("Record {} already exists, skipping insert", record.getQiraId());
-                        stats.incrementSkipped();
-                    } else {
-                        repository.save(record);
-                        stats.incrementInserted();
-                    }
-                } catch (org.springframework.dao.DataIntegrityViolationException e) {
-                    // Duplicate key - another thread inserted it
-                    logger.debug("Duplicate key for qiraId: {}, skipping", record.getQiraId());
-                    stats.incrementSkipped();
+                    stats.merge(transactionTemplate.execute(status -> doUpsert(record)));
                 } catch (Exception ex) {
-                    logger.error("Failed to insert qiraId: {}", record.getQiraId(), ex);
+                    logger.error("Failed to upsert qiraId: {}", record.getQiraId(), ex);
                     stats.incrementFailed();
                 }
             }
+            return stats;
+        } catch (Exception e) {
+            logger.error("Failed to upsert chunk of {} records", chunk.size(), e);
+            UpsertStats stats = new UpsertStats();
+            stats.addFailed(chunk.size());
+            return stats;
+        }
+    }
+    
+    /**
+     * Write a chunk. The known qiraId index routes definite misses straight to insert and
+     * drops unchanged tickets; only changed (or unclassifiable) tickets are looked up with
+     * one IN query and updated in memory. Unchanged tickets are only checked for tombstones,
+     * which are revived.
+     */
+    private UpsertStats writeChunk(List<IssueRecord> chunk) {
+        UpsertStats stats = new UpsertStats();
+        
+        boolean useIndex = keyIndex.isLoaded();
+        List<IssueRecord> toInsert = new ArrayList<>();
+        List<IssueRecord> toLookup = new ArrayList<>();
+        List<String> unchanged = new ArrayList<>();
+        Map<Long, List<String>> unchangedByGeneration = new HashMap<>();
+        for (IssueRecord record : chunk) {
+            ensureContentHash(record);
+            KnownQiraIdIndex.Lookup lookup = useIndex
+                ? keyIndex.lookup(record.getQiraId(), record.getContentHash() != null ? record.getContentHash() : 0L)
+                : KnownQiraIdIndex.Lookup.CHANGED;
+            switch (lookup) {
+                case UNCHANGED -> {
+                    unchanged.add(record.getQiraId());
+                    if (record.getSyncGeneration() > 0) {
+                        unchangedByGeneration.computeIfAbsent(record.getSyncGeneration(), g -> new ArrayList<>())
+                            .add(record.getQiraId());
+                    }
+                }
+                case UNKNOWN -> toInsert.add(record);
+                case CHANGED -> toLookup.add(record);
+            }
         }
         
-        // Batch update existing records
-        if (!toUpdate.isEmpty()) {
-            logger.info("Updating {} existing records", toUpdate.size());
-            for (IssueRecord newData : toUpdate) {
-                try {
-                    Optional<IssueRecord> existingOpt = repository.findByQiraId(newData.getQiraId());
-                    if (existingOpt.isPresent()) {
-                        IssueRecord existing = existingOpt.get();
-                        updateRecord(existing, newData);
-                        repository.save(existing);
-                        stats.incrementUpdated();
-                    } else {
-                        // Race condition - insert instead
-                        repository.save(newData);
-                        stats.incrementInserted();
+        List<IssueRecord> written = new ArrayList<>(toInsert.size() + toLookup.size());
+        IssueStatsDelta delta = new IssueStatsDelta();
+        if (!toLookup.isEmpty()) {
+            Set<String> qiraIds = toLookup.stream()
+                .map(IssueRecord::getQiraId)
+                .collect(Collectors.toSet());
+            
+            Map<String, IssueRecord> existingByQiraId = repository.findAllByQiraIdIn(qiraIds).stream()
+                .collect(Collectors.toMap(IssueRecord::getQiraId, r -> r, (r1, r2) -> r1));
+            logger.debug("Found {} existing records out of {} in chunk", existingByQiraId.size(), qiraIds.size());
+            
+            for (IssueRecord newData : toLookup) {
+                IssueRecord existing = existingByQiraId.get(newData.getQiraId());
+                if (existing != null) {
+                    // Managed entity - changes are flushed by dirty checking
+                    if (existing.getDeletedAt() == null) {
+                        delta.remove(existing);
                     }
-                } catch (Exception e) {
-                    logger.error("Failed to update qiraId: {}", newData.getQiraId(), e);
-                    stats.incrementFailed();
+                    updateRecord(existing, newData);
+                    delta.add(existing);
+                    stats.incrementUpdated();
+                    written.add(existing);
+                } else {
+                    toInsert.add(newData);
                 }
             }
         }
         
-        logger.info("Bulk upsert completed: {}", stats);
+        if (!toInsert.isEmpty()) {
+            repository.saveAll(toInsert);
+            stats.addInserted(toInsert.size());
+            written.addAll(toInsert);
+            toInsert.forEach(delta::add);
+        }
+        
+        if (!unchanged.isEmpty()) {
+            // The index is per node: a row another node's sweep tombstoned still looks unchanged here
+            int revived = 0;
+            for (IssueRecord tombstoned : repository.findTombstonedByQiraIdIn(unchanged)) {
+                tombstoned.setDeletedAt(null);
+                delta.add(tombstoned);
+                revived++;
+            }
+            stats.addUpdated(revived);
+            stats.addSkipped(unchanged.size() - revived);
+        }
+        
+        // Flush inside the transaction so constraint violations surface as DataIntegrityViolationException
+        repository.flush();
+        // Unchanged rows are only stamped as seen, without loading them
+        unchangedByGeneration.forEach((generation, qiraIds) -> repository.stampSyncGeneration(qiraIds, generation));
+        // Rollup rows are locked last, only once the record writes have succeeded
+        statsRollup.apply(delta);
+        rememberAfterCommit(written);
         return stats;
     }
     
+    /**
+     * Compute the content hash from the raw payload if the mapper did not set one
+     */
+    private void ensureContentHash(IssueRecord record) {
+        if (record.getContentHash() == null && record.getRawJson() != null) {
+            record.setContentHash(KnownQiraIdIndex.contentHash(record.getRawJson()));
+        }
+    }
+    
+    /**
+     * Update the known qiraId index once the current transaction has committed,
+     * so rolled-back writes never make a ticket look unchanged
+     */
+    private void rememberAfterCommit(List<IssueRecord> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        List<String> qiraIds = new ArrayList<>(written.size());
+        List<Long> hashes = new ArrayList<>(written.size());
+        for (IssueRecord record : written) {
+            qiraIds.add(record.getQiraId());
+            hashes.add(record.getContentHash());
+        }
+        Runnable apply = () -> {
+            for (int i = 0; i < qiraIds.size(); i++) {
+                keyIndex.put(qiraIds.get(i), hashes.get(i));
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+    
+    /**
+     * Find records by free text using the full-text index; title (summary) matches rank first
+     * @return At most SEARCH_RESULT_LIMIT hits (display columns, no snippet), best matches first
+     */
+    @Transactional(readOnly = true)
+    public List<IssueSearchHit> searchByTitle(String query) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        return repository.searchRecords(query.trim(), SEARCH_RESULT_LIMIT).stream()
+            .map(IssueQueryService::toSearchHit)
+            .toList();
+    }
+    
     /**
      * Update existing record with new data
      */
@@ -203,20 +483,56 @@ public class IssueService {
         existing.setPublicationStatusBooks(newData.getPublicationStatusBooks());
         existing.setQiraTicketsCategory(newData.getQiraTicketsCategory());
         existing.setRawJson(newData.getRawJson());
+        existing.setContentHash(newData.getContentHash());
+        existing.setSyncGeneration(Math.max(existing.getSyncGeneration(), newData.getSyncGeneration()));
+        // Seen again: no longer deleted
+        existing.setDeletedAt(null);
         existing.setIngestedAt(OffsetDateTime.now());
     }
     
     /**
-     * Query records by date range
+     * Stream export rows created in [from, to) with optional team filter
+     * Projection query over a server-side cursor; the caller must consume and close
+     * the stream inside its own read-only transaction.
      */
+    @Transactional(propagation = Propagation.MANDATORY, readOnly = true)
+    public Stream<IssueExportRow> streamExportRows(OffsetDateTime from, OffsetDateTime to, String team) {
+        if (team == null || team.isBlank()) {
+            return repository.streamExportRowsByDateRange(from, to);
+        }
+        return repository.streamExportRowsByDateRangeAndTeam(from, to, team);
+    }
+    
+    /**
+     * Query records created in [from, to)
+     */
+    @Transactional(readOnly = true)
     public List<IssueRecord> findByDateRange(OffsetDateTime from, OffsetDateTime to) {
         return repository.findByDateRange(from, to);
     }
     
     /**
-     * Query records by date range and optional team filter
+     * Query records created in [from, to) with optional team filter
      */
+    @Transactional(readOnly = true)
     public List<IssueRecord> findByDateRangeAndTeam(OffsetDateTime from, OffsetDateTime to, String team) {
+        if (team == null || team.isBlank()) {
+            return repository.findByDateRange(from, to);
+        }
         return repository.findByDateRangeAndTeam(from, to, team);
     }
+    
+    /**
+     * Names upsert worker threads so they are identifiable in thread dumps
+     */
+    private static class UpsertWorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "upsert-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
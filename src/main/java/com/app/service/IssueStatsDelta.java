@@ -0,0 +1,73 @@
+package com.app.service;
+
+import com.app.model.IssueRecord;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rollup count changes collected while one upsert transaction writes its records
+ */
+class IssueStatsDelta {
+    
+    /**
+     * Rollup group key; month is the first day of the created_at month in UTC (null if no created_at)
+     */
+    record Group(LocalDate month, String team, String status, String issueType, String priority) {
+        
+        private static final Comparator<String> TEXT = Comparator.nullsFirst(Comparator.naturalOrder());
+        
+        static final Comparator<Group> ORDER = Comparator
+            .comparing(Group::month, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Group::team, TEXT)
+            .thenComparing(Group::status, TEXT)
+            .thenComparing(Group::issueType, TEXT)
+            .thenComparing(Group::priority, TEXT);
+        
+        static Group of(IssueRecord record) {
+            return new Group(monthOf(record.getCreatedAt()), record.getAssignedTeam(),
+                record.getStatus(), record.getIssueType(), record.getPriority());
+        }
+    }
+    
+    private final Map<Group, Long> counts = new HashMap<>();
+    
+    /**
+     * Count a record in its current group. Call before any change for the old state
+     * ({@link #remove}) and after it for the new state.
+     */
+    void add(IssueRecord record) {
+        counts.merge(Group.of(record), 1L, Long::sum);
+    }
+    
+    void remove(IssueRecord record) {
+        counts.merge(Group.of(record), -1L, Long::sum);
+    }
+    
+    /**
+     * Non-zero changes in a fixed group order, so concurrent writers lock rollup rows
+     * in the same sequence and cannot deadlock
+     */
+    List<Map.Entry<Group, Long>> changes() {
+        List<Map.Entry<Group, Long>> changes = new ArrayList<>();
+        for (Map.Entry<Group, Long> entry : counts.entrySet()) {
+            if (entry.getValue() != 0L) {
+                changes.add(entry);
+            }
+        }
+        changes.sort(Map.Entry.comparingByKey(Group.ORDER));
+        return changes;
+    }
+    
+    static LocalDate monthOf(OffsetDateTime createdAt) {
+        return createdAt != null
+            ? createdAt.atZoneSameInstant(ZoneOffset.UTC).toLocalDate().withDayOfMonth(1)
+            : null;
+    }
+}
@@ -0,0 +1,57 @@
+package com.app.service;
+
+import com.app.repository.IssueStatsRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains and reads the issue_stats_rollup table (ticket counts per created month (UTC),
+ * team, status, issue type and priority)
+ */
+@Service
+public class IssueStatsRollupService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IssueStatsRollupService.class);
+    
+    private final IssueStatsRollupRepository rollupRepository;
+    
+    public IssueStatsRollupService(IssueStatsRollupRepository rollupRepository) {
+        this.rollupRepository = rollupRepository;
+    }
+    
+    /**
+     * Apply the deltas collected by an upsert in the same transaction as the record writes
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(IssueStatsDelta delta) {
+        List<Map.Entry<IssueStatsDelta.Group, Long>> changes = delta.changes();
+        if (changes.isEmpty()) {
+            return;
+        }
+        // Version row before any group row: writers with overlapping groups queue here
+        // instead of each holding a group the other needs
+        rollupRepository.bumpVersion();
+        for (Map.Entry<IssueStatsDelta.Group, Long> change : changes) {
+            IssueStatsDelta.Group group = change.getKey();
+            rollupRepository.applyDelta(group.month(), group.team(), group.status(),
+                group.issueType(), group.priority(), change.getValue());
+        }
+    }
+    
+    /**
+     * Recompute the rollup from issue_records
+     * @return Number of groups
+     */
+    public long rebuild() {
+        long startNanos = System.nanoTime();
+        long groups = rollupRepository.rebuild();
+        logger.info("Rebuilt issue stats rollup: {} groups in {} ms", groups, (System.nanoTime() - startNanos) / 1_000_000);
+        return groups;
+    }
+}
@@ -0,0 +1,84 @@
+package com.app.service;
+
+import com.app.config.ReplicaRoutingDataSource;
+import com.app.dto.StatsCount;
+import com.app.repository.IssueStatsRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ticket statistics for dashboards, aggregated in SQL over the stats rollup and cached
+ * until the rollup changes.
+ * Cache keys include the data version stored next to the rollup, which every writer bumps in
+ * its own transaction. Both are read from the primary, version first, so counts cached under
+ * a version are never older than it, whichever node or worker wrote the data.
+ */
+@Service
+public class IssueStatsService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IssueStatsService.class);
+    
+    public static final String CACHE_NAME = "issueStats";
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
+    
+    public enum Dimension {
+        STATUS, ISSUE_TYPE, TEAM, PRIORITY, MONTH
+    }
+    
+    private final IssueStatsRollupRepository rollupRepository;
+    
+    public IssueStatsService(IssueStatsRollupRepository rollupRepository) {
+        this.rollupRepository = rollupRepository;
+    }
+    
+    /**
+     * Version of the committed ticket data; changes whenever the stats rollup does
+     */
+    public long getDataVersion() {
+        return ReplicaRoutingDataSource.primaryScope(rollupRepository::findVersion);
+    }
+    
+    /**
+     * Ticket counts for one dimension, ordered by count (by month for MONTH)
+     * @param version Data version the caller read via {@link #getDataVersion()}; part of the cache key
+     * @param fromMonth First month (inclusive), null for open
+     * @param toMonth Last month (exclusive), null for open
+     * @param team Optional team filter
+     */
+    @Cacheable(cacheNames = CACHE_NAME)
+    public List<StatsCount> countBy(long version, Dimension dimension, LocalDate fromMonth, LocalDate toMonth, String team) {
+        String teamFilter = team == null || team.isBlank() ? null : team;
+        // A lagging replica could still hold counts from before the version was bumped
+        List<Object[]> rows = ReplicaRoutingDataSource.primaryScope(() -> switch (dimension) {
+            case STATUS -> rollupRepository.sumByStatus(fromMonth, toMonth, teamFilter);
+            case ISSUE_TYPE -> rollupRepository.sumByIssueType(fromMonth, toMonth, teamFilter);
+            case TEAM -> rollupRepository.sumByTeam(fromMonth, toMonth, teamFilter);
+            case PRIORITY -> rollupRepository.sumByPriority(fromMonth, toMonth, teamFilter);
+            case MONTH -> rollupRepository.sumByMonth(fromMonth, toMonth, teamFilter);
+        });
+        
+        List<StatsCount> counts = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            String key = row[0] instanceof LocalDate month ? month.format(MONTH_FORMATTER) : (String) row[0];
+            counts.add(new StatsCount(key, ((Number) row[1]).longValue()));
+        }
+        return counts;
+    }
+    
+    /**
+     * Drop this node's cached stats after an ingestion run commits. Only frees memory: entries
+     * of older versions are never read again and otherwise expire with the cache spec.
+     */
+    @CacheEvict(cacheNames = CACHE_NAME, allEntries = true)
+    public void invalidate() {
+        logger.debug("Issue stats cache cleared");
+    }
+}
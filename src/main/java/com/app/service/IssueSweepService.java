@@ -0,0 +1,109 @@
+package com.app.service;
+
+import com.app.config.ReplicaRoutingDataSource;
+import com.app.repository.IssueRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Mark-and-sweep of tickets that no longer exist in QIRA.
+ * A full sync allocates a generation and stamps every row it upserts (or finds unchanged)
+ * with it; afterwards live rows with an older generation were not returned by QIRA and are
+ * tombstoned in small set-based batches (deleted_at is set, rows are kept).
+ */
+@Service
+public class IssueSweepService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IssueSweepService.class);
+    
+    // Small windows may legitimately lose a large share; the ratio guard only applies above this
+    private static final int GUARD_MIN_UNSEEN = 25;
+    
+    private final IssueRecordRepository repository;
+    private final KnownQiraIdIndex keyIndex;
+    
+    @Value("${ingestion.sweep.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${ingestion.sweep.batch-size:1000}")
+    private int batchSize;
+    
+    // Refuse to sweep when more than this share of tickets would disappear at once
+    @Value("${ingestion.sweep.max-deleted-ratio:0.1}")
+    private double maxDeletedRatio;
+    
+    public IssueSweepService(IssueRecordRepository repository, KnownQiraIdIndex keyIndex) {
+        this.repository = repository;
+        this.keyIndex = keyIndex;
+    }
+    
+    /**
+     * Allocate the generation for a new full sync
+     */
+    public long startGeneration() {
+        return repository.nextSyncGeneration();
+    }
+    
+    /**
+     * Tombstone live rows not stamped by the given generation
+     * Only call after a complete sync: every ticket QIRA returned must have been upserted.
+     * @param seenCount Number of tickets the sync upserted or found unchanged
+     * @return Number of rows tombstoned
+     */
+    public int sweep(long generation, int seenCount) {
+        return sweep(generation, null, null, seenCount);
+    }
+    
+    /**
+     * Tombstone live rows created in [from, to) not stamped by the given generation
+     * Only call after every ticket QIRA returned for that window has been upserted.
+     */
+    public int sweepWindow(long generation, OffsetDateTime from, OffsetDateTime to, int seenCount) {
+        return sweep(generation, from, to, seenCount);
+    }
+    
+    private int sweep(long generation, OffsetDateTime from, OffsetDateTime to, int seenCount) {
+        if (!enabled) {
+            return 0;
+        }
+        String scope = from == null ? "generation " + generation : "generation " + generation + " [" + from + ", " + to + ")";
+        
+        // Straight after the upserts: the replica may not have them yet
+        return ReplicaRoutingDataSource.primaryScope(() -> {
+            long unseen = from == null
+                ? repository.countUnseenSince(generation)
+                : repository.countUnseenSinceInWindow(generation, from, to);
+            if (unseen == 0) {
+                logger.info("Sweep for {}: no unseen tickets", scope);
+                return 0;
+            }
+            double ratio = (double) unseen / (unseen + seenCount);
+            if (ratio > maxDeletedRatio && unseen > GUARD_MIN_UNSEEN) {
+                logger.warn("Sweep for {} skipped: {} of {} tickets unseen ({}%) exceeds max-deleted-ratio {}",
+                    scope, unseen, unseen + seenCount, Math.round(ratio * 100), maxDeletedRatio);
+                return 0;
+            }
+            
+            int swept = 0;
+            List<String> batch;
+            do {
+                // Each batch commits on its own; rows locked by concurrent writers are skipped
+                batch = from == null
+                    ? repository.sweepUnseenBatch(generation, batchSize)
+                    : repository.sweepUnseenBatchInWindow(generation, from, to, batchSize);
+                for (String qiraId : batch) {
+                    keyIndex.put(qiraId, null);
+                }
+                swept += batch.size();
+            } while (batch.size() == batchSize);
+            
+            logger.info("Sweep for {} tombstoned {} tickets", scope, swept);
+            return swept;
+        });
+    }
+}
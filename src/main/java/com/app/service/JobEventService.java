@@ -0,0 +1,214 @@
+package com.app.service;
+
+import com.app.dto.JobStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events stream of job progress for GET /admin/jobs/{id}/events.
+ * A single publisher thread samples each watched job's JobStatus counters every
+ * ingestion.events.interval-ms and sends every subscriber only the fields that changed since
+ * its previous event, so progress is coalesced to that rate however fast pages go by.
+ * The ingestion threads only bump the JobStatus atomics they already update; they never see a
+ * subscriber, and a slow client can delay other subscribers' events but not ingestion.
+ */
+@Service
+public class JobEventService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JobEventService.class);
+    
+    static final String PROGRESS_EVENT = "progress";
+    static final String DONE_EVENT = "done";
+    
+    private final IngestionJobManager jobManager;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    // Subscribers by job id; the publisher thread is the only one sending
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public JobEventService(
+            IngestionJobManager jobManager,
+            MeterRegistry meterRegistry,
+            @Value("${ingestion.events.interval-ms:1000}") long intervalMillis,
+            @Value("${ingestion.events.max-subscribers:100}") int maxSubscribers,
+            @Value("${ingestion.events.timeout-minutes:120}") long timeoutMinutes) {
+        this.jobManager = jobManager;
+        this.maxSubscribers = Math.max(1, maxSubscribers);
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(Math.max(1, timeoutMinutes));
+        long interval = Math.max(100, intervalMillis);
+        publisher.scheduleWithFixedDelay(this::publishAll, interval, interval, TimeUnit.MILLISECONDS);
+        Gauge.builder("qira.ingestion.events.subscribers", subscriberCount, AtomicInteger::get)
+            .description("Open job progress event streams")
+            .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        publisher.shutdownNow();
+        subscribers.values().forEach(list -> list.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+    
+    /**
+     * Open an event stream for a job. The first event is a full snapshot, later "progress"
+     * events carry only changed fields, and a final "done" event closes the stream.
+     * @return The emitter, or null if the job is unknown (or evicted from the job history)
+     * @throws RejectedExecutionException If ingestion.events.max-subscribers streams are open
+     */
+    public SseEmitter subscribe(String jobId) {
+        if (jobManager.getJob(jobId) == null) {
+            return null;
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RejectedExecutionException("Too many open event streams (max " + maxSubscribers + ")");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> remove(jobId, subscriber));
+        emitter.onTimeout(() -> remove(jobId, subscriber));
+        emitter.onError(e -> remove(jobId, subscriber));
+        subscribers.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>()).add(subscriber);
+        // Snapshot on the publisher thread right away, so it never interleaves with a tick
+        publisher.execute(() -> publish(jobId));
+        return emitter;
+    }
+    
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+    
+    private void remove(String jobId, Subscriber subscriber) {
+        List<Subscriber> list = subscribers.get(jobId);
+        if (list != null && list.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            if (list.isEmpty()) {
+                subscribers.remove(jobId, list);
+            }
+        }
+    }
+    
+    private void publishAll() {
+        try {
+            subscribers.keySet().forEach(this::publish);
+        } catch (RuntimeException e) {
+            // An exception would cancel the fixed-delay schedule for good
+            logger.warn("Failed to publish job events: {}", e.getMessage());
+        }
+    }
+    
+    private void publish(String jobId) {
+        List<Subscriber> list = subscribers.get(jobId);
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        JobStatus job = jobManager.getJob(jobId);
+        if (job == null) {
+            // Evicted from the job history
+            list.forEach(subscriber -> {
+                subscriber.emitter.complete();
+                remove(jobId, subscriber);
+            });
+            return;
+        }
+        Map<String, Object> current = snapshot(job);
+        boolean finished = job.isFinished();
+        for (Subscriber subscriber : list) {
+            Map<String, Object> changes = delta(subscriber.lastSent, current);
+            try {
+                if (finished) {
+                    subscriber.emitter.send(SseEmitter.event().name(DONE_EVENT).data(current, MediaType.APPLICATION_JSON));
+                    subscriber.emitter.complete();
+                    remove(jobId, subscriber);
+                } else if (!changes.isEmpty()) {
+                    subscriber.emitter.send(SseEmitter.event().name(PROGRESS_EVENT).data(changes, MediaType.APPLICATION_JSON));
+                    subscriber.lastSent = current;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away
+                logger.debug("Dropping event stream of job {}: {}", jobId, e.getMessage());
+                subscriber.emitter.completeWithError(e);
+                remove(jobId, subscriber);
+            }
+        }
+    }
+    
+    /**
+     * Compact progress of a job: counters and rates only, no error samples or stages
+     */
+    static Map<String, Object> snapshot(JobStatus job) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("status", job.getStatus());
+        snapshot.put("pagesFetched", job.getPagesFetched());
+        snapshot.put("ticketsFetched", job.getTotalFetched());
+        snapshot.put("ticketsMapped", job.getTicketsMapped());
+        snapshot.put("ticketsWritten", job.getTicketsWritten());
+        snapshot.put("bytesReceived", job.getBytesReceived());
+        snapshot.put("expectedTotal", job.getExpectedTotal());
+        snapshot.put("errorCount", job.getErrorCount());
+        // Rounded so a steady rate does not count as a change on every tick
+        snapshot.put("throughputPerSecond", Math.round(job.getThroughputPerSecond() * 10) / 10.0);
+        Double percentDone = job.getPercentDone();
+        snapshot.put("percentDone", percentDone != null ? Math.round(percentDone * 10) / 10.0 : null);
+        snapshot.put("etaSeconds", job.getEtaSeconds());
+        if (job.isFinished()) {
+            snapshot.put("inserted", job.getInserted());
+            snapshot.put("updated", job.getUpdated());
+            snapshot.put("failed", job.getFailed());
+            snapshot.put("durationSeconds", job.getDurationSeconds());
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Fields of current that differ from previous; all of current if there is no previous event
+     */
+    static Map<String, Object> delta(Map<String, Object> previous, Map<String, Object> current) {
+        if (previous == null) {
+            return current;
+        }
+        Map<String, Object> changes = new LinkedHashMap<>();
+        current.forEach((field, value) -> {
+            if (!Objects.equals(previous.get(field), value)) {
+                changes.put(field, value);
+            }
+        });
+        return changes;
+    }
+    
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        // Touched only by the publisher thread
+        private Map<String, Object> lastSent;
+        
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.app.service;
+
+import com.app.dto.ErrorSummary;
+import com.app.dto.JobStage;
+import com.app.dto.JobStatus;
+import com.app.model.JobRun;
+import com.app.model.JobRunStage;
+import com.app.repository.JobRunRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+/**
+ * Persistent history of finished jobs with per-stage timings (job_runs, job_run_stages).
+ * Each successful run is compared with the trailing median duration of the last
+ * ingestion.runs.regression.window successful runs of the same type and record limit, and
+ * flagged as a regression if it took more than ingestion.runs.regression.factor times as long.
+ */
+@Service
+public class JobRunService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JobRunService.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    private final JobRunRepository repository;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId;
+    private final int regressionWindow;
+    private final int regressionMinRuns;
+    private final double regressionFactor;
+    private final int retentionDays;
+    
+    public JobRunService(
+            JobRunRepository repository,
+            MeterRegistry meterRegistry,
+            ClusterLockService clusterLock,
+            @Value("${ingestion.runs.regression.window:10}") int regressionWindow,
+            @Value("${ingestion.runs.regression.min-runs:3}") int regressionMinRuns,
+            @Value("${ingestion.runs.regression.factor:2.0}") double regressionFactor,
+            @Value("${ingestion.runs.retention-days:365}") int retentionDays) {
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+        this.nodeId = clusterLock.getNodeId();
+        this.regressionWindow = Math.max(1, regressionWindow);
+        this.regressionMinRuns = Math.max(1, regressionMinRuns);
+        this.regressionFactor = regressionFactor;
+        this.retentionDays = Math.max(1, retentionDays);
+    }
+    
+    /**
+     * Store a finished job. Failures are logged, never thrown: losing a history row must not
+     * fail the job it describes.
+     */
+    public JobRun record(JobStatus job) {
+        try {
+            JobRun run = toRun(job);
+            checkRegression(run);
+            JobRun saved = repository.save(run);
+            repository.deleteFinishedBefore(OffsetDateTime.now().minusDays(retentionDays));
+            return saved;
+        } catch (RuntimeException e) {
+            logger.error("Failed to record run history of job {}", job.getId(), e);
+            return null;
+        }
+    }
+    
+    /**
+     * Recorded runs, newest first
+     * @param type Job type to list, null for all
+     * @param regressionsOnly Only runs flagged as regressions
+     */
+    public Page<JobRun> getRuns(String type, boolean regressionsOnly, int page, int size) {
+        PageRequest pageable = PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE),
+            Sort.by(Sort.Direction.DESC, "startedAt"));
+        if (regressionsOnly) {
+            return repository.findByRegressionTrue(pageable);
+        }
+        return type != null ? repository.findByType(type, pageable) : repository.findAll(pageable);
+    }
+    
+    public Optional<JobRun> getRun(String id) {
+        return repository.findById(id);
+    }
+    
+    private void checkRegression(JobRun run) {
+        if (!run.getStatus().startsWith("COMPLETED")) {
+            return;
+        }
+        Object[] trailing = repository.trailingDurationMedian(run.getType(),
+            run.getMaxRecords() != null ? run.getMaxRecords() : -1, run.getId(), regressionWindow).get(0);
+        long samples = ((Number) trailing[0]).longValue();
+        if (samples < regressionMinRuns || trailing[1] == null) {
+            return;
+        }
+        long median = Math.round(((Number) trailing[1]).doubleValue());
+        run.setBaselineDurationMs(median);
+        if (median > 0 && run.getDurationMs() > median * regressionFactor) {
+            run.setRegression(true);
+            meterRegistry.counter("qira.ingestion.job.regression", "type", run.getType()).increment();
+            logger.warn("Job {} ({}) took {} ms, {} times the trailing median of {} ms over {} runs",
+                run.getId(), run.getType(), run.getDurationMs(),
+                String.format("%.1f", (double) run.getDurationMs() / median), median, samples);
+        }
+    }
+    
+    private JobRun toRun(JobStatus job) {
+        JobRun run = new JobRun();
+        run.setId(job.getId());
+        run.setType(job.getType());
+        run.setStatus(job.getStatus());
+        run.setNodeId(nodeId);
+        run.setMaxRecords(job.getMaxRecords());
+        run.setQueuedAt(job.getQueuedAt());
+        run.setStartedAt(job.getStartedAt());
+        run.setFinishedAt(job.getFinishedAt());
+        long durationMs = job.getStartedAt() != null && job.getFinishedAt() != null
+            ? Duration.between(job.getStartedAt(), job.getFinishedAt()).toMillis() : 0;
+        run.setDurationMs(durationMs);
+        run.setTicketsFetched(job.getTotalFetched());
+        run.setTicketsMapped(job.getTicketsMapped());
+        run.setTicketsWritten(job.getTicketsWritten());
+        run.setInserted(job.getInserted());
+        run.setUpdated(job.getUpdated());
+        run.setFailed(job.getFailed());
+        run.setBytesReceived(job.getBytesReceived());
+        run.setThroughputPerSecond(durationMs > 0 ? job.getTotalFetched() * 1000.0 / durationMs : 0);
+        
+        // Counts per category, then the most recent samples
+        run.setErrorCount((int) Math.min(Integer.MAX_VALUE, job.getErrorCount()));
+        if (job.getErrorCount() > 0) {
+            StringBuilder summary = new StringBuilder();
+            job.getErrorCounts().forEach((category, count) ->
+                summary.append(category).append(": ").append(count).append('\n'));
+            for (ErrorSummary.Sample sample : job.getErrorSamples()) {
+                summary.append(sample.getQiraId() != null ? sample.getQiraId() + ": " : "")
+                    .append(sample.getMessage()).append('\n');
+            }
+            run.setErrorSummary(summary.toString().stripTrailing());
+        }
+        
+        for (JobStage stage : job.getStages()) {
+            JobRunStage row = new JobRunStage();
+            row.setStage(stage.getName());
+            row.setStartedAt(stage.getStartedAt());
+            row.setFinishedAt(stage.getFinishedAt());
+            row.setDurationMs(stage.getDurationMillis());
+            row.setWaitMs(stage.getWaitMillis());
+            row.setRecords(stage.getRecords());
+            row.setBytes(stage.getBytes());
+            row.setThroughputPerSecond(stage.getThroughputPerSecond());
+            row.setErrors(stage.getErrors());
+            run.addStage(row);
+        }
+        return run;
+    }
+}
@@ -0,0 +1,209 @@
+package com.app.service;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process index of qiraIds already stored in issue_records and the content hash
+ * of their last written version.
+ * Stored as an open-addressing table of two primitive long arrays (64-bit qiraId hash ->
+ * content hash), about 16 bytes per slot, instead of boxed map entries.
+ * A key collision can only make a ticket look known/changed, which falls back to the
+ * database path; skipping requires both the key and the content hash to match.
+ */
+@Component
+public class KnownQiraIdIndex {
+    
+    public enum Lookup {
+        /** Not in the index: definitely not stored (as far as this node knows) */
+        UNKNOWN,
+        /** Stored, with different content */
+        CHANGED,
+        /** Stored with identical content: nothing to write */
+        UNCHANGED
+    }
+    
+    private static final long EMPTY = 0L;
+    private static final long NO_CONTENT_HASH = 0L;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final double MAX_LOAD = 0.7;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int size;
+    private volatile boolean loaded;
+    
+    /**
+     * Classify an incoming record against the index
+     */
+    public Lookup lookup(String qiraId, long contentHash) {
+        long key = keyHash(qiraId);
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(keys, key);
+            if (keys[slot] == EMPTY) {
+                return Lookup.UNKNOWN;
+            }
+            long stored = values[slot];
+            return stored != NO_CONTENT_HASH && stored == contentHash ? Lookup.UNCHANGED : Lookup.CHANGED;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Record the content hash of a committed row (null if unknown)
+     */
+    public void put(String qiraId, Long contentHash) {
+        long key = keyHash(qiraId);
+        long value = contentHash != null ? contentHash : NO_CONTENT_HASH;
+        lock.writeLock().lock();
+        try {
+            if (size + 1 > keys.length * MAX_LOAD) {
+                resize(keys.length << 1);
+            }
+            int slot = findSlot(keys, key);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Forget a qiraId (backward-shift deletion keeps probe chains intact)
+     */
+    public void remove(String qiraId) {
+        long key = keyHash(qiraId);
+        lock.writeLock().lock();
+        try {
+            int mask = keys.length - 1;
+            int slot = findSlot(keys, key);
+            if (keys[slot] == EMPTY) {
+                return;
+            }
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int home = home(keys[next], mask);
+                // Move the entry back if the hole lies on its probe path
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = EMPTY;
+            values[hole] = NO_CONTENT_HASH;
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Drop all entries and mark the index as not loaded
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            keys = new long[INITIAL_CAPACITY];
+            values = new long[INITIAL_CAPACITY];
+            size = 0;
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Mark the index as complete; until then callers must not trust UNKNOWN results
+     */
+    public void markLoaded() {
+        loaded = true;
+    }
+    
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 64-bit content hash (FNV-1a over UTF-8 bytes with a final avalanche mix); never 0
+     */
+    public static long contentHash(String content) {
+        if (content == null) {
+            return NO_CONTENT_HASH;
+        }
+        return nonZero(fnv1a(content.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    private static long keyHash(String qiraId) {
+        return nonZero(fnv1a(qiraId.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    private static long fnv1a(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        // murmur3 fmix64 to spread low-entropy keys across slots
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+    
+    private static long nonZero(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+    
+    private static int home(long key, int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+    
+    private static int findSlot(long[] table, long key) {
+        int mask = table.length - 1;
+        int slot = home(key, mask);
+        while (table[slot] != EMPTY && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        long[] newKeys = new long[capacity];
+        long[] newValues = new long[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = findSlot(newKeys, oldKeys[i]);
+                newKeys[slot] = oldKeys[i];
+                newValues[slot] = oldValues[i];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+}
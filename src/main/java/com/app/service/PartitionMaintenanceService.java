@@ -0,0 +1,114 @@
+package com.app.service;
+
+import com.app.repository.IssueRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Keeps the monthly created_at partitions of issue_records ahead of the data
+ * and optionally detaches months that fall outside the retention window.
+ */
+@Service
+public class PartitionMaintenanceService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+    
+    private final IssueRecordRepository repository;
+    
+    @Value("${partition.months-ahead:3}")
+    private int monthsAhead;
+    
+    @Value("${partition.retention-months:0}")
+    private int retentionMonths;
+    
+    @Value("${partition.search-backfill.batch-size:1000}")
+    private int backfillBatchSize;
+    
+    public PartitionMaintenanceService(IssueRecordRepository repository) {
+        this.repository = repository;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        runMaintenance();
+    }
+    
+    /**
+     * Daily partition maintenance
+     * Runs at 1:30 AM by default, ahead of the monthly ingestion job
+     */
+    @Scheduled(cron = "${partition.maintenance.cron:0 30 1 * * ?}")
+    public void scheduledMaintenance() {
+        runMaintenance();
+    }
+    
+    private void runMaintenance() {
+        try {
+            ensureFuturePartitions();
+            detachExpiredPartitions();
+            backfillSearchVectors();
+        } catch (Exception e) {
+            // Rows for months without a partition still land in the default partition
+            logger.error("Partition maintenance failed", e);
+        }
+    }
+    
+    /**
+     * Create partitions for the current month and the configured number of months ahead
+     */
+    public void ensureFuturePartitions() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate month = current.plusMonths(i).atDay(1);
+            String partition = repository.createMonthlyPartition(month);
+            logger.debug("Ensured partition {} for {}", partition, month);
+        }
+        logger.info("Partitions ensured through {}", current.plusMonths(monthsAhead));
+    }
+    
+    /**
+     * Fill search_vector for rows that predate its trigger, partition by partition, one batch
+     * per transaction so no long lock is held; a no-op once every row has one
+     * @return Number of rows filled
+     */
+    public long backfillSearchVectors() {
+        long filled = 0;
+        for (String partition : repository.findPartitionNames()) {
+            int batch;
+            do {
+                batch = repository.backfillSearchVectorBatch(partition, backfillBatchSize);
+                filled += batch;
+            } while (batch == backfillBatchSize);
+        }
+        if (filled > 0) {
+            logger.info("Backfilled search vectors of {} issue records", filled);
+        }
+        return filled;
+    }
+    
+    /**
+     * Detach partitions older than the retention window (disabled when retention is 0)
+     * Detached tables are kept so they can be archived or dropped separately.
+     */
+    public List<String> detachExpiredPartitions() {
+        if (retentionMonths <= 0) {
+            return List.of();
+        }
+        LocalDate cutoff = YearMonth.now(ZoneOffset.UTC).minusMonths(retentionMonths).atDay(1);
+        List<String> detached = repository.detachPartitionsBefore(cutoff);
+        if (!detached.isEmpty()) {
+            logger.info("Detached {} partitions older than {}: {}", detached.size(), cutoff, detached);
+        }
+        return detached;
+    }
+}
@@ -0,0 +1,317 @@
+package com.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Heap budget for tickets in flight between the fetch and upsert stages of the ingestion
+ * pipeline. Each run gets the whole budget as its own Allowance: runs on a node are one at a
+ * time (the ingestion lock, the single work-queue worker), and a run never waits on memory
+ * another run holds.
+ * A page is charged from the moment it is fetched until its records are written, at an
+ * estimated HEAP_PER_JSON_BYTE times its QIRA response size (JsonNode trees plus the mapped
+ * records). When a page does not fit, the fetch stage writes it to a temp file instead
+ * (up to ingestion.pipeline.spill.max-mb on disk, shared by the node) and the map stage reads
+ * it back; with spilling off or the disk cap reached, fetching pauses until the upsert stage
+ * frees memory.
+ */
+@Component
+public class PipelineMemoryBudget {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PipelineMemoryBudget.class);
+    
+    // Rough heap cost of a fetched ticket per byte of its JSON
+    static final int HEAP_PER_JSON_BYTE = 4;
+    // How often a paused stage checks whether its run was aborted
+    private static final long POLL_MILLIS = 200;
+    
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final long budgetBytes;
+    private final boolean spillEnabled;
+    private final Path spillDir;
+    private final long spillMaxBytes;
+    
+    // Totals over the node's runs, for the gauges
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private final AtomicLong spilledBytes = new AtomicLong();
+    
+    private final Counter pauses;
+    private final Counter spilledPages;
+    
+    public PipelineMemoryBudget(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${ingestion.pipeline.memory-budget-mb:0}") long budgetMb,
+            @Value("${ingestion.pipeline.spill.enabled:true}") boolean spillEnabled,
+            @Value("${ingestion.pipeline.spill.dir:${java.io.tmpdir}}") String spillDir,
+            @Value("${ingestion.pipeline.spill.max-mb:1024}") long spillMaxMb) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        // 0: a quarter of the heap, leaving the rest to the report, the caches and the web tier
+        this.budgetBytes = budgetMb > 0 ? budgetMb * 1024 * 1024 : Runtime.getRuntime().maxMemory() / 4;
+        this.spillEnabled = spillEnabled;
+        this.spillDir = Paths.get(spillDir);
+        this.spillMaxBytes = Math.max(0, spillMaxMb) * 1024 * 1024;
+        this.pauses = Counter.builder("qira.ingestion.pipeline.budget.pauses")
+            .description("Times the fetch or map stage waited for the memory budget")
+            .register(meterRegistry);
+        this.spilledPages = Counter.builder("qira.ingestion.pipeline.spilled.pages")
+            .description("Fetched pages written to spill files")
+            .register(meterRegistry);
+        logger.info("Ingestion memory budget: {} MB per run, spill to {}: {}", budgetBytes / (1024 * 1024),
+            this.spillDir, spillEnabled ? "up to " + spillMaxMb + " MB" : "off");
+    }
+    
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("qira.ingestion.pipeline.inflight.bytes", this, PipelineMemoryBudget::getInFlightBytes)
+            .description("Estimated heap held by tickets between fetch and upsert")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("qira.ingestion.pipeline.spilled.bytes", this, PipelineMemoryBudget::getSpilledBytes)
+            .description("Fetched pages waiting in spill files")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Estimated heap cost of a page of tickets
+     */
+    public long estimate(long jsonBytes) {
+        return Math.max(0, jsonBytes) * HEAP_PER_JSON_BYTE;
+    }
+    
+    /**
+     * A fresh budget for one pipeline run; close it when the run ends
+     */
+    public Allowance allowance() {
+        return new Allowance();
+    }
+    
+    /**
+     * Write a page of tickets to a spill file, if spilling is on and the disk cap allows
+     * @return The file, or null if the page has to stay in memory
+     */
+    public Path spill(List<JsonNode> tickets, long jsonBytes) {
+        if (!spillEnabled || !reserveSpill(jsonBytes)) {
+            return null;
+        }
+        Path file = null;
+        try {
+            Files.createDirectories(spillDir);
+            file = Files.createTempFile(spillDir, "qira-page-", ".json");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                objectMapper.writeValue(out, tickets);
+            }
+            spilledPages.increment();
+            return file;
+        } catch (IOException e) {
+            // A full or read-only disk: keep the page in memory and let the budget pause fetching
+            logger.warn("Failed to spill a page of {} tickets to {}: {}", tickets.size(), spillDir, e.getMessage());
+            delete(file);
+            spilledBytes.addAndGet(-jsonBytes);
+            return null;
+        }
+    }
+    
+    /**
+     * Read a spilled page back and delete its file
+     */
+    public List<JsonNode> load(Path file, long jsonBytes) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            JsonNode page = objectMapper.readTree(in);
+            List<JsonNode> tickets = new ArrayList<>(page.size());
+            page.forEach(tickets::add);
+            return tickets;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read spilled page " + file, e);
+        } finally {
+            discard(file, jsonBytes);
+        }
+    }
+    
+    /**
+     * Delete a spilled page that will not be read, e.g. after a cancelled run
+     */
+    public void discard(Path file, long jsonBytes) {
+        delete(file);
+        spilledBytes.addAndGet(-jsonBytes);
+    }
+    
+    public long getInFlightBytes() {
+        return inFlightBytes.get();
+    }
+    
+    public long getSpilledBytes() {
+        return spilledBytes.get();
+    }
+    
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+    
+    private boolean reserveSpill(long jsonBytes) {
+        long current;
+        do {
+            current = spilledBytes.get();
+            if (current + jsonBytes > spillMaxBytes) {
+                return false;
+            }
+        } while (!spilledBytes.compareAndSet(current, current + jsonBytes));
+        return true;
+    }
+    
+    private static void delete(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete spill file {}: {}", file, e.getMessage());
+        }
+    }
+    
+    /**
+     * Memory charged by one run. In-memory pages are charged by the fetch stage and marked
+     * queued until the map stage takes them. A spilled page at the head of the queue is let
+     * through as soon as the only memory in flight belongs to pages queued behind it, since
+     * only the map stage could free that; so the map stage never waits on itself.
+     * One page is always admitted when nothing is in flight, so an oversized page slows a run
+     * down instead of stalling it.
+     */
+    public class Allowance {
+        // Guarded by this
+        private long inFlight;
+        private long queued;
+        private boolean closed;
+        
+        private Allowance() {
+        }
+        
+        /**
+         * Charge an in-memory page the fetch stage is about to queue, if it fits
+         */
+        public synchronized boolean tryChargeQueued(long bytes) {
+            if (closed || !fits(bytes)) {
+                return false;
+            }
+            charge(bytes);
+            queued += bytes;
+            return true;
+        }
+        
+        /**
+         * Charge an in-memory page the fetch stage is about to queue, waiting until it fits
+         * @param aborted Checked while waiting
+         * @return false if aborted or closed first; nothing is charged
+         */
+        public synchronized boolean chargeQueued(long bytes, BooleanSupplier aborted) throws InterruptedException {
+            if (!await(() -> fits(bytes), aborted)) {
+                return false;
+            }
+            charge(bytes);
+            queued += bytes;
+            return true;
+        }
+        
+        /**
+         * The map stage took an in-memory page off the queue; its charge stays until release
+         */
+        public synchronized void dequeued(long bytes) {
+            if (!closed) {
+                queued -= bytes;
+            }
+        }
+        
+        /**
+         * Charge a spilled page the map stage is about to read back, waiting only while pages
+         * past the map stage (mapped or being written) hold memory
+         * @return false if aborted or closed first; nothing is charged
+         */
+        public synchronized boolean chargeHead(long bytes, BooleanSupplier aborted) throws InterruptedException {
+            if (!await(() -> inFlight == queued || fits(bytes), aborted)) {
+                return false;
+            }
+            charge(bytes);
+            return true;
+        }
+        
+        public synchronized void release(long bytes) {
+            if (closed || bytes <= 0) {
+                return;
+            }
+            inFlight -= bytes;
+            inFlightBytes.addAndGet(-bytes);
+            notifyAll();
+        }
+        
+        /**
+         * Release everything the run still holds; later charges fail and releases are ignored
+         */
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            inFlightBytes.addAndGet(-inFlight);
+            inFlight = 0;
+            queued = 0;
+            notifyAll();
+        }
+        
+        synchronized long getInFlight() {
+            return inFlight;
+        }
+        
+        private boolean fits(long bytes) {
+            return inFlight == 0 || inFlight + bytes <= budgetBytes;
+        }
+        
+        private void charge(long bytes) {
+            inFlight += bytes;
+            inFlightBytes.addAndGet(bytes);
+        }
+        
+        private boolean await(BooleanSupplier admitted, BooleanSupplier aborted) throws InterruptedException {
+            if (closed) {
+                return false;
+            }
+            if (admitted.getAsBoolean()) {
+                return true;
+            }
+            pauses.increment();
+            logger.debug("Ingestion over its memory budget ({} of {} bytes in flight), pausing", inFlight, budgetBytes);
+            while (!closed && !admitted.getAsBoolean()) {
+                if (aborted.getAsBoolean()) {
+                    return false;
+                }
+                wait(POLL_MILLIS);
+            }
+            return !closed;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.app.service;
+
+import com.app.client.QiraClient;
+import com.app.config.ReplicaRoutingDataSource;
+import com.app.dto.QiraPageResponse;
+import com.app.dto.ReconciliationReport;
+import com.app.dto.UpsertStats;
+import com.app.model.IssueRecord;
+import com.app.repository.IssueRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Checksum reconciliation between QIRA and issue_records, one created month (UTC) at a time.
+ * Each window costs one single-row QIRA search (total + latest updated) and one aggregate query;
+ * only windows whose count or max updated differ are refetched, after bisecting windows that
+ * are too large to refetch in one go. Rows QIRA no longer returns for a refetched window are
+ * tombstoned with a window-scoped generation sweep.
+ */
+@Service
+public class ReconciliationService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
+    
+    private final QiraClient qiraClient;
+    private final TicketMapper ticketMapper;
+    private final IngestionPipeline ingestionPipeline;
+    private final IssueSweepService issueSweepService;
+    private final IssueStatsService issueStatsService;
+    private final IssueRecordRepository repository;
+    
+    // Drifted windows with more QIRA tickets than this are bisected before refetching
+    @Value("${reconcile.refetch-max-tickets:2000}")
+    private int refetchMaxTickets;
+    
+    // Windows are never bisected below this span
+    @Value("${reconcile.min-window-hours:24}")
+    private long minWindowHours;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReconciliationReport lastReport;
+    
+    public ReconciliationService(
+            QiraClient qiraClient,
+            TicketMapper ticketMapper,
+            IngestionPipeline ingestionPipeline,
+            IssueSweepService issueSweepService,
+            IssueStatsService issueStatsService,
+            IssueRecordRepository repository) {
+        this.qiraClient = qiraClient;
+        this.ticketMapper = ticketMapper;
+        this.ingestionPipeline = ingestionPipeline;
+        this.issueSweepService = issueSweepService;
+        this.issueStatsService = issueStatsService;
+        this.repository = repository;
+    }
+    
+    /**
+     * Reconcile every created month from the earliest known ticket up to the current month
+     * Runs on the IngestionJobManager executor as a RECONCILE job.
+     * @param cancelled Checked between windows and at page boundaries while refetching
+     * @return Report of this run, or the running one if a reconciliation is already in progress
+     */
+    ReconciliationReport reconcile(BooleanSupplier cancelled) {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Reconciliation already running, skipping this trigger");
+            return lastReport;
+        }
+        
+        ReconciliationReport report = new ReconciliationReport();
+        lastReport = report;
+        // Compares against data just written by ingestion: read from the primary
+        try {
+            ReplicaRoutingDataSource.primaryScope(() -> reconcileWindows(report, cancelled));
+            report.markCompleted();
+            logger.info("Reconciliation completed: {} windows checked, {} drifted, {} refetched ({} tickets), " +
+                        "inserted {}, updated {}, tombstoned {}",
+                report.getWindowsChecked(), report.getWindowsDrifted(), report.getWindowsRefetched(),
+                report.getTicketsRefetched(), report.getInserted(), report.getUpdated(), report.getTombstoned());
+        } catch (CancellationException e) {
+            logger.warn("Reconciliation cancelled after {} windows", report.getWindowsChecked());
+            report.markCancelled();
+        } catch (Exception e) {
+            logger.error("Reconciliation failed", e);
+            report.markFailed(e.getMessage());
+        } finally {
+            if (report.hasChanges()) {
+                issueStatsService.invalidate();
+            }
+            running.set(false);
+        }
+        return report;
+    }
+    
+    public ReconciliationReport getLastReport() {
+        return lastReport;
+    }
+    
+    public boolean isRunning() {
+        return running.get();
+    }
+    
+    private void reconcileWindows(ReconciliationReport report, BooleanSupplier cancelled) {
+        OffsetDateTime earliest = earliestCreated();
+        if (earliest == null) {
+            logger.info("Reconciliation: no tickets in QIRA or the database");
+            return;
+        }
+        YearMonth month = YearMonth.from(earliest.withOffsetSameInstant(ZoneOffset.UTC));
+        YearMonth last = YearMonth.now(ZoneOffset.UTC);
+        for (; !month.isAfter(last); month = month.plusMonths(1)) {
+            OffsetDateTime from = month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+            reconcileWindow(from, from.plusMonths(1), report, cancelled);
+        }
+    }
+    
+    private void reconcileWindow(OffsetDateTime from, OffsetDateTime to, ReconciliationReport report,
+                                 BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Reconciliation cancelled");
+        }
+        String windowJql = qiraClient.createdWindowJql(from, to);
+        QiraPageResponse remote = qiraClient.searchTickets(windowJql + " ORDER BY updated DESC", 0, 1, "created,updated");
+        int remoteCount = remote.getTotal() != null ? remote.getTotal() : 0;
+        OffsetDateTime remoteMaxUpdated = remoteCount > 0 ? firstUpdatedAt(remote) : null;
+        
+        Object[] local = repository.digestByCreatedWindow(from, to).get(0);
+        long localCount = ((Number) local[0]).longValue();
+        OffsetDateTime localMaxUpdated = (OffsetDateTime) local[1];
+        
+        boolean drifted = remoteCount != localCount
+            || !Objects.equals(truncate(remoteMaxUpdated), truncate(localMaxUpdated));
+        report.windowChecked(drifted);
+        if (!drifted) {
+            return;
+        }
+        logger.info("Window [{}, {}) drifted: QIRA {} tickets (max updated {}), database {} (max updated {})",
+            from, to, remoteCount, remoteMaxUpdated, localCount, localMaxUpdated);
+        
+        Duration span = Duration.between(from, to);
+        if (remoteCount > refetchMaxTickets && span.toHours() >= 2 * minWindowHours) {
+            // JQL dates have minute precision
+            OffsetDateTime mid = from.plus(span.dividedBy(2)).truncatedTo(ChronoUnit.MINUTES);
+            reconcileWindow(from, mid, report, cancelled);
+            reconcileWindow(mid, to, report, cancelled);
+            return;
+        }
+        refetchWindow(from, to, windowJql, report, cancelled);
+    }
+    
+    /**
+     * Refetch and upsert one window, then tombstone rows in it that QIRA no longer returns
+     */
+    private void refetchWindow(OffsetDateTime from, OffsetDateTime to, String windowJql, ReconciliationReport report,
+                               BooleanSupplier cancelled) {
+        long generation = issueSweepService.startGeneration();
+        IngestionPipeline.Result result = ingestionPipeline.run(windowJql, null, generation, cancelled);
+        
+        UpsertStats stats = result.getUpsertStats();
+        int tombstoned = 0;
+        if (result.getMapped() == result.getFetched() && stats.getFailed() == 0) {
+            tombstoned = issueSweepService.sweepWindow(generation, from, to, result.getMapped());
+        } else {
+            logger.warn("Window [{}, {}): skipping sweep, {} of {} tickets mapped, {} failed upserts",
+                from, to, result.getMapped(), result.getFetched(), stats.getFailed());
+        }
+        report.windowRefetched(result.getFetched(), stats, tombstoned);
+    }
+    
+    /**
+     * Earliest created time known to either side
+     */
+    private OffsetDateTime earliestCreated() {
+        OffsetDateTime local = repository.findEarliestCreatedAt().orElse(null);
+        QiraPageResponse oldest = qiraClient.searchTickets("ORDER BY created ASC", 0, 1, "created,updated");
+        OffsetDateTime remote = null;
+        if (oldest.getItems() != null && !oldest.getItems().isEmpty()) {
+            IssueRecord record = ticketMapper.map(oldest.getItems().get(0).getRawData());
+            remote = record != null ? record.getCreatedAt() : null;
+        }
+        if (local == null || remote == null) {
+            return local != null ? local : remote;
+        }
+        return local.isBefore(remote) ? local : remote;
+    }
+    
+    private OffsetDateTime firstUpdatedAt(QiraPageResponse page) {
+        if (page.getItems() == null || page.getItems().isEmpty()) {
+            return null;
+        }
+        IssueRecord record = ticketMapper.map(page.getItems().get(0).getRawData());
+        return record != null ? record.getUpdatedAt() : null;
+    }
+    
+    private static OffsetDateTime truncate(OffsetDateTime value) {
+        return value != null ? value.withOffsetSameInstant(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS) : null;
+    }
+}
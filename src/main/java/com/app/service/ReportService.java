@@ -1,21 +1,25 @@
 package com.app.service;
 
-import com.app.model.IssueRecord;
+import com.app.dto.IssueExportRow;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 @Service
 public class ReportService {
@@ -23,45 +27,88 @@ public class ReportService {
     private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
+    // Rows kept in memory by the streaming workbook before they are flushed to disk
+    private static final int ROW_ACCESS_WINDOW = 200;
+    private static final int MAX_DATA_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+    
+    private static final String[] HEADERS = {
+        "QIRA ID", "Project", "Priority", "Issue Type", "Summary", "Description",
+        "Reporter", "Assigned Team", "Assignee", "Status", "Due Date", "Created",
+        "Resolved", "First Response", "Updated", "Related Jira", "Linked Issues",
+        "Support Category", "Support Action Date", "Support Actioned By", 
+        "Support Priority", "Support Remark", "Comment", "ISBN/Order Number",
+        "Book ID", "Resolution", "Caused By Books", "DOI", "Erratum DOI",
+        "Error Location", "Error Type", "Production System", "Request Action",
+        "Publication Status", "Category"
+    };
+    
+    private final IssueService issueService;
+    
+    public ReportService(IssueService issueService) {
+        this.issueService = issueService;
+    }
+    
     /**
-     * Generate Excel report from issue records
-     * @param records List of issue records
+     * Generate Excel report for issues created in [from, to), optionally filtered by team
+     * Rows are streamed from the database inside a read-only transaction and written
+     * through a streaming workbook, so memory use does not grow with the range size.
      * @param outputPath Path where Excel file should be saved
      * @return Path to generated file
      */
-    public Path generateExcel(List<IssueRecord> records, Path outputPath) throws IOException {
-        logger.info("Generating Excel report for {} records to {}", records.size(), outputPath);
+    @Transactional(readOnly = true)
+    public Path generateExcel(OffsetDateTime from, OffsetDateTime to, String team, Path outputPath) throws IOException {
+        try (Stream<IssueExportRow> rows = issueService.streamExportRows(from, to, team)) {
+            return generateExcel(rows, outputPath);
+        }
+    }
+    
+    /**
+     * Generate Excel report from a stream of issue export rows
+     * @param records Stream of export rows, consumed once
+     * @param outputPath Path where Excel file should be saved
+     * @return Path to generated file
+     */
+    public Path generateExcel(Stream<IssueExportRow> records, Path outputPath) throws IOException {
+        logger.info("Generating Excel report to {}", outputPath);
         
-        try (Workbook workbook = new XSSFWorkbook()) {
-            // Create summary sheet
-            createSummarySheet(workbook, records);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            // Data sheet first: summary counts are collected while rows stream through
+            SummaryCounts counts = createDataSheets(workbook, records.iterator());
             
-            // Create data sheet
-            createDataSheet(workbook, records);
+            // Summary sheet is written last but placed first
+            createSummarySheet(workbook, counts);
+            workbook.setSheetOrder("Summary", 0);
+            workbook.setActiveSheet(0);
+            workbook.setSelectedTab(0);
             
             // Write to file
             try (FileOutputStream fileOut = new FileOutputStream(outputPath.toFile())) {
                 workbook.write(fileOut);
             }
             
-            logger.info("Excel report generated successfully: {}", outputPath);
+            logger.info("Excel report generated successfully for {} records: {}", counts.total, outputPath);
             return outputPath;
-            
+        
         } catch (IOException e) {
             logger.error("Failed to generate Excel report", e);
             throw e;
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
     }
     
     /**
      * Create summary sheet with statistics
      */
-    private void createSummarySheet(Workbook workbook, List<IssueRecord> records) {
-        Sheet sheet = workbook.createSheet("Summary");
+    private void createSummarySheet(Workbook workbook, SummaryCounts counts) {
+        SXSSFSheet sheet = (SXSSFSheet) workbook.createSheet("Summary");
+        sheet.trackAllColumnsForAutoSizing();
         
         // Create styles
         CellStyle headerStyle = createHeaderStyle(workbook);
-        CellStyle dataStyle = workbook.createCellStyle();
         
         int rowNum = 0;
         
@@ -76,7 +123,7 @@ public class ReportService {
         // Total count
         Row totalRow = sheet.createRow(rowNum++);
         totalRow.createCell(0).setCellValue("Total Tickets:");
-        totalRow.createCell(1).setCellValue(records.size());
+        totalRow.createCell(1).setCellValue(counts.total);
         
         // Generation date
         Row dateRow = sheet.createRow(rowNum++);
@@ -91,11 +138,7 @@ public class ReportService {
         statusHeader.setCellValue("Status Breakdown");
         statusHeader.setCellStyle(headerStyle);
         
-        Map<String, Long> statusCounts = records.stream()
-            .filter(r -> r.getStatus() != null)
-            .collect(Collectors.groupingBy(IssueRecord::getStatus, Collectors.counting()));
-        
-        for (Map.Entry<String, Long> entry : statusCounts.entrySet()) {
+        for (Map.Entry<String, Long> entry : counts.byStatus.entrySet()) {
             Row row = sheet.createRow(rowNum++);
             row.createCell(0).setCellValue(entry.getKey());
             row.createCell(1).setCellValue(entry.getValue());
@@ -109,13 +152,8 @@ public class ReportService {
         typeHeader.setCellValue("Top Issue Types");
         typeHeader.setCellStyle(headerStyle);
         
-        final int typeStartRow = rowNum;
-        Map<String, Long> typeCounts = records.stream()
-            .filter(r -> r.getIssueType() != null)
-            .collect(Collectors.groupingBy(IssueRecord::getIssueType, Collectors.counting()));
-        
-        AtomicInteger typeRowNum = new AtomicInteger(typeStartRow);
-        typeCounts.entrySet().stream()
+        AtomicInteger typeRowNum = new AtomicInteger(rowNum);
+        counts.byIssueType.entrySet().stream()
             .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
             .limit(10)
             .forEach(entry -> {
@@ -130,10 +168,11 @@ public class ReportService {
     }
     
     /**
-     * Create data sheet with all records
+     * Write all records to data sheets, starting a new sheet when Excel's row limit is reached
+     * @return Summary counts collected along the way
      */
-    private void createDataSheet(Workbook workbook, List<IssueRecord> records) {
-        Sheet sheet = workbook.createSheet("Tickets");
+    private SummaryCounts createDataSheets(Workbook workbook, Iterator<IssueExportRow> records) {
+        SummaryCounts counts = new SummaryCounts();
         
         // Create styles
         CellStyle headerStyle = createHeaderStyle(workbook);
@@ -141,29 +180,21 @@ public class ReportService {
         CreationHelper createHelper = workbook.getCreationHelper();
         dateStyle.setDataFormat(createHelper.createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
         
-        int rowNum = 0;
-        
-        // Header row
-        Row headerRow = sheet.createRow(rowNum++);
-        String[] headers = {
-            "QIRA ID", "Project", "Priority", "Issue Type", "Summary", "Description",
-            "Reporter", "Assigned Team", "Assignee", "Status", "Due Date", "Created",
-            "Resolved", "First Response", "Updated", "Related Jira", "Linked Issues",
-            "Support Category", "Support Action Date", "Support Actioned By", 
-            "Support Priority", "Support Remark", "Comment", "ISBN/Order Number",
-            "Book ID", "Resolution", "Caused By Books", "DOI", "Erratum DOI",
-            "Error Location", "Error Type", "Production System", "Request Action",
-            "Publication Status", "Category"
-        };
-        
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
+        int sheetIndex = 1;
+        SXSSFSheet sheet = createDataSheet(workbook, "Tickets", headerStyle);
+        int rowNum = 1;
         
         // Data rows
-        for (IssueRecord record : records) {
+        while (records.hasNext()) {
+            IssueExportRow record = records.next();
+            counts.add(record);
+            
+            if (rowNum > MAX_DATA_ROWS_PER_SHEET) {
+                autoSizeDataColumns(sheet);
+                sheet = createDataSheet(workbook, "Tickets " + (++sheetIndex), headerStyle);
+                rowNum = 1;
+            }
+            
             Row row = sheet.createRow(rowNum++);
             int colNum = 0;
             
@@ -204,8 +235,36 @@ public class ReportService {
             setCellValue(row, colNum++, record.getQiraTicketsCategory());
         }
         
-        // Auto-size important columns
-        for (int i = 0; i < Math.min(10, headers.length); i++) {
+        autoSizeDataColumns(sheet);
+        return counts;
+    }
+    
+    /**
+     * Create a data sheet with its header row
+     */
+    private SXSSFSheet createDataSheet(Workbook workbook, String name, CellStyle headerStyle) {
+        SXSSFSheet sheet = (SXSSFSheet) workbook.createSheet(name);
+        
+        // Widths of the important columns are tracked as rows are flushed
+        for (int i = 0; i < Math.min(10, HEADERS.length); i++) {
+            sheet.trackColumnForAutoSizing(i);
+        }
+        
+        // Header row
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(HEADERS[i]);
+            cell.setCellStyle(headerStyle);
+        }
+        return sheet;
+    }
+    
+    /**
+     * Auto-size important columns
+     */
+    private void autoSizeDataColumns(SXSSFSheet sheet) {
+        for (int i = 0; i < Math.min(10, HEADERS.length); i++) {
             sheet.autoSizeColumn(i);
         }
     }
@@ -248,4 +307,23 @@ public class ReportService {
             cell.setCellStyle(dateStyle);
         }
     }
+    
+    /**
+     * Running totals for the summary sheet
+     */
+    private static class SummaryCounts {
+        private long total;
+        private final Map<String, Long> byStatus = new HashMap<>();
+        private final Map<String, Long> byIssueType = new HashMap<>();
+        
+        void add(IssueExportRow record) {
+            total++;
+            if (record.getStatus() != null) {
+                byStatus.merge(record.getStatus(), 1L, Long::sum);
+            }
+            if (record.getIssueType() != null) {
+                byIssueType.merge(record.getIssueType(), 1L, Long::sum);
+            }
+        }
+    }
 }
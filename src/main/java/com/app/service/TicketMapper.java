@@ -184,7 +184,7 @@ public class TicketMapper {
                 logger.warn("Ticket missing qiraId, skipping. Raw: {}", ticketNode.toString().substring(0, Math.min(200, ticketNode.toString().length())));
                 return null;
             }
-            
+        
         } catch (Exception e) {
             logger.error("Error mapping ticket, will log for investigation: {}", e.getMessage());
             logger.debug("Failed ticket data: {}", ticketNode);
@@ -198,6 +198,15 @@ public class TicketMapper {
         return record;
     }
     
+    /**
+     * Last update time of a ticket, read the same way map() reads it
+     * @return null if the ticket has no parseable updated field
+     */
+    public OffsetDateTime updatedAt(JsonNode ticketNode) {
+        JsonNode fieldsNode = ticketNode.has("fields") ? ticketNode.get("fields") : ticketNode;
+        return getDateValue(fieldsNode, "Updated", "updatedAt", "updated");
+    }
+    
     /**
      * Get text value from JSON node, trying multiple field name variations
      */
@@ -6,6 +6,7 @@ import org.springframework.web.bind.annotation.*;
 import com.app.service.IssueService;
 import com.app.model.IssueRecord;
 import com.app.dto.IssueRecordDto;
+import com.app.dto.IssueSearchHit;
 import java.util.List;
 import javax.validation.Valid;
 
@@ -65,7 +66,7 @@ public class ProtocolTestController {
     
     // FIXED: Uses parameterized queries through service layer
     @GetMapping("/search")
-    public List<IssueRecord> searchIssues(@RequestParam String query) {
+    public List<IssueSearchHit> searchIssues(@RequestParam String query) {
         if (query == null || query.trim().isEmpty()) {
             logger.warn("Empty search query provided");
             return List.of();
@@ -0,0 +1,11 @@
+-- Named leases shared by all application nodes. A node holds a lock while lease_until is in
+-- the future and extends it with heartbeats; once a holder stops heartbeating the lease runs
+-- out and another node may take the lock. Times come from the database clock only.
+CREATE TABLE IF NOT EXISTS cluster_locks (
+    name          VARCHAR(100) PRIMARY KEY,
+    owner         VARCHAR(255),
+    acquired_at   TIMESTAMPTZ,
+    heartbeat_at  TIMESTAMPTZ,
+    lease_until   TIMESTAMPTZ NOT NULL,
+    released_at   TIMESTAMPTZ
+);
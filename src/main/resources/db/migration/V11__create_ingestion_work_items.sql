@@ -0,0 +1,29 @@
+-- Work items of a distributed full sync: one created-date window each. Any node claims the
+-- oldest claimable item with FOR UPDATE SKIP LOCKED, holds it under a lease it renews while
+-- fetching, mapping and upserting the window, and marks it DONE with its counts. An item whose
+-- lease runs out (the worker died) is claimable again until max attempts is reached.
+CREATE TABLE IF NOT EXISTS ingestion_work_items (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    run_id           VARCHAR(64) NOT NULL,
+    sync_generation  BIGINT NOT NULL,
+    window_from      TIMESTAMPTZ NOT NULL,
+    window_to        TIMESTAMPTZ NOT NULL,
+    status           VARCHAR(16) NOT NULL DEFAULT 'PENDING', -- PENDING, CLAIMED, DONE, FAILED, CANCELLED
+    owner            VARCHAR(255),
+    lease_until      TIMESTAMPTZ,
+    attempts         INT NOT NULL DEFAULT 0,
+    fetched          INT NOT NULL DEFAULT 0,
+    mapped           INT NOT NULL DEFAULT 0,
+    inserted         INT NOT NULL DEFAULT 0,
+    updated          INT NOT NULL DEFAULT 0,
+    skipped          INT NOT NULL DEFAULT 0,
+    failed           INT NOT NULL DEFAULT 0,
+    last_error       TEXT,
+    created_at       TIMESTAMPTZ NOT NULL DEFAULT now(),
+    finished_at      TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS idx_ingestion_work_items_run ON ingestion_work_items (run_id, status);
+-- Claim scan: only open items
+CREATE INDEX IF NOT EXISTS idx_ingestion_work_items_open ON ingestion_work_items (id)
+    WHERE status IN ('PENDING', 'CLAIMED');
@@ -0,0 +1,47 @@
+-- Finished ingestion and reconciliation jobs, kept across restarts for trend analysis.
+-- One row per job (id is the job id) and one job_run_stages row per stage of the job.
+CREATE TABLE IF NOT EXISTS job_runs (
+    id                     VARCHAR(64) PRIMARY KEY,
+    type                   VARCHAR(32) NOT NULL,
+    status                 VARCHAR(32) NOT NULL,
+    node_id                VARCHAR(255),
+    max_records            INT,
+    queued_at              TIMESTAMPTZ,
+    started_at             TIMESTAMPTZ,
+    finished_at            TIMESTAMPTZ,
+    duration_ms            BIGINT NOT NULL DEFAULT 0,
+    tickets_fetched        INT NOT NULL DEFAULT 0,
+    tickets_mapped         INT NOT NULL DEFAULT 0,
+    tickets_written        INT NOT NULL DEFAULT 0,
+    inserted               INT NOT NULL DEFAULT 0,
+    updated                INT NOT NULL DEFAULT 0,
+    failed                 INT NOT NULL DEFAULT 0,
+    bytes_received         BIGINT NOT NULL DEFAULT 0,
+    throughput_per_second  DOUBLE PRECISION NOT NULL DEFAULT 0,
+    error_count            INT NOT NULL DEFAULT 0,
+    error_summary          TEXT,
+    -- Set when the run took much longer than the trailing median of comparable runs
+    regression             BOOLEAN NOT NULL DEFAULT FALSE,
+    baseline_duration_ms   BIGINT
+);
+
+-- Listing (newest first, optionally by type) and the trailing-median lookup
+CREATE INDEX IF NOT EXISTS idx_job_runs_started ON job_runs (started_at DESC);
+CREATE INDEX IF NOT EXISTS idx_job_runs_type_finished ON job_runs (type, finished_at DESC);
+
+CREATE TABLE IF NOT EXISTS job_run_stages (
+    id                     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    run_id                 VARCHAR(64) NOT NULL REFERENCES job_runs (id) ON DELETE CASCADE,
+    stage                  VARCHAR(32) NOT NULL,
+    started_at             TIMESTAMPTZ NOT NULL,
+    finished_at            TIMESTAMPTZ,
+    duration_ms            BIGINT NOT NULL DEFAULT 0,
+    -- Time the stage spent blocked on its pipeline queues
+    wait_ms                BIGINT NOT NULL DEFAULT 0,
+    records                BIGINT NOT NULL DEFAULT 0,
+    bytes                  BIGINT NOT NULL DEFAULT 0,
+    throughput_per_second  DOUBLE PRECISION NOT NULL DEFAULT 0,
+    errors                 INT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_job_run_stages_run ON job_run_stages (run_id);
@@ -0,0 +1,14 @@
+-- Tickets that could not be ingested, with the raw QIRA payload, for inspection and replay.
+-- Job status only keeps per-category counts and a few samples; the full detail lives here.
+CREATE TABLE IF NOT EXISTS ingestion_dead_letters (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    job_id      VARCHAR(64),
+    qira_id     VARCHAR(255),
+    category    VARCHAR(64) NOT NULL,
+    message     TEXT,
+    payload     TEXT,
+    created_at  TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_ingestion_dead_letters_job ON ingestion_dead_letters (job_id, id);
+CREATE INDEX IF NOT EXISTS idx_ingestion_dead_letters_created ON ingestion_dead_letters (created_at);
@@ -0,0 +1,7 @@
+-- High-water marks of incremental syncs, shared by all nodes. The incremental sync fetches
+-- tickets updated since the watermark (minus an overlap) and moves it to its own start time.
+CREATE TABLE IF NOT EXISTS sync_watermarks (
+    name        VARCHAR(100) PRIMARY KEY,
+    watermark   TIMESTAMPTZ NOT NULL,
+    updated_at  TIMESTAMPTZ NOT NULL DEFAULT now()
+);
@@ -0,0 +1,67 @@
+-- Version of the stats rollup, bumped by every transaction that changes the rollup and
+-- committed with that change, so stats cache keys and ETags follow the committed data on
+-- every node.
+-- Every rollup writer (IssueStatsRollupService.apply, the sweep, the rebuild) bumps the
+-- version before it touches a rollup row. The version row is therefore always the first
+-- lock a writer takes, so writers with overlapping groups queue on it instead of
+-- deadlocking on each other's groups. Writers hold it until they commit; upserts change the
+-- rollup last, so the wait covers their rollup statements and the commit.
+CREATE TABLE IF NOT EXISTS issue_stats_version (
+    id       SMALLINT PRIMARY KEY DEFAULT 1 CHECK (id = 1),
+    version  BIGINT NOT NULL
+);
+
+-- Starts from the clock so ETags handed out by the in-memory version are not reused
+INSERT INTO issue_stats_version (id, version)
+VALUES (1, (extract(epoch FROM now()) * 1000)::BIGINT)
+ON CONFLICT (id) DO NOTHING;
+
+-- As in V9, bumping the version first
+CREATE OR REPLACE FUNCTION sweep_issue_records_window(
+    p_generation BIGINT, p_from TIMESTAMPTZ, p_to TIMESTAMPTZ, p_batch INT) RETURNS SETOF TEXT AS $$
+    UPDATE issue_stats_version SET version = version + 1 WHERE id = 1;
+    WITH victims AS (
+        SELECT id, created_at
+        FROM issue_records
+        WHERE deleted_at IS NULL AND sync_generation < p_generation
+          AND (p_from IS NULL OR created_at >= p_from)
+          AND (p_to IS NULL OR created_at < p_to)
+        LIMIT p_batch
+        FOR UPDATE SKIP LOCKED
+    ), tombstoned AS (
+        UPDATE issue_records i
+        SET deleted_at = now()
+        FROM victims v
+        WHERE i.id = v.id AND i.created_at IS NOT DISTINCT FROM v.created_at
+        RETURNING i.qira_id, i.created_at, i.assigned_team, i.status, i.issue_type, i.priority
+    ), decremented AS (
+        INSERT INTO issue_stats_rollup (month, team, status, issue_type, priority, issue_count)
+        SELECT date_trunc('month', created_at AT TIME ZONE 'UTC')::date,
+               assigned_team, status, issue_type, priority, -COUNT(*)
+        FROM tombstoned
+        GROUP BY 1, 2, 3, 4, 5
+        ORDER BY 1, 2, 3, 4, 5
+        ON CONFLICT ON CONSTRAINT uk_issue_stats_rollup_group
+        DO UPDATE SET issue_count = issue_stats_rollup.issue_count + EXCLUDED.issue_count
+    )
+    SELECT qira_id FROM tombstoned;
+$$ LANGUAGE sql;
+
+-- As in V8, bumping the version before taking the table lock
+CREATE OR REPLACE FUNCTION rebuild_issue_stats_rollup() RETURNS BIGINT AS $$
+DECLARE
+    v_groups BIGINT;
+BEGIN
+    UPDATE issue_stats_version SET version = version + 1 WHERE id = 1;
+    LOCK TABLE issue_stats_rollup IN EXCLUSIVE MODE;
+    DELETE FROM issue_stats_rollup;
+    INSERT INTO issue_stats_rollup (month, team, status, issue_type, priority, issue_count)
+    SELECT date_trunc('month', created_at AT TIME ZONE 'UTC')::date,
+           assigned_team, status, issue_type, priority, COUNT(*)
+    FROM issue_records
+    WHERE deleted_at IS NULL
+    GROUP BY 1, 2, 3, 4, 5;
+    GET DIAGNOSTICS v_groups = ROW_COUNT;
+    RETURN v_groups;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,43 @@
+-- Baseline schema for issue_records.
+-- IF NOT EXISTS keeps this a no-op on databases previously managed by ddl-auto=update.
+CREATE TABLE IF NOT EXISTS issue_records (
+    id                       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    qira_id                  VARCHAR(255) NOT NULL,
+    project                  VARCHAR(255),
+    priority                 VARCHAR(255),
+    issue_type               VARCHAR(255),
+    summary                  VARCHAR(1000),
+    description              TEXT,
+    reporter                 VARCHAR(255),
+    assigned_team            VARCHAR(255),
+    assignee                 VARCHAR(255),
+    status                   VARCHAR(255),
+    due_date                 TIMESTAMP(6) WITH TIME ZONE,
+    created_at               TIMESTAMP(6) WITH TIME ZONE,
+    resolved_at              TIMESTAMP(6) WITH TIME ZONE,
+    first_response_at        TIMESTAMP(6) WITH TIME ZONE,
+    updated_at               TIMESTAMP(6) WITH TIME ZONE,
+    related_jira_ticket      VARCHAR(255),
+    linked_issues            TEXT,
+    support_category         VARCHAR(255),
+    support_action_date      TIMESTAMP(6) WITH TIME ZONE,
+    support_actioned_by      VARCHAR(255),
+    support_priority         VARCHAR(255),
+    support_remark           TEXT,
+    comment                  TEXT,
+    isbn_order_number        VARCHAR(255),
+    book_id                  VARCHAR(255),
+    resolution               VARCHAR(255),
+    caused_by_books          TEXT,
+    doi_multi_line           TEXT,
+    erratum_doi              VARCHAR(255),
+    error_location_books     TEXT,
+    error_type_books         VARCHAR(255),
+    production_system_books  VARCHAR(255),
+    request_action_books     TEXT,
+    publication_status_books VARCHAR(255),
+    qira_tickets_category    VARCHAR(255),
+    raw_json                 TEXT,
+    ingested_at              TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT uk_issue_records_qira_id UNIQUE (qira_id)
+);
@@ -0,0 +1,8 @@
+-- Indexes for the date range / team export queries and status counts.
+-- Built CONCURRENTLY so existing tables stay writable; see the .conf file for the
+-- non-transactional execution this requires.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_issue_records_created_team
+    ON issue_records (created_at, assigned_team);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_issue_records_status
+    ON issue_records (status);
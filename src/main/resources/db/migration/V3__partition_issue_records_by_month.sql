@@ -0,0 +1,140 @@
+-- Convert issue_records into a table range-partitioned by created_at month (UTC).
+-- Partitioned tables require unique constraints to include the partition key, so
+-- qira_id uniqueness is enforced together with created_at (immutable per ticket).
+
+CREATE TABLE issue_records_partitioned (
+    id                       BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    qira_id                  VARCHAR(255) NOT NULL,
+    project                  VARCHAR(255),
+    priority                 VARCHAR(255),
+    issue_type               VARCHAR(255),
+    summary                  VARCHAR(1000),
+    description              TEXT,
+    reporter                 VARCHAR(255),
+    assigned_team            VARCHAR(255),
+    assignee                 VARCHAR(255),
+    status                   VARCHAR(255),
+    due_date                 TIMESTAMP(6) WITH TIME ZONE,
+    created_at               TIMESTAMP(6) WITH TIME ZONE,
+    resolved_at              TIMESTAMP(6) WITH TIME ZONE,
+    first_response_at        TIMESTAMP(6) WITH TIME ZONE,
+    updated_at               TIMESTAMP(6) WITH TIME ZONE,
+    related_jira_ticket      VARCHAR(255),
+    linked_issues            TEXT,
+    support_category         VARCHAR(255),
+    support_action_date      TIMESTAMP(6) WITH TIME ZONE,
+    support_actioned_by      VARCHAR(255),
+    support_priority         VARCHAR(255),
+    support_remark           TEXT,
+    comment                  TEXT,
+    isbn_order_number        VARCHAR(255),
+    book_id                  VARCHAR(255),
+    resolution               VARCHAR(255),
+    caused_by_books          TEXT,
+    doi_multi_line           TEXT,
+    erratum_doi              VARCHAR(255),
+    error_location_books     TEXT,
+    error_type_books         VARCHAR(255),
+    production_system_books  VARCHAR(255),
+    request_action_books     TEXT,
+    publication_status_books VARCHAR(255),
+    qira_tickets_category    VARCHAR(255),
+    raw_json                 TEXT,
+    ingested_at              TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT uk_issue_records_id_created UNIQUE (id, created_at),
+    CONSTRAINT uk_issue_records_qira_id_created UNIQUE NULLS NOT DISTINCT (qira_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Catches rows without created_at and months that have no partition yet
+CREATE TABLE issue_records_default PARTITION OF issue_records_partitioned DEFAULT;
+
+ALTER TABLE issue_records RENAME TO issue_records_unpartitioned;
+ALTER TABLE issue_records_partitioned RENAME TO issue_records;
+
+-- Creates the partition for the month containing p_month (idempotent).
+-- Rows already sitting in the default partition for that month are moved into it.
+CREATE OR REPLACE FUNCTION create_issue_records_partition(p_month DATE) RETURNS TEXT AS $$
+DECLARE
+    v_start TIMESTAMPTZ := date_trunc('month', p_month)::timestamp AT TIME ZONE 'UTC';
+    v_end   TIMESTAMPTZ := (date_trunc('month', p_month) + INTERVAL '1 month')::timestamp AT TIME ZONE 'UTC';
+    v_name  TEXT := 'issue_records_' || to_char(p_month, 'YYYY_MM');
+    v_cols  TEXT;
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN v_name;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM issue_records_default WHERE created_at >= v_start AND created_at < v_end) THEN
+        SELECT string_agg(quote_ident(column_name), ', ' ORDER BY ordinal_position) INTO v_cols
+        FROM information_schema.columns
+        WHERE table_schema = current_schema() AND table_name = 'issue_records' AND is_generated = 'NEVER';
+
+        ALTER TABLE issue_records DETACH PARTITION issue_records_default;
+        EXECUTE format('CREATE TABLE %I PARTITION OF issue_records FOR VALUES FROM (%L) TO (%L)', v_name, v_start, v_end);
+        EXECUTE format('WITH moved AS (DELETE FROM issue_records_default WHERE created_at >= %L AND created_at < %L RETURNING %s) '
+                       'INSERT INTO issue_records (%s) SELECT %s FROM moved', v_start, v_end, v_cols, v_cols, v_cols);
+        ALTER TABLE issue_records ATTACH PARTITION issue_records_default DEFAULT;
+    ELSE
+        EXECUTE format('CREATE TABLE %I PARTITION OF issue_records FOR VALUES FROM (%L) TO (%L)', v_name, v_start, v_end);
+    END IF;
+
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Detaches (does not drop) monthly partitions that end on or before p_before.
+CREATE OR REPLACE FUNCTION detach_issue_records_partitions_before(p_before DATE) RETURNS SETOF TEXT AS $$
+DECLARE
+    v_partition RECORD;
+BEGIN
+    FOR v_partition IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'issue_records'::regclass
+          AND c.relname ~ '^issue_records_[0-9]{4}_[0-9]{2}$'
+          AND to_date(substring(c.relname FROM '[0-9]{4}_[0-9]{2}$'), 'YYYY_MM') < date_trunc('month', p_before)
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE issue_records DETACH PARTITION %I', v_partition.relname);
+        RETURN NEXT v_partition.relname;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for every month present in the existing data plus the next three months
+SELECT create_issue_records_partition(month::date)
+FROM generate_series(
+    date_trunc('month', COALESCE((SELECT min(created_at) FROM issue_records_unpartitioned), now()) AT TIME ZONE 'UTC'),
+    date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '3 months',
+    INTERVAL '1 month'
+) AS month;
+
+-- Explicit column list: tables created by ddl-auto=update have a different column order
+INSERT INTO issue_records (
+    id, qira_id, project, priority, issue_type, summary, description, reporter,
+    assigned_team, assignee, status, due_date, created_at, resolved_at, first_response_at,
+    updated_at, related_jira_ticket, linked_issues, support_category, support_action_date,
+    support_actioned_by, support_priority, support_remark, comment, isbn_order_number, book_id,
+    resolution, caused_by_books, doi_multi_line, erratum_doi, error_location_books,
+    error_type_books, production_system_books, request_action_books, publication_status_books,
+    qira_tickets_category, raw_json, ingested_at
+)
+SELECT
+    id, qira_id, project, priority, issue_type, summary, description, reporter,
+    assigned_team, assignee, status, due_date, created_at, resolved_at, first_response_at,
+    updated_at, related_jira_ticket, linked_issues, support_category, support_action_date,
+    support_actioned_by, support_priority, support_remark, comment, isbn_order_number, book_id,
+    resolution, caused_by_books, doi_multi_line, erratum_doi, error_location_books,
+    error_type_books, production_system_books, request_action_books, publication_status_books,
+    qira_tickets_category, raw_json, ingested_at
+FROM issue_records_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('issue_records', 'id'),
+              COALESCE((SELECT max(id) FROM issue_records), 0) + 1, false);
+
+DROP TABLE issue_records_unpartitioned;
+
+-- Recreated on the partitioned parent (cascades to every partition)
+CREATE INDEX idx_issue_records_created_team ON issue_records (created_at, assigned_team);
+CREATE INDEX idx_issue_records_status ON issue_records (status);
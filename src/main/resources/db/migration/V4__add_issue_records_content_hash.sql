@@ -0,0 +1,2 @@
+-- 64-bit hash of the ticket payload as last written; lets ingestion skip unchanged tickets
+ALTER TABLE issue_records ADD COLUMN IF NOT EXISTS content_hash BIGINT;
@@ -0,0 +1,34 @@
+-- Pre-aggregated ticket counts per created month (UTC) x team x status x issue type x priority.
+-- Maintained with deltas by the upsert path; rebuild_issue_stats_rollup() recomputes it.
+CREATE TABLE IF NOT EXISTS issue_stats_rollup (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    month        DATE,
+    team         VARCHAR(255),
+    status       VARCHAR(255),
+    issue_type   VARCHAR(255),
+    priority     VARCHAR(255),
+    issue_count  BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_issue_stats_rollup_group
+        UNIQUE NULLS NOT DISTINCT (month, team, status, issue_type, priority)
+);
+
+-- Recomputes the rollup from issue_records. The EXCLUSIVE lock waits for upsert
+-- transactions that already applied deltas and blocks new ones until the rebuild
+-- commits, so no delta is counted twice or lost.
+CREATE OR REPLACE FUNCTION rebuild_issue_stats_rollup() RETURNS BIGINT AS $$
+DECLARE
+    v_groups BIGINT;
+BEGIN
+    LOCK TABLE issue_stats_rollup IN EXCLUSIVE MODE;
+    DELETE FROM issue_stats_rollup;
+    INSERT INTO issue_stats_rollup (month, team, status, issue_type, priority, issue_count)
+    SELECT date_trunc('month', created_at AT TIME ZONE 'UTC')::date,
+           assigned_team, status, issue_type, priority, COUNT(*)
+    FROM issue_records
+    GROUP BY 1, 2, 3, 4, 5;
+    GET DIAGNOSTICS v_groups = ROW_COUNT;
+    RETURN v_groups;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT rebuild_issue_stats_rollup();
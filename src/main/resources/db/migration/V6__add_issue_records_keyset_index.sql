@@ -0,0 +1,4 @@
+-- Keyset pagination index for GET /issues (ORDER BY created_at DESC, id DESC).
+-- Partitioned parents do not support CONCURRENTLY; each partition gets its own index.
+CREATE INDEX IF NOT EXISTS idx_issue_records_created_id
+    ON issue_records (created_at, id);
@@ -0,0 +1,50 @@
+-- Full-text search over summary (weight A), description (B), comment and support remark (C).
+-- A plain column kept current by a trigger rather than a STORED generated column, which would
+-- rewrite every partition under an ACCESS EXCLUSIVE lock. Adding a nullable column without a
+-- default only touches the catalog; rows that existed before are filled in batches by
+-- PartitionMaintenanceService (backfill_issue_records_search_vector), and search finds them
+-- once their batch commits.
+ALTER TABLE issue_records ADD COLUMN IF NOT EXISTS search_vector TSVECTOR;
+
+CREATE OR REPLACE FUNCTION issue_records_search_vector(
+    p_summary TEXT, p_description TEXT, p_comment TEXT, p_support_remark TEXT) RETURNS TSVECTOR AS $$
+    SELECT setweight(to_tsvector('english', coalesce(p_summary, '')), 'A') ||
+           setweight(to_tsvector('english', coalesce(p_description, '')), 'B') ||
+           setweight(to_tsvector('english', coalesce(p_comment, '')), 'C') ||
+           setweight(to_tsvector('english', coalesce(p_support_remark, '')), 'C');
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION set_issue_records_search_vector() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.search_vector := issue_records_search_vector(NEW.summary, NEW.description, NEW.comment, NEW.support_remark);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Cloned to every partition, including those created later
+CREATE TRIGGER trg_issue_records_search_vector
+    BEFORE INSERT OR UPDATE OF summary, description, comment, support_remark ON issue_records
+    FOR EACH ROW EXECUTE FUNCTION set_issue_records_search_vector();
+
+CREATE INDEX IF NOT EXISTS idx_issue_records_search_vector
+    ON issue_records USING GIN (search_vector);
+
+-- Rows still to backfill; empties as the backfill runs, since the trigger fills every new row
+CREATE INDEX IF NOT EXISTS idx_issue_records_search_backfill
+    ON issue_records (id) WHERE search_vector IS NULL;
+
+-- Fills one batch of a single partition; rows locked by writers are left for a later call.
+-- Returns the number of rows filled, less than p_batch once the partition is done.
+CREATE OR REPLACE FUNCTION backfill_issue_records_search_vector(p_partition TEXT, p_batch INT) RETURNS INT AS $$
+DECLARE
+    v_rows INT;
+BEGIN
+    EXECUTE format(
+        'UPDATE %I r SET search_vector = issue_records_search_vector(r.summary, r.description, r.comment, r.support_remark) '
+        'WHERE r.id IN (SELECT id FROM %I WHERE search_vector IS NULL LIMIT $1 FOR UPDATE SKIP LOCKED) '
+        'AND r.search_vector IS NULL', p_partition, p_partition)
+    USING p_batch;
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+    RETURN v_rows;
+END;
+$$ LANGUAGE plpgsql;
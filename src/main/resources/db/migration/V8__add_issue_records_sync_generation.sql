@@ -0,0 +1,59 @@
+-- Mark-and-sweep of tickets that disappeared from QIRA: every full sync stamps the rows it
+-- touched with a new generation; live rows left with an older generation are tombstoned.
+-- Constant defaults: no table rewrite.
+ALTER TABLE issue_records
+    ADD COLUMN IF NOT EXISTS sync_generation BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP(6) WITH TIME ZONE;
+
+CREATE SEQUENCE IF NOT EXISTS issue_sync_generation_seq;
+
+-- Live rows only: tombstoned rows drop out, so each sweep batch starts where the last one ended
+CREATE INDEX IF NOT EXISTS idx_issue_records_live_generation
+    ON issue_records (sync_generation) WHERE deleted_at IS NULL;
+
+-- Tombstones up to p_batch live rows stamped before p_generation and takes them out of the
+-- stats rollup in the same statement. Rows locked by a concurrent upsert are skipped and
+-- picked up by a later batch or run.
+CREATE OR REPLACE FUNCTION sweep_issue_records(p_generation BIGINT, p_batch INT) RETURNS SETOF TEXT AS $$
+    WITH victims AS (
+        SELECT id, created_at
+        FROM issue_records
+        WHERE deleted_at IS NULL AND sync_generation < p_generation
+        LIMIT p_batch
+        FOR UPDATE SKIP LOCKED
+    ), tombstoned AS (
+        UPDATE issue_records i
+        SET deleted_at = now()
+        FROM victims v
+        WHERE i.id = v.id AND i.created_at IS NOT DISTINCT FROM v.created_at
+        RETURNING i.qira_id, i.created_at, i.assigned_team, i.status, i.issue_type, i.priority
+    ), decremented AS (
+        INSERT INTO issue_stats_rollup (month, team, status, issue_type, priority, issue_count)
+        SELECT date_trunc('month', created_at AT TIME ZONE 'UTC')::date,
+               assigned_team, status, issue_type, priority, -COUNT(*)
+        FROM tombstoned
+        GROUP BY 1, 2, 3, 4, 5
+        ORDER BY 1, 2, 3, 4, 5
+        ON CONFLICT ON CONSTRAINT uk_issue_stats_rollup_group
+        DO UPDATE SET issue_count = issue_stats_rollup.issue_count + EXCLUDED.issue_count
+    )
+    SELECT qira_id FROM tombstoned;
+$$ LANGUAGE sql;
+
+-- Rollup counts live tickets only
+CREATE OR REPLACE FUNCTION rebuild_issue_stats_rollup() RETURNS BIGINT AS $$
+DECLARE
+    v_groups BIGINT;
+BEGIN
+    LOCK TABLE issue_stats_rollup IN EXCLUSIVE MODE;
+    DELETE FROM issue_stats_rollup;
+    INSERT INTO issue_stats_rollup (month, team, status, issue_type, priority, issue_count)
+    SELECT date_trunc('month', created_at AT TIME ZONE 'UTC')::date,
+           assigned_team, status, issue_type, priority, COUNT(*)
+    FROM issue_records
+    WHERE deleted_at IS NULL
+    GROUP BY 1, 2, 3, 4, 5;
+    GET DIAGNOSTICS v_groups = ROW_COUNT;
+    RETURN v_groups;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,34 @@
+-- Sweep restricted to a created_at window [p_from, p_to) for reconciliation of a single
+-- window; NULL bounds are open (and include rows without created_at).
+CREATE OR REPLACE FUNCTION sweep_issue_records_window(
+    p_generation BIGINT, p_from TIMESTAMPTZ, p_to TIMESTAMPTZ, p_batch INT) RETURNS SETOF TEXT AS $$
+    WITH victims AS (
+        SELECT id, created_at
+        FROM issue_records
+        WHERE deleted_at IS NULL AND sync_generation < p_generation
+          AND (p_from IS NULL OR created_at >= p_from)
+          AND (p_to IS NULL OR created_at < p_to)
+        LIMIT p_batch
+        FOR UPDATE SKIP LOCKED
+    ), tombstoned AS (
+        UPDATE issue_records i
+        SET deleted_at = now()
+        FROM victims v
+        WHERE i.id = v.id AND i.created_at IS NOT DISTINCT FROM v.created_at
+        RETURNING i.qira_id, i.created_at, i.assigned_team, i.status, i.issue_type, i.priority
+    ), decremented AS (
+        INSERT INTO issue_stats_rollup (month, team, status, issue_type, priority, issue_count)
+        SELECT date_trunc('month', created_at AT TIME ZONE 'UTC')::date,
+               assigned_team, status, issue_type, priority, -COUNT(*)
+        FROM tombstoned
+        GROUP BY 1, 2, 3, 4, 5
+        ORDER BY 1, 2, 3, 4, 5
+        ON CONFLICT ON CONSTRAINT uk_issue_stats_rollup_group
+        DO UPDATE SET issue_count = issue_stats_rollup.issue_count + EXCLUDED.issue_count
+    )
+    SELECT qira_id FROM tombstoned;
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION sweep_issue_records(p_generation BIGINT, p_batch INT) RETURNS SETOF TEXT AS $$
+    SELECT sweep_issue_records_window(p_generation, NULL, NULL, p_batch);
+$$ LANGUAGE sql;
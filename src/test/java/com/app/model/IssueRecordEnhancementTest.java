@@ -0,0 +1,19 @@
+package com.app.model;
+
+import org.hibernate.engine.spi.PersistentAttributeInterceptable;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IssueRecordEnhancementTest {
+    
+    @Test
+    void testIssueRecordIsBytecodeEnhanced() {
+        // Without the build's Hibernate enhancement step the @Basic(fetch = LAZY) TEXT columns are
+        // silently loaded eagerly; enhanced entities carry the attribute interceptor hooks
+        assertTrue(PersistentAttributeInterceptable.class.isAssignableFrom(IssueRecord.class),
+            "IssueRecord is not enhanced; is the org.hibernate.orm plugin applied after java?");
+        assertTrue(SelfDirtinessTracker.class.isAssignableFrom(IssueRecord.class));
+    }
+}
@@ -0,0 +1,100 @@
+package com.app.service;
+
+import com.app.dto.ErrorSummary;
+import com.app.dto.JobStatus;
+import com.app.dto.UpsertStats;
+import com.app.repository.IssueRecordRepository;
+import com.app.repository.SyncWatermarkRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IncrementalSyncServiceTest {
+    
+    private static final OffsetDateTime LATEST_UPDATE = OffsetDateTime.of(2024, 5, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+    
+    @Mock
+    private IngestionPipeline ingestionPipeline;
+    
+    @Mock
+    private SyncWatermarkRepository watermarkRepository;
+    
+    @Mock
+    private IssueRecordRepository issueRecordRepository;
+    
+    @Mock
+    private IssueStatsService issueStatsService;
+    
+    private IncrementalSyncService incrementalSyncService;
+    
+    @BeforeEach
+    void setUp() {
+        incrementalSyncService = new IncrementalSyncService(ingestionPipeline, watermarkRepository,
+            issueRecordRepository, issueStatsService, new SimpleMeterRegistry(), 5);
+    }
+    
+    @Test
+    void testSkipsUntilThereIsAWatermarkOrAnyTicket() {
+        when(watermarkRepository.findById(IncrementalSyncService.WATERMARK)).thenReturn(Optional.empty());
+        when(issueRecordRepository.findMaxUpdatedAt()).thenReturn(null);
+        
+        JobStatus job = incrementalSyncService.sync(startedJob());
+        
+        assertEquals("SKIPPED", job.getStatus());
+        verifyNoInteractions(ingestionPipeline);
+    }
+    
+    @Test
+    void testFetchesSinceSeededWatermarkMinusOverlapAndAdvancesIt() {
+        when(watermarkRepository.findById(IncrementalSyncService.WATERMARK)).thenReturn(Optional.empty());
+        when(issueRecordRepository.findMaxUpdatedAt()).thenReturn(LATEST_UPDATE);
+        UpsertStats stats = new UpsertStats();
+        stats.addUpdated(3);
+        when(ingestionPipeline.runUpdatedSince(any(), eq(LATEST_UPDATE.minusMinutes(5)), any(), any()))
+            .thenReturn(new IngestionPipeline.Result(3, 3, new ErrorSummary(), stats));
+        JobStatus started = startedJob();
+        
+        JobStatus job = incrementalSyncService.sync(started);
+        
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(3, job.getUpdated());
+        verify(watermarkRepository).advance(IncrementalSyncService.WATERMARK, LATEST_UPDATE);
+        verify(watermarkRepository).advance(IncrementalSyncService.WATERMARK, started.getStartedAt());
+        verify(issueStatsService).invalidate();
+    }
+    
+    @Test
+    void testKeepsWatermarkWhenUpsertsFail() {
+        when(watermarkRepository.findById(IncrementalSyncService.WATERMARK)).thenReturn(Optional.empty());
+        when(issueRecordRepository.findMaxUpdatedAt()).thenReturn(LATEST_UPDATE);
+        UpsertStats stats = new UpsertStats();
+        stats.addFailed(2);
+        when(ingestionPipeline.runUpdatedSince(any(), any(), any(), any()))
+            .thenReturn(new IngestionPipeline.Result(2, 2, new ErrorSummary(), stats));
+        JobStatus started = startedJob();
+        
+        incrementalSyncService.sync(started);
+        
+        verify(watermarkRepository, never()).advance(IncrementalSyncService.WATERMARK, started.getStartedAt());
+        verify(issueStatsService, never()).invalidate();
+    }
+    
+    private static JobStatus startedJob() {
+        JobStatus job = JobStatus.queued("job-1", "INCREMENTAL_SYNC", null);
+        job.markStarted();
+        return job;
+    }
+}
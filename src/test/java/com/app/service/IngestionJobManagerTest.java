@@ -0,0 +1,233 @@
+package com.app.service;
+
+import com.app.dto.JobStatus;
+import com.app.service.IngestionJobManager.JobType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestionJobManagerTest {
+    
+    @Mock
+    private IngestionOrchestrator ingestionOrchestrator;
+    
+    @Mock
+    private ReconciliationService reconciliationService;
+    
+    @Mock
+    private IncrementalSyncService incrementalSyncService;
+    
+    @Mock
+    private ClusterLockService clusterLock;
+    
+    @Mock
+    private JobRunService jobRunService;
+    
+    private IngestionJobManager jobManager;
+    
+    private final CountDownLatch firstJobStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstJob = new CountDownLatch(1);
+    private final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+    
+    @BeforeEach
+    void setUp() {
+        jobManager = new IngestionJobManager(ingestionOrchestrator, reconciliationService, incrementalSyncService, clusterLock,
+            jobRunService, 3, 10);
+        lenient().when(clusterLock.tryAcquire(eq(ClusterLockService.INGESTION_LOCK), any())).thenReturn(true);
+        lenient().when(ingestionOrchestrator.fetchAndReport(any(JobStatus.class))).thenAnswer(invocation -> {
+            JobStatus job = invocation.getArgument(0);
+            executed.add(job.getType());
+            if (executed.size() == 1) {
+                firstJobStarted.countDown();
+                assertTrue(releaseFirstJob.await(5, TimeUnit.SECONDS));
+            }
+            if (job.isCancelRequested()) {
+                job.markCancelled();
+            } else {
+                job.markCompleted();
+            }
+            return job;
+        });
+    }
+    
+    @AfterEach
+    void tearDown() {
+        jobManager.shutdown();
+    }
+    
+    @Test
+    void testQueuedJobsRunInPriorityOrder() throws Exception {
+        JobStatus first = jobManager.submit(JobType.MANUAL_SYNC, null);
+        assertTrue(firstJobStarted.await(5, TimeUnit.SECONDS));
+        
+        JobStatus limited = jobManager.submit(JobType.LIMITED_FETCH, 10);
+        JobStatus manual = jobManager.submit(JobType.MANUAL_SYNC, null);
+        JobStatus scheduled = jobManager.submit(JobType.SCHEDULED_SYNC, null);
+        assertEquals("QUEUED", scheduled.getStatus());
+        assertEquals(3, jobManager.getQueuedCount());
+        
+        releaseFirstJob.countDown();
+        awaitFinished(first, limited, manual, scheduled);
+        
+        assertEquals(List.of("MANUAL_SYNC", "SCHEDULED_SYNC", "MANUAL_SYNC", "LIMITED_FETCH"), executed);
+        assertEquals("COMPLETED", limited.getStatus());
+        verify(jobRunService, timeout(1000)).record(scheduled);
+    }
+    
+    @Test
+    void testIdenticalQueuedJobIsReused() throws Exception {
+        jobManager.submit(JobType.MANUAL_SYNC, null);
+        assertTrue(firstJobStarted.await(5, TimeUnit.SECONDS));
+        
+        JobStatus queued = jobManager.submit(JobType.LIMITED_FETCH, 10);
+        
+        assertSame(queued, jobManager.submit(JobType.LIMITED_FETCH, 10));
+        assertNotSame(queued, jobManager.submit(JobType.LIMITED_FETCH, 20));
+        assertEquals(2, jobManager.getQueuedCount());
+        releaseFirstJob.countDown();
+    }
+    
+    @Test
+    void testSubmitRejectsWhenQueueIsFull() throws Exception {
+        jobManager.submit(JobType.MANUAL_SYNC, null);
+        assertTrue(firstJobStarted.await(5, TimeUnit.SECONDS));
+        jobManager.submit(JobType.LIMITED_FETCH, 1);
+        jobManager.submit(JobType.LIMITED_FETCH, 2);
+        jobManager.submit(JobType.LIMITED_FETCH, 3);
+        
+        assertThrows(RejectedExecutionException.class, () -> jobManager.submit(JobType.LIMITED_FETCH, 4));
+        releaseFirstJob.countDown();
+    }
+    
+    @Test
+    void testCancelQueuedJobDropsIt() throws Exception {
+        JobStatus first = jobManager.submit(JobType.MANUAL_SYNC, null);
+        assertTrue(firstJobStarted.await(5, TimeUnit.SECONDS));
+        JobStatus queued = jobManager.submit(JobType.LIMITED_FETCH, 10);
+        
+        jobManager.cancel(queued.getId());
+        
+        assertEquals("CANCELLED", queued.getStatus());
+        assertEquals(0, jobManager.getQueuedCount());
+        releaseFirstJob.countDown();
+        awaitFinished(first);
+        assertEquals(List.of("MANUAL_SYNC"), executed);
+    }
+    
+    @Test
+    void testCancelRunningJobIsCooperative() throws Exception {
+        JobStatus running = jobManager.submit(JobType.MANUAL_SYNC, null);
+        assertTrue(firstJobStarted.await(5, TimeUnit.SECONDS));
+        assertSame(running, jobManager.getCurrentJob());
+        
+        jobManager.cancel(running.getId());
+        assertEquals("RUNNING", running.getStatus());
+        assertTrue(running.isCancelRequested());
+        
+        releaseFirstJob.countDown();
+        awaitFinished(running);
+        assertEquals("CANCELLED", running.getStatus());
+        assertSame(running, jobManager.getJob(running.getId()));
+    }
+    
+    @Test
+    void testManualJobSkippedWhileAnotherNodeHoldsLock() throws Exception {
+        when(clusterLock.tryAcquire(eq(ClusterLockService.INGESTION_LOCK), any())).thenReturn(false);
+        when(clusterLock.holder(ClusterLockService.INGESTION_LOCK)).thenReturn(Optional.of("node-b"));
+        
+        JobStatus job = jobManager.submit(JobType.MANUAL_SYNC, null);
+        awaitFinished(job);
+        
+        assertEquals("SKIPPED", job.getStatus());
+        assertEquals(List.of("Ingestion is running on node-b"), job.getErrors());
+        assertTrue(executed.isEmpty());
+        verify(clusterLock, never()).release(any());
+    }
+    
+    @Test
+    void testScheduledJobWaitsForLockAndTakesOver() throws Exception {
+        when(clusterLock.tryAcquire(eq(ClusterLockService.INGESTION_LOCK), any())).thenReturn(false, false, true);
+        when(clusterLock.holder(ClusterLockService.INGESTION_LOCK)).thenReturn(Optional.of("node-b"));
+        when(clusterLock.releasedSince(eq(ClusterLockService.INGESTION_LOCK), any())).thenReturn(false);
+        when(clusterLock.getHeartbeatMillis()).thenReturn(10L);
+        releaseFirstJob.countDown();
+        
+        JobStatus job = jobManager.submit(JobType.SCHEDULED_SYNC, null, true);
+        awaitFinished(job);
+        
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(List.of("SCHEDULED_SYNC"), executed);
+        verify(clusterLock).release(ClusterLockService.INGESTION_LOCK);
+    }
+    
+    @Test
+    void testScheduledJobSkippedWhenAnotherNodeFinishedTheRun() throws Exception {
+        when(clusterLock.tryAcquire(eq(ClusterLockService.INGESTION_LOCK), any())).thenReturn(false);
+        when(clusterLock.holder(ClusterLockService.INGESTION_LOCK)).thenReturn(Optional.empty());
+        when(clusterLock.releasedSince(eq(ClusterLockService.INGESTION_LOCK), any())).thenReturn(true);
+        
+        JobStatus job = jobManager.submit(JobType.SCHEDULED_SYNC, null, true);
+        awaitFinished(job);
+        
+        assertEquals("SKIPPED", job.getStatus());
+        assertTrue(executed.isEmpty());
+    }
+    
+    @Test
+    void testIncrementalSyncRunsThroughIncrementalService() throws Exception {
+        when(incrementalSyncService.sync(any(JobStatus.class))).thenAnswer(invocation -> {
+            JobStatus job = invocation.getArgument(0);
+            job.markCompleted();
+            return job;
+        });
+        
+        JobStatus job = jobManager.submit(JobType.INCREMENTAL_SYNC, null);
+        awaitFinished(job);
+        
+        assertEquals("COMPLETED", job.getStatus());
+        assertTrue(executed.isEmpty());
+        verify(jobRunService, timeout(1000)).record(job);
+    }
+    
+    @Test
+    void testSkippedIncrementalSyncIsDroppedFromHistory() throws Exception {
+        when(clusterLock.tryAcquire(eq(ClusterLockService.INGESTION_LOCK), any())).thenReturn(false);
+        when(clusterLock.holder(ClusterLockService.INGESTION_LOCK)).thenReturn(Optional.of("node-b"));
+        
+        JobStatus job = jobManager.submit(JobType.INCREMENTAL_SYNC, null);
+        awaitFinished(job);
+        
+        assertEquals("SKIPPED", job.getStatus());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (jobManager.getJob(job.getId()) != null) {
+            assertTrue(System.nanoTime() < deadline, "Skipped incremental sync stayed in the history");
+            Thread.sleep(10);
+        }
+        verify(incrementalSyncService, never()).sync(any());
+        verify(jobRunService, never()).record(any());
+    }
+    
+    private static void awaitFinished(JobStatus... jobs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (JobStatus job : jobs) {
+            while (!job.isFinished()) {
+                assertTrue(System.nanoTime() < deadline, "Job " + job.getType() + " did not finish");
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.app.service;
+
+import com.app.client.QiraClient;
+import com.app.dto.ErrorSummary;
+import com.app.dto.JobStatus;
+import com.app.dto.QiraPageResponse;
+import com.app.dto.QiraTicket;
+import com.app.dto.UpsertStats;
+import com.app.model.IngestionDeadLetter;
+import com.app.model.IssueRecord;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestionPipelineTest {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    @Mock
+    private QiraClient qiraClient;
+    
+    @Mock
+    private TicketMapper ticketMapper;
+    
+    @Mock
+    private IssueService issueService;
+    
+    @Mock
+    private DeadLetterService deadLetterService;
+    
+    private IngestionPipeline pipeline;
+    
+    private SimpleMeterRegistry meterRegistry;
+    
+    @TempDir
+    private Path spillDir;
+    
+    private final List<String> written = Collections.synchronizedList(new ArrayList<>());
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pipeline = pipeline(64, false);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+    
+    private IngestionPipeline pipeline(long budgetMb, boolean spill) {
+        PipelineMemoryBudget memoryBudget = new PipelineMemoryBudget(MAPPER, meterRegistry, budgetMb, spill,
+            spillDir.toString(), 16);
+        memoryBudget.registerGauges();
+        return new IngestionPipeline(qiraClient, ticketMapper, issueService, deadLetterService, memoryBudget,
+            meterRegistry, 2, 1);
+    }
+    
+    @Test
+    void testRunFetchesMapsAndUpsertsEveryPage() {
+        when(qiraClient.fetchTickets(0, 2)).thenReturn(page(true, "QIRA-1", "QIRA-2"));
+        when(qiraClient.fetchTickets(2, 2)).thenReturn(page(true, "QIRA-3", "QIRA-4"));
+        when(qiraClient.fetchTickets(4, 2)).thenReturn(page(false, "QIRA-5"));
+        when(ticketMapper.map(any(JsonNode.class))).thenAnswer(invocation -> record(invocation.getArgument(0)));
+        stubUpsert(7L);
+        
+        IngestionPipeline.Result result = pipeline.run(null, null, 7L);
+        
+        assertEquals(5, result.getFetched());
+        assertEquals(5, result.getMapped());
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(5, result.getUpsertStats().getInserted());
+        assertEquals(List.of("QIRA-1", "QIRA-2", "QIRA-3", "QIRA-4", "QIRA-5"), written);
+    }
+    
+    @Test
+    void testRunStopsAtMaxRecordsAndUsesJqlFilter() {
+        when(qiraClient.searchTickets("created >= \"2024/01/01 00:00\"", 0, 2, "*all"))
+            .thenReturn(page(true, "QIRA-1", "QIRA-2"));
+        when(qiraClient.searchTickets("created >= \"2024/01/01 00:00\"", 2, 1, "*all"))
+            .thenReturn(page(true, "QIRA-3"));
+        when(ticketMapper.map(any(JsonNode.class))).thenAnswer(invocation -> record(invocation.getArgument(0)));
+        stubUpsert(null);
+        
+        IngestionPipeline.Result result = pipeline.run("created >= \"2024/01/01 00:00\"", 3, null);
+        
+        assertEquals(3, result.getFetched());
+        assertEquals(3, written.size());
+        verify(qiraClient, never()).fetchTickets(anyInt(), anyInt());
+    }
+    
+    @Test
+    void testRunUpdatedSinceReadsATicketEditedMidRunWithoutSkippingTheNextOne() {
+        when(qiraClient.updatedSinceJql(any())).thenAnswer(invocation -> "updated >= " + invocation.getArgument(0));
+        when(qiraClient.searchTickets("updated >= 2024-05-01T10:00Z", 0, 2, "*all"))
+            .thenReturn(updatedPage(true, "QIRA-1@10:01", "QIRA-2@10:02"));
+        // QIRA-1 is edited here and moves to the end; QIRA-3 is third by offset now
+        when(qiraClient.searchTickets("updated >= 2024-05-01T10:02Z", 0, 2, "*all"))
+            .thenReturn(updatedPage(true, "QIRA-2@10:02", "QIRA-3@10:03"));
+        when(qiraClient.searchTickets("updated >= 2024-05-01T10:03Z", 0, 2, "*all"))
+            .thenReturn(updatedPage(true, "QIRA-3@10:03", "QIRA-4@10:04"));
+        when(qiraClient.searchTickets("updated >= 2024-05-01T10:04Z", 0, 2, "*all"))
+            .thenReturn(updatedPage(false, "QIRA-4@10:04", "QIRA-1@10:09"));
+        when(ticketMapper.updatedAt(any(JsonNode.class)))
+            .thenAnswer(invocation -> OffsetDateTime.parse(((JsonNode) invocation.getArgument(0)).get("updated").asText()));
+        when(ticketMapper.map(any(JsonNode.class))).thenAnswer(invocation -> record(invocation.getArgument(0)));
+        stubUpsert(null);
+        
+        IngestionPipeline.Result result = pipeline.runUpdatedSince(null, OffsetDateTime.parse("2024-05-01T10:00Z"),
+            () -> false, IngestionPipeline.ProgressListener.NONE);
+        
+        assertEquals(5, result.getFetched());
+        assertEquals(List.of("QIRA-1", "QIRA-2", "QIRA-3", "QIRA-4", "QIRA-1"), written);
+    }
+    
+    @Test
+    void testRunUpdatedSinceFollowsPagesWithinOneMinuteByOffset() {
+        when(qiraClient.updatedSinceJql(any())).thenAnswer(invocation -> "updated >= " + invocation.getArgument(0));
+        when(qiraClient.searchTickets("updated >= 2024-05-01T10:00Z", 0, 2, "*all"))
+            .thenReturn(updatedPage(true, "QIRA-1@10:00:10", "QIRA-2@10:00:20"));
+        when(qiraClient.searchTickets("updated >= 2024-05-01T10:00Z", 2, 2, "*all"))
+            .thenReturn(updatedPage(false, "QIRA-3@10:00:30"));
+        when(ticketMapper.updatedAt(any(JsonNode.class)))
+            .thenAnswer(invocation -> OffsetDateTime.parse(((JsonNode) invocation.getArgument(0)).get("updated").asText()));
+        when(ticketMapper.map(any(JsonNode.class))).thenAnswer(invocation -> record(invocation.getArgument(0)));
+        stubUpsert(null);
+        
+        IngestionPipeline.Result result = pipeline.runUpdatedSince(null, OffsetDateTime.parse("2024-05-01T10:00Z"),
+            () -> false, IngestionPipeline.ProgressListener.NONE);
+        
+        assertEquals(3, result.getFetched());
+        assertEquals(List.of("QIRA-1", "QIRA-2", "QIRA-3"), written);
+    }
+    
+    @Test
+    void testRunCollectsMappingErrors() {
+        when(qiraClient.fetchTickets(0, 2)).thenReturn(page(false, "QIRA-1", "QIRA-2"));
+        when(ticketMapper.map(any(JsonNode.class))).thenAnswer(invocation -> {
+            JsonNode ticket = invocation.getArgument(0);
+            return "QIRA-2".equals(ticket.get("key").asText()) ? null : record(ticket);
+        });
+        stubUpsert(null);
+        
+        IngestionPipeline.Result result = pipeline.run(null, null, null);
+        
+        assertEquals(2, result.getFetched());
+        assertEquals(1, result.getMapped());
+        assertEquals(List.of("Failed to map ticket (missing qiraId)"), result.getErrors());
+        assertEquals(List.of("QIRA-1"), written);
+    }
+    
+    @Test
+    void testMassMappingFailureKeepsBoundedSamplesAndDeadLettersEveryTicket() {
+        when(qiraClient.fetchTickets(anyInt(), eq(2))).thenAnswer(invocation -> {
+            int startAt = invocation.getArgument(0);
+            return page(startAt < 98, "QIRA-" + startAt, "QIRA-" + (startAt + 1));
+        });
+        when(ticketMapper.map(any(JsonNode.class))).thenThrow(new IllegalArgumentException("Unparseable date"));
+        List<IngestionDeadLetter> deadLetters = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> deadLetters.addAll(invocation.getArgument(0)))
+            .when(deadLetterService).record(anyList());
+        
+        IngestionPipeline.Result result = pipeline.run("job-9", null, null, null, () -> false,
+            IngestionPipeline.ProgressListener.NONE);
+        
+        assertEquals(100, result.getFetched());
+        assertEquals(0, result.getMapped());
+        assertEquals(100, result.getErrorSummary().getTotal());
+        assertEquals(Map.of(IngestionPipeline.MAPPING_EXCEPTION, 100L), result.getErrorSummary().getCounts());
+        assertEquals(ErrorSummary.DEFAULT_SAMPLE_SIZE, result.getErrorSummary().getSamples().size());
+        assertEquals("QIRA-99", result.getErrorSummary().getSamples().get(ErrorSummary.DEFAULT_SAMPLE_SIZE - 1).getQiraId());
+        assertEquals(100, deadLetters.size());
+        assertEquals("job-9", deadLetters.get(0).getJobId());
+        assertEquals("{\"key\":\"QIRA-0\"}", deadLetters.get(0).getPayload());
+        verify(issueService, never()).upsertBulk(anyList(), any());
+    }
+    
+    @Test
+    void testRunReportsProgressAndStageTimings() {
+        QiraPageResponse first = page(true, "QIRA-1", "QIRA-2");
+        first.setTotal(3);
+        first.setResponseBytes(1000);
+        QiraPageResponse second = page(false, "QIRA-3");
+        second.setTotal(3);
+        second.setResponseBytes(500);
+        when(qiraClient.fetchTickets(0, 2)).thenReturn(first);
+        when(qiraClient.fetchTickets(2, 2)).thenReturn(second);
+        when(ticketMapper.map(any(JsonNode.class))).thenAnswer(invocation -> record(invocation.getArgument(0)));
+        stubUpsert(null);
+        JobStatus job = JobStatus.queued("job-1", "MANUAL_SYNC", null);
+        job.markStarted();
+        
+        pipeline.run(null, null, null, () -> false, new IngestionPipeline.ProgressListener() {
+            @Override
+            public void pageFetched(int tickets, long bytes, Integer expectedTotal) {
+                job.recordPageFetched(tickets, bytes, expectedTotal);
+            }
+            
+            @Override
+            public void batchWritten(int records) {
+                job.recordWritten(records);
+            }
+        });
+        
+        assertEquals(2, job.getPagesFetched());
+        assertEquals(3, job.getTotalFetched());
+        assertEquals(1500, job.getBytesReceived());
+        assertEquals(3, job.getTicketsWritten());
+        assertEquals(100.0, job.getPercentDone());
+        assertEquals(2, meterRegistry.get("qira.ingestion.page.fetch").timer().count());
+        assertEquals(2, meterRegistry.get("qira.ingestion.page.map").timer().count());
+        assertEquals(1500.0, meterRegistry.get("qira.ingestion.page.bytes").summary().totalAmount());
+        assertTrue(meterRegistry.get("qira.ingestion.upsert.batch").timer().count() >= 1);
+    }
+    
+    @Test
+    @Timeout(30)
+    void testPagesOverMemoryBudgetAreSpilledOrWaitAndAllGetWritten() throws Exception {
+        assertOversizedPagesAllGetWritten(true);
+    }
+    
+    @Test
+    @Timeout(30)
+    void testPagesOverMemoryBudgetPauseFetchingWhenSpillIsOff() throws Exception {
+        assertOversizedPagesAllGetWritten(false);
+    }
+    
+    private void assertOversizedPagesAllGetWritten(boolean spill) throws Exception {
+        pipeline.shutdown();
+        // Every page alone is over the 1 MB budget, so only one is ever held in memory
+        meterRegistry = new SimpleMeterRegistry();
+        pipeline = pipeline(1, spill);
+        when(qiraClient.fetchTickets(anyInt(), eq(2))).thenAnswer(invocation -> {
+            int startAt = invocation.getArgument(0);
+            QiraPageResponse response = page(startAt < 8, "QIRA-" + startAt, "QIRA-" + (startAt + 1));
+            response.setResponseBytes(512 * 1024);
+            return response;
+        });
+        when(ticketMapper.map(any(JsonNode.class))).thenAnswer(invocation -> record(invocation.getArgument(0)));
+        stubUpsert(null);
+        
+        IngestionPipeline.Result result = pipeline.run(null, null, null);
+        
+        assertEquals(10, result.getFetched());
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expected.add("QIRA-" + i);
+        }
+        assertEquals(expected, written);
+        assertEquals(0.0, meterRegistry.get("qira.ingestion.pipeline.inflight.bytes").gauge().value());
+        assertEquals(0.0, meterRegistry.get("qira.ingestion.pipeline.spilled.bytes").gauge().value());
+        try (Stream<Path> files = Files.list(spillDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+    
+    @Test
+    void testRunFailsWhenFetchStageFails() {
+        when(qiraClient.fetchTickets(0, 2)).thenReturn(page(true, "QIRA-1", "QIRA-2"));
+        when(qiraClient.fetchTickets(2, 2)).thenThrow(new RuntimeException("Pagination failed"));
+        lenient().when(ticketMapper.map(any(JsonNode.class))).thenAnswer(invocation -> record(invocation.getArgument(0)));
+        lenient().when(issueService.upsertBulk(anyList(), any())).thenReturn(new UpsertStats());
+        
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> pipeline.run(null, null, 3L));
+        
+        assertTrue(e.getMessage().contains("Pagination failed"));
+    }
+    
+    private void stubUpsert(Long expectedGeneration) {
+        when(issueService.upsertBulk(anyList(), any())).thenAnswer(invocation -> {
+            List<IssueRecord> batch = invocation.getArgument(0);
+            assertEquals(expectedGeneration, invocation.getArgument(1));
+            batch.forEach(record -> written.add(record.getQiraId()));
+            UpsertStats stats = new UpsertStats();
+            stats.addInserted(batch.size());
+            return stats;
+        });
+    }
+    
+    private static QiraPageResponse page(boolean hasNext, String... keys) {
+        List<QiraTicket> items = new ArrayList<>();
+        for (String key : keys) {
+            QiraTicket ticket = new QiraTicket();
+            ticket.setRawData(MAPPER.createObjectNode().put("key", key));
+            items.add(ticket);
+        }
+        QiraPageResponse response = new QiraPageResponse();
+        response.setItems(items);
+        response.setHasNext(hasNext);
+        return response;
+    }
+    
+    /**
+     * @param tickets "KEY@HH:mm[:ss]" on 2024-05-01 UTC
+     */
+    private static QiraPageResponse updatedPage(boolean hasNext, String... tickets) {
+        List<QiraTicket> items = new ArrayList<>();
+        for (String ticket : tickets) {
+            String[] keyAndTime = ticket.split("@");
+            QiraTicket item = new QiraTicket();
+            item.setRawData(MAPPER.createObjectNode().put("key", keyAndTime[0])
+                .put("updated", "2024-05-01T" + keyAndTime[1] + "Z"));
+            items.add(item);
+        }
+        QiraPageResponse response = new QiraPageResponse();
+        response.setItems(items);
+        response.setHasNext(hasNext);
+        return response;
+    }
+    
+    private static IssueRecord record(JsonNode ticket) {
+        IssueRecord record = new IssueRecord();
+        record.setQiraId(ticket.get("key").asText());
+        return record;
+    }
+}
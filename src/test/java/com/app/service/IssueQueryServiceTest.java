@@ -0,0 +1,80 @@
+package com.app.service;
+
+import com.app.dto.IssueFilter;
+import com.app.dto.IssuePage;
+import com.app.repository.IssueRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IssueQueryServiceTest {
+    
+    @Mock
+    private IssueRecordRepository repository;
+    
+    private IssueQueryService issueQueryService;
+    
+    @BeforeEach
+    void setUp() {
+        issueQueryService = new IssueQueryService(repository);
+    }
+    
+    @Test
+    void testPageReturnsCursorOfLastRow() {
+        OffsetDateTime created = OffsetDateTime.parse("2024-03-15T10:00:00Z");
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {"QIRA-3", created, 3L});
+        rows.add(new Object[] {"QIRA-2", created, 2L});
+        rows.add(new Object[] {"QIRA-1", created.minusDays(1), 1L});
+        when(repository.findPage(any(), eq(List.of("qiraId")), isNull(), isNull(), eq(3))).thenReturn(rows);
+        
+        IssuePage page = issueQueryService.findPage(new IssueFilter(), List.of("qiraId"), null, 2);
+        
+        assertEquals(2, page.getRows().size());
+        assertArrayEquals(new Object[] {"QIRA-2"}, page.getRows().get(1));
+        assertEquals(IssueQueryService.encodeCursor(created, 2L), page.getNextCursor());
+        
+        when(repository.findPage(any(), any(), eq(created), eq(2L), anyInt())).thenReturn(List.of());
+        IssuePage next = issueQueryService.findPage(new IssueFilter(), List.of("qiraId"), page.getNextCursor(), 2);
+        assertTrue(next.getRows().isEmpty());
+        assertNull(next.getNextCursor());
+    }
+    
+    @Test
+    void testCursorPastAnIssueWithoutCreatedDateContinuesInTheUndatedTail() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {"QIRA-9", null, 9L});
+        rows.add(new Object[] {"QIRA-8", null, 8L});
+        when(repository.findPage(any(), eq(List.of("qiraId")), isNull(), isNull(), eq(2))).thenReturn(rows);
+        
+        IssuePage page = issueQueryService.findPage(new IssueFilter(), List.of("qiraId"), null, 1);
+        assertEquals(IssueQueryService.encodeCursor(null, 9L), page.getNextCursor());
+        
+        when(repository.findPage(any(), any(), isNull(), eq(9L), anyInt())).thenReturn(List.<Object[]>of(rows.get(1)));
+        IssuePage next = issueQueryService.findPage(new IssueFilter(), List.of("qiraId"), page.getNextCursor(), 1);
+        assertArrayEquals(new Object[] {"QIRA-8"}, next.getRows().get(0));
+        assertNull(next.getNextCursor());
+    }
+    
+    @Test
+    void testRejectsUnknownFieldsAndBadCursor() {
+        assertThrows(IllegalArgumentException.class,
+            () -> issueQueryService.findPage(new IssueFilter(), List.of("rawJson"), null, 10));
+        assertThrows(IllegalArgumentException.class,
+            () -> issueQueryService.findPage(new IssueFilter(), null, "not-a-cursor", 10));
+        verifyNoInteractions(repository);
+    }
+}
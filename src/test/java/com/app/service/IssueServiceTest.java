@@ -1,20 +1,27 @@
 package com.app.service;
 
+import com.app.dto.IssueSearchHit;
 import com.app.dto.UpsertStats;
 import com.app.model.IssueRecord;
 import com.app.repository.IssueRecordRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,11 +30,20 @@ class IssueServiceTest {
     @Mock
     private IssueRecordRepository repository;
     
-    @InjectMocks
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    @Mock
+    private IssueStatsRollupService statsRollup;
+    
+    private KnownQiraIdIndex keyIndex;
+    
     private IssueService issueService;
     
     @BeforeEach
     void setUp() {
+        keyIndex = new KnownQiraIdIndex();
+        issueService = new IssueService(repository, transactionManager, keyIndex, statsRollup, 1, null);
     }
     
     @Test
@@ -79,15 +95,269 @@ class IssueServiceTest {
         record2.setQiraId("QIRA-2");
         records.add(record2);
         
-        when(repository.findExistingQiraIds(anySet())).thenReturn(Set.of("QIRA-1"));
-        when(repository.findByQiraId("QIRA-1")).thenReturn(Optional.of(record1));
+        IssueRecord existing1 = new IssueRecord();
+        existing1.setId(1L);
+        existing1.setQiraId("QIRA-1");
+        
+        when(repository.findAllByQiraIdIn(anyCollection())).thenReturn(List.of(existing1));
         when(repository.saveAll(anyList())).thenReturn(List.of(record2));
-        when(repository.save(any(IssueRecord.class))).thenReturn(record1);
         
         UpsertStats stats = issueService.upsertBulk(records);
         
-        assertTrue(stats.getInserted() > 0 || stats.getUpdated() > 0);
-        assertEquals(2, stats.getTotal() - stats.getSkipped() - stats.getFailed());
+        assertEquals(1, stats.getInserted());
+        assertEquals(1, stats.getUpdated());
+        verify(repository, never()).findByQiraId(any());
+        verify(repository).saveAll(List.of(record2));
+    }
+    
+    @Test
+    void testBulkUpsertSkipsInvalidAndDuplicateRecords() {
+        IssueRecord record = new IssueRecord();
+        record.setQiraId("QIRA-1");
+        IssueRecord duplicate = new IssueRecord();
+        duplicate.setQiraId("QIRA-1");
+        IssueRecord blank = new IssueRecord();
+        blank.setQiraId(" ");
+        
+        when(repository.findAllByQiraIdIn(anyCollection())).thenReturn(List.of());
+        
+        UpsertStats stats = issueService.upsertBulk(Arrays.asList(record, duplicate, blank, null));
+        
+        assertEquals(1, stats.getInserted());
+        assertEquals(3, stats.getSkipped());
+        verify(repository).saveAll(List.of(record));
+    }
+    
+    @Test
+    void testBulkUpsertRetriesChunkIndividuallyOnDuplicateKey() {
+        IssueRecord record = new IssueRecord();
+        record.setQiraId("QIRA-1");
+        IssueRecord concurrent = new IssueRecord();
+        concurrent.setId(7L);
+        concurrent.setQiraId("QIRA-1");
+        
+        when(repository.findAllByQiraIdIn(anyCollection())).thenReturn(List.of());
+        when(repository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(repository.findByQiraId("QIRA-1")).thenReturn(Optional.of(concurrent));
+        
+        UpsertStats stats = issueService.upsertBulk(List.of(record));
+        
+        assertEquals(0, stats.getInserted());
+        assertEquals(1, stats.getUpdated());
+        verify(repository).save(concurrent);
+    }
+    
+    @Test
+    void testBulkUpsertPartitionsAcrossWorkers() {
+        ExecutorService workers = Executors.newFixedThreadPool(3);
+        IssueService parallelService = new IssueService(repository, transactionManager, keyIndex, statsRollup, 3, workers);
+        
+        List<IssueRecord> records = new ArrayList<>();
+        for (int i = 0; i < 450; i++) {
+            IssueRecord record = new IssueRecord();
+            record.setQiraId("QIRA-" + i);
+            records.add(record);
+        }
+        
+        List<Set<String>> chunks = Collections.synchronizedList(new ArrayList<>());
+        when(repository.findAllByQiraIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            chunks.add(new HashSet<>(ids));
+            return List.of();
+        });
+        
+        try {
+            UpsertStats stats = parallelService.upsertBulk(records);
+            
+            assertEquals(450, stats.getInserted());
+            assertEquals(0, stats.getFailed());
+            // Every chunk holds keys from a single hash partition
+            for (Set<String> chunk : chunks) {
+                long partitions = chunk.stream().map(id -> Math.floorMod(id.hashCode(), 3)).distinct().count();
+                assertEquals(1, partitions);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+    
+    @Test
+    void testBulkUpsertCountsRecordsOfAFailedWorkerAsFailed() {
+        ExecutorService workers = Executors.newFixedThreadPool(3);
+        IssueService parallelService = new IssueService(repository, transactionManager, keyIndex, statsRollup, 3, workers);
+        
+        List<IssueRecord> records = new ArrayList<>();
+        int failedPartitionSize = 0;
+        for (int i = 0; i < 450; i++) {
+            IssueRecord record = new IssueRecord();
+            record.setQiraId("QIRA-" + i);
+            records.add(record);
+            if (Math.floorMod(record.getQiraId().hashCode(), 3) == 0) {
+                failedPartitionSize++;
+            }
+        }
+        
+        // Errors are not caught per chunk: the worker of partition 0 dies on its first chunk
+        when(repository.findAllByQiraIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            if (Math.floorMod(ids.iterator().next().hashCode(), 3) == 0) {
+                throw new StackOverflowError("worker failure");
+            }
+            return List.of();
+        });
+        
+        try {
+            UpsertStats stats = parallelService.upsertBulk(records);
+            
+            assertEquals(failedPartitionSize, stats.getFailed());
+            assertEquals(450 - failedPartitionSize, stats.getInserted());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+    
+    @Test
+    void testSearchByTitleReturnsDisplayColumnsOnly() {
+        OffsetDateTime created = OffsetDateTime.parse("2024-03-15T10:00:00Z");
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {"QIRA-7", "Missing DOI", "Open", "Engineering", created, 0.8});
+        when(repository.searchRecords("missing doi", 50)).thenReturn(rows);
+        
+        List<IssueSearchHit> hits = issueService.searchByTitle(" missing doi ");
+        
+        assertEquals(1, hits.size());
+        assertEquals("QIRA-7", hits.get(0).getQiraId());
+        assertEquals(created, hits.get(0).getCreatedAt());
+        assertNull(hits.get(0).getSnippet());
+    }
+    
+    @Test
+    void testBulkUpsertUsesKnownQiraIdIndex() {
+        IssueRecord unchanged = new IssueRecord();
+        unchanged.setQiraId("QIRA-1");
+        unchanged.setRawJson("{\"key\":\"QIRA-1\"}");
+        IssueRecord changed = new IssueRecord();
+        changed.setQiraId("QIRA-2");
+        changed.setRawJson("{\"key\":\"QIRA-2\",\"v\":2}");
+        IssueRecord fresh = new IssueRecord();
+        fresh.setQiraId("QIRA-3");
+        fresh.setRawJson("{\"key\":\"QIRA-3\"}");
+        
+        IssueRecord stored = new IssueRecord();
+        stored.setId(2L);
+        stored.setQiraId("QIRA-2");
+        
+        keyIndex.put("QIRA-1", KnownQiraIdIndex.contentHash(unchanged.getRawJson()));
+        keyIndex.put("QIRA-2", KnownQiraIdIndex.contentHash("{\"key\":\"QIRA-2\",\"v\":1}"));
+        keyIndex.markLoaded();
+        when(repository.findAllByQiraIdIn(anyCollection())).thenReturn(List.of(stored));
+        
+        UpsertStats stats = issueService.upsertBulk(List.of(unchanged, changed, fresh));
+        
+        assertEquals(1, stats.getSkipped());
+        assertEquals(1, stats.getUpdated());
+        assertEquals(1, stats.getInserted());
+        verify(repository).findAllByQiraIdIn(Set.of("QIRA-2"));
+        verify(repository).saveAll(List.of(fresh));
+        assertEquals(KnownQiraIdIndex.Lookup.UNCHANGED,
+            keyIndex.lookup("QIRA-2", KnownQiraIdIndex.contentHash(changed.getRawJson())));
+        assertEquals(KnownQiraIdIndex.Lookup.UNCHANGED,
+            keyIndex.lookup("QIRA-3", KnownQiraIdIndex.contentHash(fresh.getRawJson())));
+    }
+    
+    @Test
+    void testBulkUpsertStampsSyncGeneration() {
+        IssueRecord unchanged = new IssueRecord();
+        unchanged.setQiraId("QIRA-1");
+        unchanged.setRawJson("{\"key\":\"QIRA-1\"}");
+        IssueRecord returning = new IssueRecord();
+        returning.setQiraId("QIRA-2");
+        
+        IssueRecord tombstoned = new IssueRecord();
+        tombstoned.setId(2L);
+        tombstoned.setQiraId("QIRA-2");
+        tombstoned.setSyncGeneration(3L);
+        tombstoned.setDeletedAt(OffsetDateTime.now());
+        
+        keyIndex.put("QIRA-1", KnownQiraIdIndex.contentHash(unchanged.getRawJson()));
+        keyIndex.put("QIRA-2", null);
+        keyIndex.markLoaded();
+        when(repository.findAllByQiraIdIn(anyCollection())).thenReturn(List.of(tombstoned));
+        
+        UpsertStats stats = issueService.upsertBulk(List.of(unchanged, returning), 7L);
+        
+        assertEquals(1, stats.getSkipped());
+        assertEquals(1, stats.getUpdated());
+        verify(repository).stampSyncGeneration(List.of("QIRA-1"), 7L);
+        assertEquals(7L, tombstoned.getSyncGeneration());
+        assertNull(tombstoned.getDeletedAt());
+    }
+    
+    @Test
+    void testBulkUpsertRevivesUnchangedRowTombstonedByAnotherNode() {
+        OffsetDateTime created = OffsetDateTime.parse("2024-03-15T10:00:00Z");
+        IssueRecord unchanged = new IssueRecord();
+        unchanged.setQiraId("QIRA-1");
+        unchanged.setRawJson("{\"key\":\"QIRA-1\"}");
+        IssueRecord returning = new IssueRecord();
+        returning.setQiraId("QIRA-2");
+        returning.setRawJson("{\"key\":\"QIRA-2\"}");
+        
+        // Swept by another node; this node's index still holds the live content hash
+        IssueRecord tombstoned = new IssueRecord();
+        tombstoned.setId(2L);
+        tombstoned.setQiraId("QIRA-2");
+        tombstoned.setCreatedAt(created);
+        tombstoned.setStatus("Open");
+        tombstoned.setDeletedAt(OffsetDateTime.now());
+        
+        keyIndex.put("QIRA-1", KnownQiraIdIndex.contentHash(unchanged.getRawJson()));
+        keyIndex.put("QIRA-2", KnownQiraIdIndex.contentHash(returning.getRawJson()));
+        keyIndex.markLoaded();
+        when(repository.findTombstonedByQiraIdIn(List.of("QIRA-1", "QIRA-2"))).thenReturn(List.of(tombstoned));
+        
+        UpsertStats stats = issueService.upsertBulk(List.of(unchanged, returning), 7L);
+        
+        assertEquals(1, stats.getSkipped());
+        assertEquals(1, stats.getUpdated());
+        assertNull(tombstoned.getDeletedAt());
+        verify(repository, never()).findAllByQiraIdIn(anyCollection());
+        verify(repository).stampSyncGeneration(List.of("QIRA-1", "QIRA-2"), 7L);
+        ArgumentCaptor<IssueStatsDelta> captor = ArgumentCaptor.forClass(IssueStatsDelta.class);
+        verify(statsRollup).apply(captor.capture());
+        assertEquals(List.of(Map.entry(new IssueStatsDelta.Group(LocalDate.of(2024, 3, 1), null, "Open", null, null), 1L)),
+            captor.getValue().changes());
+    }
+    
+    @Test
+    void testBulkUpsertAppliesRollupDeltas() {
+        OffsetDateTime created = OffsetDateTime.parse("2024-03-15T10:00:00Z");
+        IssueRecord existing = new IssueRecord();
+        existing.setId(1L);
+        existing.setQiraId("QIRA-1");
+        existing.setCreatedAt(created);
+        existing.setStatus("Open");
+        IssueRecord update = new IssueRecord();
+        update.setQiraId("QIRA-1");
+        update.setCreatedAt(created);
+        update.setStatus("Closed");
+        IssueRecord fresh = new IssueRecord();
+        fresh.setQiraId("QIRA-2");
+        fresh.setCreatedAt(created);
+        fresh.setStatus("Closed");
+        
+        when(repository.findAllByQiraIdIn(anyCollection())).thenReturn(List.of(existing));
+        
+        issueService.upsertBulk(List.of(update, fresh));
+        
+        ArgumentCaptor<IssueStatsDelta> captor = ArgumentCaptor.forClass(IssueStatsDelta.class);
+        verify(statsRollup).apply(captor.capture());
+        LocalDate month = LocalDate.of(2024, 3, 1);
+        Map<IssueStatsDelta.Group, Long> changes = new HashMap<>();
+        captor.getValue().changes().forEach(e -> changes.put(e.getKey(), e.getValue()));
+        assertEquals(Map.of(
+            new IssueStatsDelta.Group(month, null, "Open", null, null), -1L,
+            new IssueStatsDelta.Group(month, null, "Closed", null, null), 2L), changes);
     }
     
     @Test
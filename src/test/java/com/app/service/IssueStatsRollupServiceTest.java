@@ -0,0 +1,120 @@
+package com.app.service;
+
+import com.app.model.IssueRecord;
+import com.app.repository.IssueStatsRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IssueStatsRollupServiceTest {
+    
+    private static final OffsetDateTime CREATED = OffsetDateTime.parse("2024-03-15T10:00:00Z");
+    
+    @Mock
+    private IssueStatsRollupRepository rollupRepository;
+    
+    private IssueStatsRollupService statsRollup;
+    
+    // Row locks as PostgreSQL holds them: taken by a statement, released at commit
+    private final Map<String, ReentrantLock> rowLocks = new ConcurrentHashMap<>();
+    private final ThreadLocal<List<ReentrantLock>> held = ThreadLocal.withInitial(ArrayList::new);
+    
+    @BeforeEach
+    void setUp() {
+        statsRollup = new IssueStatsRollupService(rollupRepository);
+    }
+    
+    @Test
+    void testVersionIsBumpedBeforeTheFirstGroup() {
+        statsRollup.apply(delta("Alpha", "Beta"));
+        
+        InOrder order = inOrder(rollupRepository);
+        order.verify(rollupRepository).bumpVersion();
+        order.verify(rollupRepository, times(2)).applyDelta(any(), any(), any(), any(), any(), anyLong());
+    }
+    
+    @Test
+    void testNoVersionBumpWithoutChanges() {
+        statsRollup.apply(new IssueStatsDelta());
+        
+        verifyNoInteractions(rollupRepository);
+    }
+    
+    @Test
+    @Timeout(30)
+    void testConcurrentChunksWithOverlappingGroupsDoNotDeadlock() throws Exception {
+        when(rollupRepository.bumpVersion()).thenAnswer(invocation -> lockRow("version"));
+        when(rollupRepository.applyDelta(any(), anyString(), any(), any(), any(), anyLong()))
+            .thenAnswer(invocation -> lockRow("group:" + invocation.getArgument(1)));
+        
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 200; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                // Both chunks touch group Beta: one after Alpha, the other before Gamma
+                Future<?> first = workers.submit(() -> applyAndCommit(start, delta("Alpha", "Beta")));
+                Future<?> second = workers.submit(() -> applyAndCommit(start, delta("Beta", "Gamma")));
+                start.countDown();
+                first.get(10, TimeUnit.SECONDS);
+                second.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+    
+    private Void applyAndCommit(CountDownLatch start, IssueStatsDelta delta) throws InterruptedException {
+        start.await();
+        try {
+            statsRollup.apply(delta);
+        } finally {
+            held.get().forEach(ReentrantLock::unlock);
+            held.get().clear();
+        }
+        return null;
+    }
+    
+    private int lockRow(String row) throws InterruptedException {
+        ReentrantLock lock = rowLocks.computeIfAbsent(row, key -> new ReentrantLock());
+        if (lock.isHeldByCurrentThread()) {
+            return 1;
+        }
+        // A deadlock would leave both workers waiting here
+        assertTrue(lock.tryLock(2, TimeUnit.SECONDS), "Deadlock waiting for " + row);
+        held.get().add(lock);
+        return 1;
+    }
+    
+    private static IssueStatsDelta delta(String... teams) {
+        IssueStatsDelta delta = new IssueStatsDelta();
+        for (String team : teams) {
+            IssueRecord record = new IssueRecord();
+            record.setCreatedAt(CREATED);
+            record.setAssignedTeam(team);
+            record.setStatus("Open");
+            delta.add(record);
+        }
+        return delta;
+    }
+}
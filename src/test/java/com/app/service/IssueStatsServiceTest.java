@@ -0,0 +1,51 @@
+package com.app.service;
+
+import com.app.dto.StatsCount;
+import com.app.repository.IssueStatsRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IssueStatsServiceTest {
+    
+    @Mock
+    private IssueStatsRollupRepository rollupRepository;
+    
+    private IssueStatsService issueStatsService;
+    
+    @BeforeEach
+    void setUp() {
+        issueStatsService = new IssueStatsService(rollupRepository);
+    }
+    
+    @Test
+    void testDataVersionFollowsTheDatabaseWithoutLocalInvalidation() {
+        // Another node or a work-queue worker committed data in between
+        when(rollupRepository.findVersion()).thenReturn(41L, 42L);
+        
+        assertEquals(41L, issueStatsService.getDataVersion());
+        assertEquals(42L, issueStatsService.getDataVersion());
+    }
+    
+    @Test
+    void testCountsByMonthAreKeyedByMonth() {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        when(rollupRepository.sumByMonth(from, null, null)).thenReturn(List.of(
+            new Object[]{LocalDate.of(2024, 1, 1), 3L},
+            new Object[]{LocalDate.of(2024, 2, 1), 5L}));
+        
+        List<StatsCount> counts = issueStatsService.countBy(42L, IssueStatsService.Dimension.MONTH, from, null, " ");
+        
+        assertEquals(List.of("2024-01", "2024-02"), counts.stream().map(StatsCount::getKey).toList());
+        assertEquals(List.of(3L, 5L), counts.stream().map(StatsCount::getCount).toList());
+    }
+}
@@ -0,0 +1,88 @@
+package com.app.service;
+
+import com.app.dto.JobStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobEventServiceTest {
+    
+    @Mock
+    private IngestionJobManager jobManager;
+    
+    private JobEventService jobEventService;
+    
+    @BeforeEach
+    void setUp() {
+        // Long interval: the tests do not depend on the publisher's ticks
+        jobEventService = new JobEventService(jobManager, new SimpleMeterRegistry(), 60_000, 1, 1);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        jobEventService.shutdown();
+    }
+    
+    @Test
+    void testDeltaHoldsOnlyChangedFields() {
+        JobStatus job = runningJob();
+        job.recordPageFetched(100, 4096, 1000);
+        Map<String, Object> first = JobEventService.snapshot(job);
+        
+        job.recordMapped(100);
+        Map<String, Object> changes = JobEventService.delta(first, JobEventService.snapshot(job));
+        
+        assertEquals(Map.of("ticketsMapped", 100), changes);
+        assertSame(first, JobEventService.delta(null, first));
+    }
+    
+    @Test
+    void testSnapshotLeavesOutErrorsAndAddsFinalCountsWhenFinished() {
+        JobStatus job = runningJob();
+        job.recordPageFetched(10, 512, 10);
+        job.addError("MAPPING_MISSING_ID", "QIRA-1", "Failed to map ticket (missing qiraId)");
+        assertFalse(JobEventService.snapshot(job).containsKey("inserted"));
+        
+        job.setInserted(9);
+        job.markCompleted();
+        Map<String, Object> snapshot = JobEventService.snapshot(job);
+        
+        assertEquals(1L, snapshot.get("errorCount"));
+        assertEquals(9, snapshot.get("inserted"));
+        assertFalse(snapshot.containsKey("errors"));
+    }
+    
+    @Test
+    void testUnknownJobHasNoStream() {
+        when(jobManager.getJob("missing")).thenReturn(null);
+        
+        assertNull(jobEventService.subscribe("missing"));
+        assertEquals(0, jobEventService.getSubscriberCount());
+    }
+    
+    @Test
+    void testSubscribersAreCapped() {
+        when(jobManager.getJob("job-1")).thenReturn(runningJob());
+        
+        assertNotNull(jobEventService.subscribe("job-1"));
+        assertThrows(RejectedExecutionException.class, () -> jobEventService.subscribe("job-1"));
+        assertEquals(1, jobEventService.getSubscriberCount());
+    }
+    
+    private static JobStatus runningJob() {
+        JobStatus job = JobStatus.queued("job-1", "MANUAL_SYNC", null);
+        job.markStarted();
+        return job;
+    }
+}
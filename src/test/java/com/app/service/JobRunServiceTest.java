@@ -0,0 +1,121 @@
+package com.app.service;
+
+import com.app.dto.JobStage;
+import com.app.dto.JobStatus;
+import com.app.model.JobRun;
+import com.app.repository.JobRunRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobRunServiceTest {
+    
+    @Mock
+    private JobRunRepository repository;
+    
+    @Mock
+    private ClusterLockService clusterLock;
+    
+    private SimpleMeterRegistry meterRegistry;
+    
+    private JobRunService jobRunService;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(clusterLock.getNodeId()).thenReturn("node-a");
+        jobRunService = new JobRunService(repository, meterRegistry, clusterLock, 10, 3, 2.0, 365);
+        lenient().when(repository.save(any(JobRun.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+    
+    @Test
+    void testRecordStoresCountsStagesAndErrorSummary() {
+        JobStatus job = finishedJob(60_000);
+        job.recordPageFetched(100, 4096, 100);
+        job.recordWritten(100);
+        job.addStage(JobStage.start("fetch").addRecords(100).addBytes(4096).finish());
+        job.addError("MAPPING_MISSING_ID", "QIRA-7", "Failed to map ticket (missing qiraId)");
+        job.addError("MAPPING_MISSING_ID", "QIRA-8", "Failed to map ticket (missing qiraId)");
+        when(repository.trailingDurationMedian("SCHEDULED_SYNC", -1, "job-1", 10))
+            .thenReturn(Collections.singletonList(new Object[] {0L, null}));
+        
+        JobRun run = jobRunService.record(job);
+        
+        assertEquals("node-a", run.getNodeId());
+        assertEquals(60_000, run.getDurationMs());
+        assertEquals(100, run.getTicketsFetched());
+        assertEquals(4096, run.getBytesReceived());
+        assertEquals(2, run.getErrorCount());
+        assertEquals("MAPPING_MISSING_ID: 2\nQIRA-7: Failed to map ticket (missing qiraId)\n"
+            + "QIRA-8: Failed to map ticket (missing qiraId)", run.getErrorSummary());
+        assertEquals(1, run.getStages().size());
+        assertEquals("fetch", run.getStages().get(0).getStage());
+        assertSame(run, run.getStages().get(0).getRun());
+        assertFalse(run.isRegression());
+        assertNull(run.getBaselineDurationMs());
+    }
+    
+    @Test
+    void testRunMuchSlowerThanTrailingMedianIsFlagged() {
+        when(repository.trailingDurationMedian(anyString(), anyInt(), anyString(), anyInt()))
+            .thenReturn(Collections.singletonList(new Object[] {5L, 20_000.0}));
+        
+        JobRun run = jobRunService.record(finishedJob(60_000));
+        
+        assertTrue(run.isRegression());
+        assertEquals(20_000L, run.getBaselineDurationMs());
+        assertEquals(1.0, meterRegistry.get("qira.ingestion.job.regression").tag("type", "SCHEDULED_SYNC").counter().count());
+    }
+    
+    @Test
+    void testTooFewComparableRunsAreNotARegression() {
+        when(repository.trailingDurationMedian(anyString(), anyInt(), anyString(), anyInt()))
+            .thenReturn(Collections.singletonList(new Object[] {2L, 1_000.0}));
+        
+        JobRun run = jobRunService.record(finishedJob(60_000));
+        
+        assertFalse(run.isRegression());
+    }
+    
+    @Test
+    void testFailedRunIsStoredWithoutRegressionCheck() {
+        JobStatus job = JobStatus.queued("job-2", "MANUAL_SYNC", null);
+        job.markStarted();
+        job.markFailed("Fatal error: boom");
+        
+        JobRun run = jobRunService.record(job);
+        
+        assertEquals("FAILED", run.getStatus());
+        verify(repository, never()).trailingDurationMedian(anyString(), anyInt(), anyString(), anyInt());
+    }
+    
+    @Test
+    void testRecordSwallowsRepositoryFailures() {
+        when(repository.trailingDurationMedian(anyString(), anyInt(), anyString(), anyInt()))
+            .thenReturn(Collections.singletonList(new Object[] {0L, null}));
+        when(repository.save(any(JobRun.class))).thenThrow(new RuntimeException("Connection refused"));
+        
+        assertNull(jobRunService.record(finishedJob(1_000)));
+        verify(repository, never()).deleteFinishedBefore(any());
+    }
+    
+    private static JobStatus finishedJob(long durationMillis) {
+        JobStatus job = JobStatus.queued("job-1", "SCHEDULED_SYNC", null);
+        job.markStarted();
+        job.markCompleted();
+        job.setFinishedAt(job.getStartedAt().plusNanos(durationMillis * 1_000_000));
+        return job;
+    }
+}
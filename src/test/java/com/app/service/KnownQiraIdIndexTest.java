@@ -0,0 +1,41 @@
+package com.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnownQiraIdIndexTest {
+    
+    @Test
+    void testLookupClassifiesRecords() {
+        KnownQiraIdIndex index = new KnownQiraIdIndex();
+        index.put("QIRA-1", 42L);
+        index.put("QIRA-2", null);
+        
+        assertEquals(KnownQiraIdIndex.Lookup.UNCHANGED, index.lookup("QIRA-1", 42L));
+        assertEquals(KnownQiraIdIndex.Lookup.CHANGED, index.lookup("QIRA-1", 43L));
+        assertEquals(KnownQiraIdIndex.Lookup.CHANGED, index.lookup("QIRA-2", 0L));
+        assertEquals(KnownQiraIdIndex.Lookup.UNKNOWN, index.lookup("QIRA-3", 42L));
+    }
+    
+    @Test
+    void testGrowsAndRemovesWithoutLosingEntries() {
+        KnownQiraIdIndex index = new KnownQiraIdIndex();
+        int count = 200_000;
+        for (int i = 0; i < count; i++) {
+            index.put("QIRA-" + i, (long) i + 1);
+        }
+        assertEquals(count, index.size());
+        
+        for (int i = 0; i < count; i += 2) {
+            index.remove("QIRA-" + i);
+        }
+        assertEquals(count / 2, index.size());
+        for (int i = 0; i < count; i++) {
+            KnownQiraIdIndex.Lookup expected = i % 2 == 0
+                ? KnownQiraIdIndex.Lookup.UNKNOWN
+                : KnownQiraIdIndex.Lookup.UNCHANGED;
+            assertEquals(expected, index.lookup("QIRA-" + i, (long) i + 1));
+        }
+    }
+}
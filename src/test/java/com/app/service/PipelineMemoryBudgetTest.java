@@ -0,0 +1,94 @@
+package com.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineMemoryBudgetTest {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final long MB = 1024 * 1024;
+    
+    @TempDir
+    private Path spillDir;
+    
+    @Test
+    void testFirstPageIsAlwaysAdmittedAndLaterOnesOnlyWithinBudget() throws Exception {
+        PipelineMemoryBudget.Allowance memory = budget(true).allowance();
+        
+        assertTrue(memory.tryChargeQueued(3 * MB));
+        assertFalse(memory.tryChargeQueued(1));
+        assertFalse(memory.chargeQueued(1, () -> true));
+        
+        memory.dequeued(3 * MB);
+        memory.release(3 * MB);
+        assertTrue(memory.tryChargeQueued(MB / 2));
+        assertTrue(memory.tryChargeQueued(MB / 2));
+        assertEquals(MB, memory.getInFlight());
+    }
+    
+    @Test
+    void testSpilledHeadPageWaitsOnlyForPagesPastTheMapStage() throws Exception {
+        PipelineMemoryBudget.Allowance memory = budget(true).allowance();
+        assertTrue(memory.tryChargeQueued(3 * MB));
+        
+        // All memory in flight is queued behind the spilled page: only the map stage can free it
+        assertTrue(memory.chargeHead(2 * MB, () -> true));
+        
+        memory.dequeued(3 * MB);
+        assertFalse(memory.chargeHead(2 * MB, () -> true));
+        memory.release(5 * MB);
+        assertTrue(memory.chargeHead(2 * MB, () -> true));
+    }
+    
+    @Test
+    void testRunsHaveTheirOwnAllowanceAndCloseReleasesIt() {
+        PipelineMemoryBudget budget = budget(true);
+        PipelineMemoryBudget.Allowance first = budget.allowance();
+        PipelineMemoryBudget.Allowance second = budget.allowance();
+        
+        assertTrue(first.tryChargeQueued(3 * MB));
+        assertTrue(second.tryChargeQueued(MB / 2));
+        assertEquals(3 * MB + MB / 2, budget.getInFlightBytes());
+        
+        first.close();
+        first.release(3 * MB);
+        assertFalse(first.tryChargeQueued(1));
+        assertEquals(MB / 2, budget.getInFlightBytes());
+    }
+    
+    @Test
+    void testSpilledPageIsReadBackAndItsFileDeleted() {
+        PipelineMemoryBudget budget = budget(true);
+        List<JsonNode> tickets = List.of(MAPPER.createObjectNode().put("key", "QIRA-1"),
+            MAPPER.createObjectNode().put("key", "QIRA-2"));
+        
+        Path file = budget.spill(tickets, 1000);
+        
+        assertNotNull(file);
+        assertEquals(1000, budget.getSpilledBytes());
+        assertEquals(tickets, budget.load(file, 1000));
+        assertFalse(Files.exists(file));
+        assertEquals(0, budget.getSpilledBytes());
+    }
+    
+    @Test
+    void testNoSpillWhenDisabledOrOverDiskCap() {
+        List<JsonNode> tickets = List.of(MAPPER.createObjectNode().put("key", "QIRA-1"));
+        
+        assertNull(budget(false).spill(tickets, 1000));
+        assertNull(budget(true).spill(tickets, 3 * MB));
+    }
+    
+    private PipelineMemoryBudget budget(boolean spill) {
+        return new PipelineMemoryBudget(MAPPER, new SimpleMeterRegistry(), 1, spill, spillDir.toString(), 2);
+    }
+}